@@ -0,0 +1,135 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps.benchmarks;
+
+import com.github.cerricks.gps.Area;
+import com.github.cerricks.gps.Coordinates;
+import com.github.cerricks.gps.Sector;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of {@link Area#contains(com.github.cerricks.gps.Region)} with
+ * sectors.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AreaBenchmark {
+
+  /**
+   * How sectors are placed relative to the area.
+   */
+  public enum Placement {
+
+    /**
+     * Well inside the area.
+     */
+    INSIDE,
+    /**
+     * Inside the area with the northernmost vertex on its boundary.
+     */
+    TOUCHING,
+    /**
+     * Across the boundary of the area.
+     */
+    CROSSING,
+    /**
+     * Outside the area, a few sectors away from its boundary.
+     */
+    OUTSIDE
+
+  }
+
+  /**
+   * Half the length of a side of the area, 20 sectors wide.
+   */
+  private static final double AREA_HALF_SIZE = Quads.HALF_SIZE * 20;
+
+  private static final double LATITUDE = 38.9;
+  private static final double LONGITUDE = -77.0;
+
+  @Param
+  public Quads.Shape shape;
+
+  @Param
+  public Placement placement;
+
+  private Area area;
+  private Sector[] sectors = new Sector[Quads.COUNT];
+  private int index;
+
+  @Setup
+  public void setUp() {
+    area = new Area("area",
+            new Coordinates(LATITUDE - AREA_HALF_SIZE, LONGITUDE - AREA_HALF_SIZE),
+            new Coordinates(LATITUDE + AREA_HALF_SIZE, LONGITUDE + AREA_HALF_SIZE));
+
+    Quads quads = new Quads(shape, 42);
+
+    double inner = AREA_HALF_SIZE - Quads.HALF_SIZE * 2;
+
+    for (int i = 0; i < Quads.COUNT; i++) {
+      double offset = (quads.random().nextDouble() * 2 - 1) * inner;
+      double[] quad;
+
+      switch (placement) {
+        case INSIDE:
+          quad = quads.quad(LATITUDE + offset, LONGITUDE + (quads.random().nextDouble() * 2 - 1) * inner, Quads.HALF_SIZE);
+          break;
+        case TOUCHING:
+          quad = quads.quad(LATITUDE, LONGITUDE + offset, Quads.HALF_SIZE);
+          quad = Quads.translate(quad, area.getMaxLatitude() - maxLatitude(quad), 0);
+          break;
+        case CROSSING:
+          quad = quads.quad(LATITUDE + AREA_HALF_SIZE, LONGITUDE + offset, Quads.HALF_SIZE);
+          break;
+        default:
+          quad = quads.quad(LATITUDE + AREA_HALF_SIZE + Quads.HALF_SIZE * 6, LONGITUDE + offset, Quads.HALF_SIZE);
+      }
+
+      sectors[i] = Quads.sector(String.valueOf(i), quad);
+    }
+  }
+
+  private static double maxLatitude(double[] quad) {
+    return Math.max(Math.max(quad[0], quad[2]), Math.max(quad[4], quad[6]));
+  }
+
+  @Benchmark
+  public boolean contains() {
+    index = (index + 1) & (Quads.COUNT - 1);
+
+    return area.contains(sectors[index]);
+  }
+
+}
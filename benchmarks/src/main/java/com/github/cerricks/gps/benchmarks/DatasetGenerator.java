@@ -0,0 +1,335 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Generates synthetic input files in the {@code AreaID, ALat1, ALon1, ALat2,
+ * ALon2, SectorID, c1, d1, ..., c4, d4} schema.
+ *
+ * <p>
+ * Areas are laid out side by side on a grid. The sectors of an area are
+ * squares, each centred in a cell of a grid covering the area and small enough
+ * to stay within its cell at any rotation, so by default no sector overlaps
+ * another or leaves its area. A configurable fraction of sectors is then
+ * shifted onto a neighbouring sector ({@link #setOverlapRate(double)}) or
+ * just beyond the eastern edge of the area ({@link #setOutsideRate(double)}),
+ * where it is clear of the sectors inside the area but may overlap other
+ * sectors moved outside from the same row. The same seed and settings always
+ * produce the same file.
+ *
+ * <p>
+ * Usage:
+ *
+ * <pre>
+ * java -cp benchmarks.jar com.github.cerricks.gps.benchmarks.DatasetGenerator [options] file
+ * </pre>
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+public class DatasetGenerator {
+
+  static final String OPTIONS
+          = "  --areas n        number of areas (default 1000)\n"
+          + "  --sectors n      sectors per area (default 1000)\n"
+          + "  --rotation deg   maximum rotation of sectors in degrees, 0 for axis-aligned (default 45)\n"
+          + "  --overlap rate   fraction of sectors overlapping a neighbouring sector (default 0)\n"
+          + "  --outside rate   fraction of sectors outside their area (default 0)\n"
+          + "  --seed n         random seed (default 1)\n";
+
+  private static final String HEADER = "AreaID,ALat1,ALon1,ALat2,ALon2,SectorID,c1,d1,c2,d2,c3,d3,c4,d4";
+
+  /**
+   * The size of a sector cell, in degrees (about 100 metres).
+   */
+  private static final double CELL_SIZE = 0.001;
+
+  /**
+   * Half the side of a sector, so that its circumscribed circle stays within
+   * 90% of its cell.
+   */
+  private static final double SECTOR_HALF_SIZE = CELL_SIZE * 0.45 / Math.sqrt(2);
+
+  private static final double ORIGIN_LATITUDE = 30.0;
+  private static final double ORIGIN_LONGITUDE = -100.0;
+
+  /**
+   * Coordinates are written with 7 decimal places (about 1 centimetre).
+   */
+  private static final long SCALE = 10_000_000L;
+
+  private int areas = 1000;
+  private int sectorsPerArea = 1000;
+  private double maxRotation = 45;
+  private double overlapRate;
+  private double outsideRate;
+  private long seed = 1;
+
+  public void setAreas(int areas) {
+    this.areas = areas;
+  }
+
+  public void setSectorsPerArea(int sectorsPerArea) {
+    this.sectorsPerArea = sectorsPerArea;
+  }
+
+  /**
+   * Sets the maximum rotation of sectors. Each sector is rotated by a random
+   * angle between 0 and this value.
+   *
+   * @param maxRotation the maximum rotation in degrees, {@code 0} for
+   * axis-aligned sectors.
+   */
+  public void setMaxRotation(double maxRotation) {
+    this.maxRotation = maxRotation;
+  }
+
+  /**
+   * Sets the fraction of sectors moved onto a neighbouring sector.
+   *
+   * @param overlapRate the fraction of overlapping sectors, from 0 to 1.
+   */
+  public void setOverlapRate(double overlapRate) {
+    this.overlapRate = overlapRate;
+  }
+
+  /**
+   * Sets the fraction of sectors moved outside their area.
+   *
+   * @param outsideRate the fraction of sectors outside their area, from 0 to
+   * 1.
+   */
+  public void setOutsideRate(double outsideRate) {
+    this.outsideRate = outsideRate;
+  }
+
+  public void setSeed(long seed) {
+    this.seed = seed;
+  }
+
+  /**
+   * Retrieve the number of rows generated.
+   *
+   * @return the number of rows generated.
+   */
+  public long getRows() {
+    return (long) areas * sectorsPerArea;
+  }
+
+  /**
+   * Parses a generator option.
+   *
+   * @param args the command line arguments.
+   * @param i the index of the option.
+   * @return the index of the last argument consumed, or {@code -1} if the
+   * argument is not a generator option.
+   * @throws IllegalArgumentException if the value of the option is missing or
+   * invalid.
+   */
+  int parseOption(String[] args, int i) {
+    switch (args[i]) {
+      case "--areas":
+        setAreas(Integer.parseInt(value(args, i)));
+        break;
+      case "--sectors":
+        setSectorsPerArea(Integer.parseInt(value(args, i)));
+        break;
+      case "--rotation":
+        setMaxRotation(Double.parseDouble(value(args, i)));
+        break;
+      case "--overlap":
+        setOverlapRate(Double.parseDouble(value(args, i)));
+        break;
+      case "--outside":
+        setOutsideRate(Double.parseDouble(value(args, i)));
+        break;
+      case "--seed":
+        setSeed(Long.parseLong(value(args, i)));
+        break;
+      default:
+        return -1;
+    }
+
+    return i + 1;
+  }
+
+  private static String value(String[] args, int i) {
+    if (i + 1 >= args.length) {
+      throw new IllegalArgumentException("Missing value for " + args[i]);
+    }
+
+    return args[i + 1];
+  }
+
+  /**
+   * Writes a generated file.
+   *
+   * @param file the file to write.
+   * @throws IOException if the file cannot be written.
+   */
+  public void generate(File file) throws IOException {
+    Random random = new Random(seed);
+
+    int cells = (int) Math.ceil(Math.sqrt(sectorsPerArea));
+    int areaColumns = (int) Math.ceil(Math.sqrt(areas));
+
+    // leave a gap of one cell between areas for sectors crossing the edge
+    double areaSize = cells * CELL_SIZE;
+    double areaPitch = areaSize + CELL_SIZE;
+
+    StringBuilder row = new StringBuilder(256);
+
+    try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.US_ASCII), 1 << 16)) {
+      writer.write(HEADER);
+      writer.write('\n');
+
+      for (int a = 0; a < areas; a++) {
+        double minLat = ORIGIN_LATITUDE + (a / areaColumns) * areaPitch;
+        double minLon = ORIGIN_LONGITUDE + (a % areaColumns) * areaPitch;
+
+        row.setLength(0);
+        row.append("Area").append(a);
+        appendCoordinate(row.append(','), minLat);
+        appendCoordinate(row.append(','), minLon);
+        appendCoordinate(row.append(','), minLat + areaSize);
+        appendCoordinate(row.append(','), minLon + areaSize);
+
+        int areaPrefix = row.length();
+
+        for (int s = 0; s < sectorsPerArea; s++) {
+          int cellRow = s / cells;
+          int cellColumn = s % cells;
+
+          double lat = minLat + (cellRow + 0.5) * CELL_SIZE;
+          double lon = minLon + (cellColumn + 0.5) * CELL_SIZE;
+
+          double choice = random.nextDouble();
+
+          if (choice < outsideRate) {
+            // just beyond the eastern edge, clear of the last column
+            lon = minLon + areaSize + CELL_SIZE * 0.45;
+          } else if (choice < outsideRate + overlapRate && sectorsPerArea > 1) {
+            // move three quarters of a cell towards a neighbour, putting the
+            // neighbour's centre inside this sector
+            boolean east = cellColumn < cells - 1 && s + 1 < sectorsPerArea;
+
+            lon += (east ? 0.75 : -0.75) * CELL_SIZE;
+          }
+
+          double angle = Math.toRadians(random.nextDouble() * maxRotation);
+
+          row.setLength(areaPrefix);
+          row.append(",Sector").append(a).append('-').append(s);
+          appendSector(row, lat, lon, angle);
+          row.append('\n');
+
+          writer.append(row);
+        }
+      }
+    }
+  }
+
+  /**
+   * Appends the vertices of a square sector.
+   *
+   * @param row the row to append to.
+   * @param lat the latitude of the centre.
+   * @param lon the longitude of the centre.
+   * @param angle the rotation in radians.
+   */
+  private static void appendSector(StringBuilder row, double lat, double lon, double angle) {
+    double cos = Math.cos(angle) * SECTOR_HALF_SIZE;
+    double sin = Math.sin(angle) * SECTOR_HALF_SIZE;
+
+    // corners (-1,-1), (-1,1), (1,1), (1,-1) rotated about the centre
+    appendVertex(row, lat - cos - sin, lon - cos + sin);
+    appendVertex(row, lat - cos + sin, lon + cos + sin);
+    appendVertex(row, lat + cos + sin, lon + cos - sin);
+    appendVertex(row, lat + cos - sin, lon - cos - sin);
+  }
+
+  private static void appendVertex(StringBuilder row, double lat, double lon) {
+    appendCoordinate(row.append(','), lat);
+    appendCoordinate(row.append(','), lon);
+  }
+
+  /**
+   * Appends a coordinate with 7 decimal places, without the cost of
+   * {@link String#format(String, Object...)}.
+   *
+   * @param row the row to append to.
+   * @param value the coordinate.
+   */
+  static void appendCoordinate(StringBuilder row, double value) {
+    long scaled = Math.round(value * SCALE);
+
+    if (scaled < 0) {
+      row.append('-');
+      scaled = -scaled;
+    }
+
+    row.append(scaled / SCALE).append('.');
+
+    String fraction = Long.toString(scaled % SCALE);
+
+    for (int i = fraction.length(); i < 7; i++) {
+      row.append('0');
+    }
+
+    row.append(fraction);
+  }
+
+  public static void main(String[] args) throws IOException {
+    DatasetGenerator generator = new DatasetGenerator();
+    File file = null;
+
+    for (int i = 0; i < args.length; i++) {
+      int last = generator.parseOption(args, i);
+
+      if (last >= 0) {
+        i = last;
+      } else if (file == null && !args[i].startsWith("-")) {
+        file = new File(args[i]);
+      } else {
+        System.err.println("Usage: DatasetGenerator [options] file");
+        System.err.print(OPTIONS);
+        System.exit(2);
+      }
+    }
+
+    if (file == null) {
+      System.err.println("Usage: DatasetGenerator [options] file");
+      System.err.print(OPTIONS);
+      System.exit(2);
+    }
+
+    long start = System.nanoTime();
+
+    generator.generate(file);
+
+    System.out.printf("Generated %,d rows (%,d bytes) in %.1f s%n", generator.getRows(), file.length(), (System.nanoTime() - start) / 1e9);
+  }
+
+}
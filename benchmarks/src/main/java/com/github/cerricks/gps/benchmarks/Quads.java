@@ -0,0 +1,194 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps.benchmarks;
+
+import com.github.cerricks.gps.Coordinates;
+import com.github.cerricks.gps.Sector;
+import java.util.Random;
+
+/**
+ * Generates quadrilaterals for benchmarks.
+ *
+ * <p>
+ * Quads are squares with a side of about 0.001 degrees (roughly a city block)
+ * placed around Washington, D.C., either aligned with the axes or rotated by a
+ * random angle. Vertices are returned as {@code [lat1, lon1, ..., lat4, lon4]}
+ * in order around the quad.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+public final class Quads {
+
+  /**
+   * The orientation of generated quads.
+   */
+  public enum Shape {
+
+    /**
+     * Edges parallel to the lines of latitude and longitude.
+     */
+    AXIS_ALIGNED,
+    /**
+     * Rotated by a random angle between 5 and 85 degrees.
+     */
+    ROTATED
+
+  }
+
+  /**
+   * The number of inputs generated per benchmark. A power of two, so the index
+   * of the next input can be masked.
+   */
+  static final int COUNT = 1024;
+
+  /**
+   * Half the length of a side of a generated quad, in degrees.
+   */
+  static final double HALF_SIZE = 0.0005;
+
+  private final Random random;
+  private final Shape shape;
+
+  /**
+   * Creates a {@code Quads} generator.
+   *
+   * @param shape the orientation of generated quads.
+   * @param seed the random seed.
+   */
+  Quads(Shape shape, long seed) {
+    this.shape = shape;
+    this.random = new Random(seed);
+  }
+
+  /**
+   * Generates a quad centred at a random position.
+   *
+   * @return the vertices of the quad.
+   */
+  double[] next() {
+    return quad(38.9 + random.nextDouble() * 0.1, -77.0 + random.nextDouble() * 0.1, HALF_SIZE);
+  }
+
+  /**
+   * Retrieve the source of randomness of this generator.
+   *
+   * @return the source of randomness.
+   */
+  Random random() {
+    return random;
+  }
+
+  /**
+   * Converts vertices to a sector.
+   *
+   * @param id the id of the sector.
+   * @param quad the vertices of the quad.
+   * @return the sector.
+   */
+  static Sector sector(String id, double[] quad) {
+    return new Sector(id, quad[0], quad[1], quad[2], quad[3], quad[4], quad[5], quad[6], quad[7]);
+  }
+
+  /**
+   * Generates a quad.
+   *
+   * @param lat the latitude of the centre.
+   * @param lon the longitude of the centre.
+   * @param halfSize half the length of a side.
+   * @return the vertices of the quad.
+   */
+  double[] quad(double lat, double lon, double halfSize) {
+    double angle = shape == Shape.ROTATED ? Math.toRadians(5 + random.nextDouble() * 80) : 0;
+    double cos = Math.cos(angle);
+    double sin = Math.sin(angle);
+
+    double[] corners = {-1, -1, -1, 1, 1, 1, 1, -1};
+    double[] vertices = new double[8];
+
+    for (int i = 0; i < 8; i += 2) {
+      double y = corners[i] * halfSize;
+      double x = corners[i + 1] * halfSize;
+
+      vertices[i] = lat + y * cos + x * sin;
+      vertices[i + 1] = lon + x * cos - y * sin;
+    }
+
+    return vertices;
+  }
+
+  /**
+   * Generates a quad sharing the edge between the second and third vertex of
+   * the given quad, on the outside of that edge. The shared vertices are
+   * identical.
+   *
+   * @param quad the vertices of the quad.
+   * @return the vertices of the touching quad.
+   */
+  static double[] touching(double[] quad) {
+    // edge vector from the first to the second vertex
+    double dLat = quad[2] - quad[0];
+    double dLon = quad[3] - quad[1];
+
+    return new double[]{
+      quad[2], quad[3],
+      quad[2] + dLat, quad[3] + dLon,
+      quad[4] + dLat, quad[5] + dLon,
+      quad[4], quad[5]
+    };
+  }
+
+  /**
+   * Translates a quad.
+   *
+   * @param quad the vertices of the quad.
+   * @param dLat the offset in latitude.
+   * @param dLon the offset in longitude.
+   * @return the vertices of the translated quad.
+   */
+  static double[] translate(double[] quad, double dLat, double dLon) {
+    double[] translated = new double[8];
+
+    for (int i = 0; i < 8; i += 2) {
+      translated[i] = quad[i] + dLat;
+      translated[i + 1] = quad[i + 1] + dLon;
+    }
+
+    return translated;
+  }
+
+  /**
+   * Converts vertices to coordinates, starting at a random vertex so that
+   * construction has to order them.
+   *
+   * @param quad the vertices of the quad.
+   * @return the coordinates of the quad.
+   */
+  Coordinates[] coordinates(double[] quad) {
+    int start = random.nextInt(4);
+
+    Coordinates[] coordinates = new Coordinates[4];
+
+    for (int i = 0; i < 4; i++) {
+      int v = ((start + i) % 4) * 2;
+
+      coordinates[i] = new Coordinates(quad[v], quad[v + 1]);
+    }
+
+    return coordinates;
+  }
+
+}
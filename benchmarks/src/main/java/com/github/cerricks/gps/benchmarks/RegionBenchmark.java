@@ -0,0 +1,211 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps.benchmarks;
+
+import com.github.cerricks.gps.Coordinates;
+import com.github.cerricks.gps.Region;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the {@link Region} geometry kernels.
+ *
+ * <p>
+ * Each benchmark cycles through {@value Quads#COUNT} generated inputs so that
+ * branch prediction cannot learn a single answer.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegionBenchmark {
+
+  /**
+   * How the second quad of a pair is placed relative to the first.
+   */
+  public enum Relation {
+
+    /**
+     * Clear of the first quad, but with intersecting bounding boxes where the
+     * quads are rotated.
+     */
+    DISJOINT,
+    /**
+     * Sharing an edge with the first quad.
+     */
+    TOUCHING,
+    /**
+     * Overlapping the first quad by half a side.
+     */
+    OVERLAPPING
+
+  }
+
+  /**
+   * Pairs of regions.
+   */
+  @State(Scope.Thread)
+  public static class Pairs {
+
+    @Param
+    public Quads.Shape shape;
+
+    @Param
+    public Relation relation;
+
+    Region[] first = new Region[Quads.COUNT];
+    Region[] second = new Region[Quads.COUNT];
+    private int index;
+
+    @Setup
+    public void setUp() {
+      Quads quads = new Quads(shape, 42);
+
+      for (int i = 0; i < Quads.COUNT; i++) {
+        double[] quad = quads.next();
+        double[] other;
+
+        switch (relation) {
+          case DISJOINT:
+            // one side beyond the first quad, along its own edge
+            other = Quads.translate(Quads.touching(quad), (quad[2] - quad[0]) * 0.1, (quad[3] - quad[1]) * 0.1);
+            break;
+          case TOUCHING:
+            other = Quads.touching(quad);
+            break;
+          default:
+            other = Quads.translate(quad, Quads.HALF_SIZE, Quads.HALF_SIZE);
+        }
+
+        first[i] = region(quad);
+        second[i] = region(other);
+      }
+    }
+
+    int next() {
+      return index = (index + 1) & (Quads.COUNT - 1);
+    }
+
+  }
+
+  /**
+   * Regions and points within their bounding boxes, about half of them inside
+   * the region.
+   */
+  @State(Scope.Thread)
+  public static class Points {
+
+    @Param
+    public Quads.Shape shape;
+
+    Region[] regions = new Region[Quads.COUNT];
+    Coordinates[] points = new Coordinates[Quads.COUNT];
+    private int index;
+
+    @Setup
+    public void setUp() {
+      Quads quads = new Quads(shape, 42);
+
+      for (int i = 0; i < Quads.COUNT; i++) {
+        Region region = region(quads.next());
+
+        regions[i] = region;
+        points[i] = new Coordinates(
+                region.getMinLatitude() + quads.random().nextDouble() * (region.getMaxLatitude() - region.getMinLatitude()),
+                region.getMinLongitude() + quads.random().nextDouble() * (region.getMaxLongitude() - region.getMinLongitude()));
+      }
+    }
+
+    int next() {
+      return index = (index + 1) & (Quads.COUNT - 1);
+    }
+
+  }
+
+  /**
+   * Coordinates of quads, starting at a random vertex.
+   */
+  @State(Scope.Thread)
+  public static class Vertices {
+
+    @Param
+    public Quads.Shape shape;
+
+    Coordinates[][] coordinates = new Coordinates[Quads.COUNT][];
+    private int index;
+
+    @Setup
+    public void setUp() {
+      Quads quads = new Quads(shape, 42);
+
+      for (int i = 0; i < Quads.COUNT; i++) {
+        coordinates[i] = quads.coordinates(quads.next());
+      }
+    }
+
+    int next() {
+      return index = (index + 1) & (Quads.COUNT - 1);
+    }
+
+  }
+
+  private static Region region(double[] quad) {
+    return new Region(quad[0], quad[1], quad[2], quad[3], quad[4], quad[5], quad[6], quad[7]);
+  }
+
+  @Benchmark
+  public boolean contains(Points points) {
+    int i = points.next();
+
+    return points.regions[i].contains(points.points[i]);
+  }
+
+  @Benchmark
+  public boolean intersects(Pairs pairs) {
+    int i = pairs.next();
+
+    return pairs.first[i].intersects(pairs.second[i]);
+  }
+
+  @Benchmark
+  public boolean overlaps(Pairs pairs) {
+    int i = pairs.next();
+
+    return pairs.first[i].overlaps(pairs.second[i]);
+  }
+
+  @Benchmark
+  public Region construct(Vertices vertices) {
+    Coordinates[] c = vertices.coordinates[vertices.next()];
+
+    return new Region(c[0], c[1], c[2], c[3]);
+  }
+
+}
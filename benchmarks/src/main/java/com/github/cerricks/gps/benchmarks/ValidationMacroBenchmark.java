@@ -0,0 +1,194 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps.benchmarks;
+
+import com.github.cerricks.gps.GpsValidator;
+import com.github.cerricks.gps.ValidationSummary;
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Validates a generated file end to end and reports throughput, peak heap and
+ * GC time.
+ *
+ * <p>
+ * A file is generated with {@link DatasetGenerator} (or an existing file is
+ * used) and validated several times with a {@link GpsValidator}, the same
+ * pipeline the desktop application and the command line run. The first runs
+ * are warm-up; each measured run reports rows per second, the peak heap used
+ * and the time spent in garbage collection.
+ *
+ * <p>
+ * Usage:
+ *
+ * <pre>
+ * java -Xmx2g -cp benchmarks.jar com.github.cerricks.gps.benchmarks.ValidationMacroBenchmark [options]
+ * </pre>
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+public class ValidationMacroBenchmark {
+
+  private static final String USAGE = "Usage: ValidationMacroBenchmark [generator options] [--file file] [--keep] [--warmup n] [--runs n] [--all-violations] [--unsorted]\n"
+          + DatasetGenerator.OPTIONS
+          + "  --file file      validate this file, generating it if it does not exist\n"
+          + "  --keep           keep the generated temporary file\n"
+          + "  --warmup n       warm-up runs (default 1)\n"
+          + "  --runs n         measured runs (default 3)\n"
+          + "  --all-violations report every violation in an area\n"
+          + "  --unsorted       group rows by area before validating\n";
+
+  public static void main(String[] args) throws Exception {
+    DatasetGenerator generator = new DatasetGenerator();
+    GpsValidator validator = new GpsValidator();
+    File file = null;
+    boolean keep = false;
+    int warmup = 1;
+    int runs = 3;
+
+    try {
+      for (int i = 0; i < args.length; i++) {
+        int last = generator.parseOption(args, i);
+
+        if (last >= 0) {
+          i = last;
+
+          continue;
+        }
+
+        switch (args[i]) {
+          case "--file":
+            file = new File(args[++i]);
+            break;
+          case "--keep":
+            keep = true;
+            break;
+          case "--warmup":
+            warmup = Integer.parseInt(args[++i]);
+            break;
+          case "--runs":
+            runs = Integer.parseInt(args[++i]);
+            break;
+          case "--all-violations":
+            validator.setReportAllViolations(true);
+            break;
+          case "--unsorted":
+            validator.setUnsortedInput(true);
+            break;
+          default:
+            throw new IllegalArgumentException("Unknown option " + args[i]);
+        }
+      }
+    } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+      System.err.println(ex.getMessage());
+      System.err.print(USAGE);
+      System.exit(2);
+    }
+
+    boolean temporary = file == null;
+
+    if (temporary) {
+      file = File.createTempFile("gps-dataset-", ".csv");
+    }
+
+    try {
+      long rows;
+
+      if (temporary || !file.exists()) {
+        long start = System.nanoTime();
+
+        generator.generate(file);
+
+        rows = generator.getRows();
+
+        System.out.printf("Generated %,d rows (%,d bytes) in %.1f s%n", rows, file.length(), (System.nanoTime() - start) / 1e9);
+      } else {
+        try (Stream<String> lines = Files.lines(file.toPath())) {
+          rows = lines.count() - 1;
+        }
+      }
+
+      for (int run = 0; run < warmup + runs; run++) {
+        measure(validator, file, rows, run < warmup ? "warm-up " + (run + 1) : "run " + (run - warmup + 1));
+      }
+    } finally {
+      if (temporary && !keep) {
+        file.delete();
+      }
+    }
+  }
+
+  /**
+   * Validates the file once and prints the measurements.
+   *
+   * @param validator the validator.
+   * @param file the file to validate.
+   * @param rows the number of rows in the file.
+   * @param label the label of the run.
+   * @throws Exception if validation fails.
+   */
+  private static void measure(GpsValidator validator, File file, long rows, String label) throws Exception {
+    List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans();
+    List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+
+    System.gc();
+
+    for (MemoryPoolMXBean pool : pools) {
+      pool.resetPeakUsage();
+    }
+
+    long gcCount = 0;
+    long gcTime = 0;
+
+    for (GarbageCollectorMXBean collector : collectors) {
+      gcCount -= collector.getCollectionCount();
+      gcTime -= collector.getCollectionTime();
+    }
+
+    long start = System.nanoTime();
+
+    ValidationSummary summary = validator.validate(file, message -> {
+      // output is not part of the measurement
+    });
+
+    double seconds = (System.nanoTime() - start) / 1e9;
+
+    for (GarbageCollectorMXBean collector : collectors) {
+      gcCount += collector.getCollectionCount();
+      gcTime += collector.getCollectionTime();
+    }
+
+    // the sum of the pool peaks, an upper bound of the peak heap
+    long peakHeap = 0;
+
+    for (MemoryPoolMXBean pool : pools) {
+      if (pool.getType() == MemoryType.HEAP) {
+        peakHeap += pool.getPeakUsage().getUsed();
+      }
+    }
+
+    System.out.printf("%-10s %8.2f s %,12.0f rows/s %8.1f MB/s  peak heap %,6d MB  GC %,6d ms (%d collections)  %s%n",
+            label, seconds, rows / seconds, file.length() / seconds / (1 << 20), peakHeap >> 20, gcTime, gcCount, summary);
+  }
+
+}
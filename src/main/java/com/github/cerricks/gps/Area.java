@@ -19,6 +19,11 @@ package com.github.cerricks.gps;
  * An {@code Area} is a rectangular geographical region (without orientation)
  * defined by 2 diagonal coordinates.
  *
+ * <p>
+ * An {@code Area} is always axis-aligned, so checking that it contains a
+ * sector takes only comparisons of bounding boxes (see
+ * {@link Region#contains(Region)}).
+ *
  * @author Clifford Errickson
  * @since 1.0
  */
@@ -34,7 +39,10 @@ public class Area extends Region {
    * @param c2 the second diagonal coordinate of the rectangular area.
    */
   public Area(String id, Coordinates c1, Coordinates c2) {
-    super(c1, c2, new Coordinates(c1.getLatitude(), c2.getLongitude()), new Coordinates(c2.getLatitude(), c1.getLongitude()));
+    super(c1.getLatitude(), c1.getLongitude(),
+            c2.getLatitude(), c2.getLongitude(),
+            c1.getLatitude(), c2.getLongitude(),
+            c2.getLatitude(), c1.getLongitude());
     this.id = id;
   }
 
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of validating a single area.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+public class AreaResult {
+
+  /**
+   * The verdict for an area.
+   */
+  public enum Verdict {
+
+    /**
+     * All sectors are within the area and clear of overlap.
+     */
+    VALID,
+    /**
+     * The area coordinates do not describe a rectangle. Sectors are not
+     * checked.
+     */
+    INVALID_AREA_COORDINATES,
+    /**
+     * A sector is not fully contained within the area.
+     */
+    SECTOR_OUTSIDE_AREA,
+    /**
+     * Two sectors overlap.
+     */
+    SECTORS_OVERLAP,
+    /**
+     * Validation of the area exceeded its time budget, so whether its sectors
+     * are valid is unknown.
+     */
+    UNDETERMINED;
+
+    /**
+     * Indicates if this verdict means the area is valid.
+     *
+     * @return {@code true} if the area is valid, {@code false} otherwise.
+     */
+    public boolean isValid() {
+      return this == VALID;
+    }
+
+  }
+
+  /**
+   * A single sector violation: a sector outside the area or a pair of
+   * overlapping sectors.
+   */
+  public static class Violation {
+
+    private final Verdict verdict;
+    private final List<String> sectorIds;
+
+    /**
+     * Creates a {@code Violation}.
+     *
+     * @param verdict either {@link Verdict#SECTOR_OUTSIDE_AREA} or
+     * {@link Verdict#SECTORS_OVERLAP}.
+     * @param sectorIds the ids of the sectors involved.
+     */
+    public Violation(Verdict verdict, String... sectorIds) {
+      this.verdict = verdict;
+      this.sectorIds = Collections.unmodifiableList(Arrays.asList(sectorIds));
+    }
+
+    /**
+     * Retrieve the kind of violation.
+     *
+     * @return the kind of violation.
+     */
+    public Verdict getVerdict() {
+      return verdict;
+    }
+
+    /**
+     * Retrieve the ids of the sectors involved.
+     *
+     * @return the ids of the sectors involved.
+     */
+    public List<String> getSectorIds() {
+      return sectorIds;
+    }
+
+    @Override
+    public String toString() {
+      return new StringBuilder().append(verdict).append(" ").append(sectorIds).toString();
+    }
+
+  }
+
+  private final String areaId;
+  private final Verdict verdict;
+  private final List<String> offendingSectorIds;
+  private final List<Violation> violations;
+
+  /**
+   * Creates an {@code AreaResult}.
+   *
+   * @param areaId the id of the area.
+   * @param verdict the verdict for the area.
+   * @param offendingSectorIds the ids of the sectors responsible for the
+   * verdict.
+   */
+  public AreaResult(String areaId, Verdict verdict, String... offendingSectorIds) {
+    this(areaId, verdict, Arrays.asList(offendingSectorIds));
+  }
+
+  /**
+   * Creates an {@code AreaResult}.
+   *
+   * @param areaId the id of the area.
+   * @param verdict the verdict for the area.
+   * @param offendingSectorIds the ids of the sectors responsible for the
+   * verdict.
+   */
+  public AreaResult(String areaId, Verdict verdict, List<String> offendingSectorIds) {
+    this.areaId = areaId;
+    this.verdict = verdict;
+    this.offendingSectorIds = Collections.unmodifiableList(offendingSectorIds);
+    this.violations = verdict.isValid() || verdict == Verdict.INVALID_AREA_COORDINATES || verdict == Verdict.UNDETERMINED
+            ? Collections.emptyList()
+            : Collections.singletonList(new Violation(verdict, offendingSectorIds.toArray(new String[0])));
+  }
+
+  /**
+   * Creates an {@code AreaResult} listing every violation found in an area.
+   * The verdict and offending sectors are those of the first violation.
+   *
+   * @param areaId the id of the area.
+   * @param violations the violations found, empty if the area is valid.
+   */
+  public AreaResult(String areaId, List<Violation> violations) {
+    this.areaId = areaId;
+    this.violations = Collections.unmodifiableList(violations);
+
+    if (violations.isEmpty()) {
+      this.verdict = Verdict.VALID;
+      this.offendingSectorIds = Collections.emptyList();
+    } else {
+      this.verdict = violations.get(0).getVerdict();
+      this.offendingSectorIds = violations.get(0).getSectorIds();
+    }
+  }
+
+  /**
+   * Retrieve the id of the area.
+   *
+   * @return the id of the area.
+   */
+  public String getAreaId() {
+    return areaId;
+  }
+
+  /**
+   * Indicates if the area coordinates are valid.
+   *
+   * @return {@code true} if the area coordinates are valid, {@code false}
+   * otherwise.
+   */
+  public boolean isAreaCoordinatesValid() {
+    return verdict != Verdict.INVALID_AREA_COORDINATES;
+  }
+
+  /**
+   * Retrieve the verdict for the area.
+   *
+   * @return the verdict for the area.
+   */
+  public Verdict getVerdict() {
+    return verdict;
+  }
+
+  /**
+   * Indicates if the area is valid.
+   *
+   * @return {@code true} if the area is valid, {@code false} otherwise.
+   */
+  public boolean isValid() {
+    return verdict.isValid();
+  }
+
+  /**
+   * Indicates if validation of the area exceeded its time budget.
+   *
+   * @return {@code true} if the area is undetermined, {@code false} otherwise.
+   */
+  public boolean isUndetermined() {
+    return verdict == Verdict.UNDETERMINED;
+  }
+
+  /**
+   * Retrieve the ids of the sectors responsible for the verdict, e.g. the
+   * sector outside the area or the pair of overlapping sectors.
+   *
+   * @return the ids of the offending sectors, empty if none.
+   */
+  public List<String> getOffendingSectorIds() {
+    return offendingSectorIds;
+  }
+
+  /**
+   * Retrieve the sector violations found. When validating stops at the first
+   * violation this holds at most one violation.
+   *
+   * @return the violations found, empty if the area is valid, its coordinates
+   * are invalid or it is undetermined.
+   */
+  public List<Violation> getViolations() {
+    return violations;
+  }
+
+  @Override
+  public String toString() {
+    return new StringBuilder().append(areaId).append(": ").append(verdict).append(" ").append(offendingSectorIds).toString();
+  }
+
+}
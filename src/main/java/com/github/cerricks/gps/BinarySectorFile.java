@@ -0,0 +1,413 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A memory-mapped file of areas and sectors in a compact binary format, read
+ * without parsing.
+ *
+ * <p>
+ * All values are big-endian and every section starts on an 8 byte boundary.
+ * The file consists of:
+ *
+ * <ol>
+ * <li>a header of {@value #HEADER_BYTES} bytes: the magic number
+ * {@code "GPSB"} and the format version ({@code int}s), the number of areas and
+ * the offset of the area index ({@code long}s) and a reserved {@code long};
+ * <li>one block per area, in the order of the input: the area diagonal
+ * coordinates as 4 {@code double}s ({@link SectorRecord#area}), the number of
+ * sectors {@code n} ({@code long}), the sector coordinates as {@code n * 8}
+ * packed {@code double}s ({@link SectorRecord#sector}), the end of each sector
+ * id in the id column as {@code n} {@code int}s and the id column itself,
+ * holding the UTF-8 sector ids back to back;
+ * <li>the area index: for each area the offset of its block ({@code long}),
+ * the length of its id in bytes ({@code int}) and its UTF-8 id.
+ * </ol>
+ *
+ * <p>
+ * The index is read when the file is opened, so areas can be read in any
+ * order. The rest of the file is mapped a window at a time as it is read.
+ * Files are written by {@link BinarySectorFileWriter} and read for validation
+ * by {@link BinarySectorRecordReader}.
+ *
+ * <p>
+ * A {@code BinarySectorFile} is not thread-safe.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+class BinarySectorFile implements Closeable {
+
+  /**
+   * The magic number at the start of every file, {@code "GPSB"} in ASCII.
+   */
+  static final int MAGIC = 0x47505342;
+
+  /**
+   * The version of the format.
+   */
+  static final int VERSION = 1;
+
+  /**
+   * The size of the header in bytes.
+   */
+  static final int HEADER_BYTES = 32;
+
+  /**
+   * The size in bytes of the fixed part of an area block: the area
+   * coordinates and the number of sectors.
+   */
+  static final int AREA_BYTES = 4 * Double.BYTES + Long.BYTES;
+
+  /**
+   * The size in bytes of the coordinates of a sector.
+   */
+  static final int SECTOR_BYTES = 8 * Double.BYTES;
+
+  /**
+   * The default maximum size of a mapped window of the file.
+   */
+  static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+  private final RandomAccessFile randomAccessFile;
+  private final FileChannel channel;
+  private final long fileSize;
+  private final int windowSize;
+
+  private final String[] areaIds;
+  private final long[] areaOffsets;
+  private final long indexOffset;
+  private final Map<String, Integer> areaIndex = new HashMap<>();
+
+  private MappedByteBuffer buffer;
+  private long windowOffset;
+  private int limit;
+
+  /**
+   * Opens a {@code BinarySectorFile}.
+   *
+   * @param file the file to read.
+   * @throws IOException if the file cannot be read or is not in the binary
+   * format.
+   */
+  BinarySectorFile(File file) throws IOException {
+    this(file, DEFAULT_WINDOW_SIZE);
+  }
+
+  /**
+   * Opens a {@code BinarySectorFile}.
+   *
+   * @param file the file to read.
+   * @param windowSize the maximum size of a mapped window of the file, a
+   * multiple of 8.
+   * @throws IOException if the file cannot be read or is not in the binary
+   * format.
+   */
+  BinarySectorFile(File file, int windowSize) throws IOException {
+    if (windowSize < Long.BYTES || windowSize % Long.BYTES != 0) {
+      throw new IllegalArgumentException("Window size must be a positive multiple of 8: " + windowSize);
+    }
+
+    this.randomAccessFile = new RandomAccessFile(file, "r");
+    this.channel = randomAccessFile.getChannel();
+    this.windowSize = windowSize;
+
+    try {
+      this.fileSize = channel.size();
+
+      if (fileSize < HEADER_BYTES || getInt(0) != MAGIC) {
+        throw new IOException("Not a binary sector file: " + file);
+      }
+
+      if (getInt(Integer.BYTES) != VERSION) {
+        throw new IOException("Unsupported binary sector file version " + getInt(Integer.BYTES) + ": " + file);
+      }
+
+      long areaCount = getLong(2 * Integer.BYTES);
+      this.indexOffset = getLong(2 * Integer.BYTES + Long.BYTES);
+
+      if (areaCount < 0 || areaCount > Integer.MAX_VALUE || indexOffset < HEADER_BYTES || indexOffset > fileSize) {
+        throw new IOException("Corrupt binary sector file header: " + file);
+      }
+
+      this.areaIds = new String[(int) areaCount];
+      this.areaOffsets = new long[(int) areaCount];
+
+      long position = indexOffset;
+
+      for (int i = 0; i < areaIds.length; i++) {
+        areaOffsets[i] = getLong(position);
+        int length = getInt(position + Long.BYTES);
+
+        areaIds[i] = getString(position + Long.BYTES + Integer.BYTES, length);
+        areaIndex.putIfAbsent(areaIds[i], i);
+
+        position += Long.BYTES + Integer.BYTES + length;
+      }
+    } catch (IOException | RuntimeException ex) {
+      randomAccessFile.close();
+
+      throw ex;
+    }
+  }
+
+  /**
+   * Indicates if the given file is in the binary format, going by its magic
+   * number.
+   *
+   * @param file the file.
+   * @return {@code true} if the file starts with the magic number.
+   */
+  static boolean isBinary(File file) {
+    if (!file.isFile() || file.length() < HEADER_BYTES) {
+      return false;
+    }
+
+    try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+      return in.readInt() == MAGIC;
+    } catch (IOException ex) {
+      return false;
+    }
+  }
+
+  /**
+   * Retrieve the size of the file.
+   *
+   * @return the size of the file in bytes.
+   */
+  long getFileSize() {
+    return fileSize;
+  }
+
+  /**
+   * Retrieve the number of areas in the file.
+   *
+   * @return the number of areas.
+   */
+  int getAreaCount() {
+    return areaIds.length;
+  }
+
+  /**
+   * Retrieve the id of an area.
+   *
+   * @param area the index of the area.
+   * @return the id of the area.
+   */
+  String getAreaId(int area) {
+    return areaIds[area];
+  }
+
+  /**
+   * Finds the first area with the given id.
+   *
+   * @param areaId the id of the area.
+   * @return the index of the area, or {@code -1} if there is no such area.
+   */
+  int indexOf(String areaId) {
+    return areaIndex.getOrDefault(areaId, -1);
+  }
+
+  /**
+   * Retrieve the size of the block of an area.
+   *
+   * @param area the index of the area.
+   * @return the size of the block in bytes.
+   */
+  long getAreaBytes(int area) {
+    long end = area + 1 < areaOffsets.length ? areaOffsets[area + 1] : indexOffset;
+
+    return end - areaOffsets[area];
+  }
+
+  /**
+   * Copies the diagonal coordinates of an area.
+   *
+   * @param area the index of the area.
+   * @param coordinates the array to copy the coordinates to, see
+   * {@link SectorRecord#area}.
+   * @throws IOException if the file cannot be mapped.
+   */
+  void getAreaCoordinates(int area, double[] coordinates) throws IOException {
+    long position = areaOffsets[area];
+
+    for (int i = 0; i < 4; i++) {
+      coordinates[i] = getDouble(position + i * Double.BYTES);
+    }
+  }
+
+  /**
+   * Retrieve the number of sectors of an area.
+   *
+   * @param area the index of the area.
+   * @return the number of sectors.
+   * @throws IOException if the file cannot be mapped.
+   */
+  long getSectorCount(int area) throws IOException {
+    return getLong(areaOffsets[area] + 4 * Double.BYTES);
+  }
+
+  /**
+   * Copies the coordinates of a sector.
+   *
+   * @param area the index of the area.
+   * @param sector the index of the sector in the area.
+   * @param coordinates the array to copy the coordinates to, see
+   * {@link SectorRecord#sector}.
+   * @throws IOException if the file cannot be mapped.
+   */
+  void getSectorCoordinates(int area, long sector, double[] coordinates) throws IOException {
+    long position = areaOffsets[area] + AREA_BYTES + sector * SECTOR_BYTES;
+
+    ensureMapped(position, SECTOR_BYTES);
+
+    int p = (int) (position - windowOffset);
+
+    for (int i = 0; i < 8; i++) {
+      coordinates[i] = buffer.getDouble(p + i * Double.BYTES);
+    }
+  }
+
+  /**
+   * Retrieve the id of a sector.
+   *
+   * @param area the index of the area.
+   * @param sector the index of the sector in the area.
+   * @param sectorCount the number of sectors of the area.
+   * @return the id of the sector.
+   * @throws IOException if the file cannot be mapped.
+   */
+  String getSectorId(int area, long sector, long sectorCount) throws IOException {
+    long idEnds = areaOffsets[area] + AREA_BYTES + sectorCount * SECTOR_BYTES;
+    long ids = idEnds + sectorCount * Integer.BYTES;
+
+    int start = sector == 0 ? 0 : getInt(idEnds + (sector - 1) * Integer.BYTES);
+    int end = getInt(idEnds + sector * Integer.BYTES);
+
+    return getString(ids + start, end - start);
+  }
+
+  /**
+   * Ensures the given range of the file is in the mapped window, mapping a new
+   * window starting at (or just before) the range if not.
+   *
+   * @param position the position in the file.
+   * @param length the length of the range.
+   * @throws IOException if the range is beyond the end of the file or cannot be
+   * mapped.
+   */
+  private void ensureMapped(long position, int length) throws IOException {
+    if (buffer != null && position >= windowOffset && position + length <= windowOffset + limit) {
+      return;
+    }
+
+    if (position < 0 || position + length > fileSize) {
+      throw new IOException("Corrupt binary sector file, offset " + position + " is beyond the end of the file");
+    }
+
+    long offset = position & ~(long) (Long.BYTES - 1);
+
+    if (position + length - offset > windowSize) {
+      throw new IOException("Value of " + length + " bytes is longer than the mapping window");
+    }
+
+    buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(windowSize, fileSize - offset));
+    windowOffset = offset;
+    limit = buffer.limit();
+  }
+
+  /**
+   * Reads a {@code double}.
+   *
+   * @param position the position of the value in the file.
+   * @return the value.
+   * @throws IOException if the value cannot be mapped.
+   */
+  private double getDouble(long position) throws IOException {
+    ensureMapped(position, Double.BYTES);
+
+    return buffer.getDouble((int) (position - windowOffset));
+  }
+
+  /**
+   * Reads a {@code long}.
+   *
+   * @param position the position of the value in the file.
+   * @return the value.
+   * @throws IOException if the value cannot be mapped.
+   */
+  private long getLong(long position) throws IOException {
+    ensureMapped(position, Long.BYTES);
+
+    return buffer.getLong((int) (position - windowOffset));
+  }
+
+  /**
+   * Reads a {@code int}.
+   *
+   * @param position the position of the value in the file.
+   * @return the value.
+   * @throws IOException if the value cannot be mapped.
+   */
+  private int getInt(long position) throws IOException {
+    ensureMapped(position, Integer.BYTES);
+
+    return buffer.getInt((int) (position - windowOffset));
+  }
+
+  /**
+   * Decodes a UTF-8 string.
+   *
+   * @param position the position of the string in the file.
+   * @param length the length of the string in bytes.
+   * @return the string.
+   * @throws IOException if the string cannot be mapped.
+   */
+  private String getString(long position, int length) throws IOException {
+    if (length < 0) {
+      throw new IOException("Corrupt binary sector file, negative length at offset " + position);
+    }
+
+    ensureMapped(position, length);
+
+    byte[] bytes = new byte[length];
+    int p = (int) (position - windowOffset);
+
+    for (int i = 0; i < length; i++) {
+      bytes[i] = buffer.get(p + i);
+    }
+
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public void close() throws IOException {
+    randomAccessFile.close();
+  }
+
+}
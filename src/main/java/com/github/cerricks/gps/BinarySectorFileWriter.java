@@ -0,0 +1,428 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes records to a file in the binary format of {@link BinarySectorFile}.
+ *
+ * <p>
+ * Records are written as they are read, a new area starting whenever the area
+ * id changes, as when validating. Sector coordinates are written straight
+ * through a large buffer; only the ids of the current area are held in memory
+ * until the area ends, since they follow the coordinates in the area block.
+ * The header is completed when the writer is closed, unless a write failed
+ * or the writer was {@link #abort() aborted}; the file then has no valid
+ * header and is never taken for a binary file.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+class BinarySectorFileWriter implements Closeable {
+
+  /**
+   * The size of the write buffer.
+   */
+  private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+  private final RandomAccessFile randomAccessFile;
+  private final FileChannel channel;
+  private final ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+
+  /**
+   * The number of bytes written to the file, and so the position in the file
+   * of the start of the buffer.
+   */
+  private long position;
+
+  private final List<String> areaIds = new ArrayList<>();
+  private final List<Long> areaOffsets = new ArrayList<>();
+
+  private String areaId;
+  private long sectorCount;
+
+  // the ids of the sectors of the current area
+  private byte[] idBytes = new byte[1 << 12];
+  private int[] idEnd = new int[1 << 8];
+  private int idLength;
+
+  private boolean closed;
+
+  /**
+   * Set when a write failed or the writer was aborted, so that closing leaves
+   * the file incomplete rather than completing a partial file.
+   */
+  private boolean failed;
+
+  /**
+   * Creates a {@code BinarySectorFileWriter}, replacing any existing file.
+   *
+   * @param file the file to write.
+   * @throws IOException if the file cannot be created.
+   */
+  BinarySectorFileWriter(File file) throws IOException {
+    this.randomAccessFile = new RandomAccessFile(file, "rw");
+    this.channel = randomAccessFile.getChannel();
+
+    try {
+      randomAccessFile.setLength(0);
+
+      // header, completed on close
+      buffer.put(new byte[BinarySectorFile.HEADER_BYTES]);
+    } catch (IOException | RuntimeException ex) {
+      randomAccessFile.close();
+
+      throw ex;
+    }
+  }
+
+  /**
+   * Converts a file in any input format to the binary format.
+   *
+   * <p>
+   * The binary file is written to a temporary file next to the output and
+   * moved into place once complete, so if the input cannot be read to the end
+   * the output is left as it was rather than replaced by a partial file.
+   *
+   * @param input the file to convert.
+   * @param charset the charset of the input if it is text.
+   * @param output the binary file to write.
+   * @return the number of records converted.
+   * @throws IOException if the input cannot be read or the output written.
+   */
+  static long convert(File input, Charset charset, File output) throws IOException {
+    Path target = output.getAbsoluteFile().toPath();
+    Path temp = Files.createTempFile(target.getParent(), target.getFileName() + ".", ".tmp");
+
+    long records = 0;
+    boolean converted = false;
+
+    try {
+      BinarySectorFileWriter writer = new BinarySectorFileWriter(temp.toFile());
+
+      try (SectorRecordReader reader = SectorRecordReader.open(input, charset)) {
+        SectorRecord record = new SectorRecord();
+
+        while (reader.read(record)) {
+          writer.write(record);
+          records++;
+        }
+      } catch (IOException | RuntimeException ex) {
+        try {
+          writer.abort();
+        } catch (IOException suppressed) {
+          ex.addSuppressed(suppressed);
+        }
+
+        throw ex;
+      }
+
+      writer.close();
+
+      try {
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException ex) {
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+
+      converted = true;
+    } finally {
+      if (!converted) {
+        Files.deleteIfExists(temp);
+      }
+    }
+
+    return records;
+  }
+
+  /**
+   * Writes a record.
+   *
+   * @param record the record.
+   * @throws IOException if the file cannot be written.
+   */
+  void write(SectorRecord record) throws IOException {
+    try {
+      writeRecord(record);
+    } catch (IOException | RuntimeException ex) {
+      failed = true;
+
+      throw ex;
+    }
+  }
+
+  /**
+   * Writes a record, starting a new area if the area id changed.
+   *
+   * @param record the record.
+   * @throws IOException if the file cannot be written.
+   */
+  private void writeRecord(SectorRecord record) throws IOException {
+    if (areaId == null || !areaId.equals(record.areaId)) {
+      endArea();
+
+      areaId = record.areaId;
+      areaIds.add(areaId);
+      areaOffsets.add(offset());
+
+      for (double value : record.area) {
+        putDouble(value);
+      }
+
+      // sector count, completed when the area ends
+      putLong(0);
+    }
+
+    for (double value : record.sector) {
+      putDouble(value);
+    }
+
+    addId(record.sectorId);
+    sectorCount++;
+  }
+
+  /**
+   * Retrieve the position in the file at which the next byte is written.
+   *
+   * @return the position in the file.
+   */
+  private long offset() {
+    return position + buffer.position();
+  }
+
+  /**
+   * Appends the id of a sector of the current area.
+   *
+   * @param id the id of the sector.
+   */
+  private void addId(String id) {
+    byte[] encoded = id.getBytes(StandardCharsets.UTF_8);
+
+    if (idLength + encoded.length > idBytes.length) {
+      idBytes = Arrays.copyOf(idBytes, Math.max(idLength + encoded.length, idBytes.length * 2));
+    }
+
+    if (sectorCount == idEnd.length) {
+      idEnd = Arrays.copyOf(idEnd, idEnd.length * 2);
+    }
+
+    System.arraycopy(encoded, 0, idBytes, idLength, encoded.length);
+    idLength += encoded.length;
+    idEnd[(int) sectorCount] = idLength;
+  }
+
+  /**
+   * Ends the current area, if any: writes the id columns and completes the
+   * sector count.
+   *
+   * @throws IOException if the file cannot be written.
+   */
+  private void endArea() throws IOException {
+    if (areaId == null) {
+      return;
+    }
+
+    for (int i = 0; i < sectorCount; i++) {
+      putInt(idEnd[i]);
+    }
+
+    put(idBytes, idLength);
+    pad();
+
+    long countPosition = areaOffsets.get(areaOffsets.size() - 1) + 4 * Double.BYTES;
+
+    if (countPosition >= position) {
+      // still buffered
+      buffer.putLong((int) (countPosition - position), sectorCount);
+    } else {
+      ByteBuffer count = ByteBuffer.allocate(Long.BYTES);
+      count.putLong(sectorCount).flip();
+
+      channel.write(count, countPosition);
+    }
+
+    areaId = null;
+    sectorCount = 0;
+    idLength = 0;
+  }
+
+  /**
+   * Pads the file to a multiple of 8 bytes.
+   *
+   * @throws IOException if the file cannot be written.
+   */
+  private void pad() throws IOException {
+    int padding = (int) ((Long.BYTES - offset() % Long.BYTES) % Long.BYTES);
+
+    put(new byte[padding], padding);
+  }
+
+  /**
+   * Writes a {@code double} through the buffer.
+   *
+   * @param value the value.
+   * @throws IOException if the file cannot be written.
+   */
+  private void putDouble(double value) throws IOException {
+    ensureRemaining(Double.BYTES);
+    buffer.putDouble(value);
+  }
+
+  /**
+   * Writes a {@code long} through the buffer.
+   *
+   * @param value the value.
+   * @throws IOException if the file cannot be written.
+   */
+  private void putLong(long value) throws IOException {
+    ensureRemaining(Long.BYTES);
+    buffer.putLong(value);
+  }
+
+  /**
+   * Writes an {@code int} through the buffer.
+   *
+   * @param value the value.
+   * @throws IOException if the file cannot be written.
+   */
+  private void putInt(int value) throws IOException {
+    ensureRemaining(Integer.BYTES);
+    buffer.putInt(value);
+  }
+
+  /**
+   * Writes bytes through the buffer.
+   *
+   * @param bytes the bytes.
+   * @param length the number of bytes to write.
+   * @throws IOException if the file cannot be written.
+   */
+  private void put(byte[] bytes, int length) throws IOException {
+    int offset = 0;
+
+    while (offset < length) {
+      ensureRemaining(1);
+
+      int n = Math.min(length - offset, buffer.remaining());
+
+      buffer.put(bytes, offset, n);
+      offset += n;
+    }
+  }
+
+  /**
+   * Flushes the buffer if it has less room than needed.
+   *
+   * @param bytes the number of bytes needed.
+   * @throws IOException if the file cannot be written.
+   */
+  private void ensureRemaining(int bytes) throws IOException {
+    if (buffer.remaining() < bytes) {
+      flush();
+    }
+  }
+
+  /**
+   * Writes the buffered bytes to the file.
+   *
+   * @throws IOException if the file cannot be written.
+   */
+  private void flush() throws IOException {
+    buffer.flip();
+
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+
+    buffer.clear();
+  }
+
+  /**
+   * Closes the file without completing it, after the records could not all be
+   * read. The file has no valid header.
+   *
+   * @throws IOException if the file cannot be closed.
+   */
+  void abort() throws IOException {
+    failed = true;
+
+    close();
+  }
+
+  /**
+   * Ends the last area, writes the area index and completes the header. After
+   * a failed write, only closes the file.
+   *
+   * @throws IOException if the file cannot be written.
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+
+    closed = true;
+
+    if (failed) {
+      randomAccessFile.close();
+
+      return;
+    }
+
+    try {
+      endArea();
+
+      long indexOffset = offset();
+
+      for (int i = 0; i < areaIds.size(); i++) {
+        byte[] encoded = areaIds.get(i).getBytes(StandardCharsets.UTF_8);
+
+        putLong(areaOffsets.get(i));
+        putInt(encoded.length);
+        put(encoded, encoded.length);
+      }
+
+      flush();
+
+      ByteBuffer header = ByteBuffer.allocate(BinarySectorFile.HEADER_BYTES);
+      header.putInt(BinarySectorFile.MAGIC);
+      header.putInt(BinarySectorFile.VERSION);
+      header.putLong(areaIds.size());
+      header.putLong(indexOffset);
+      header.flip();
+
+      channel.write(header, 0);
+    } finally {
+      randomAccessFile.close();
+    }
+  }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A {@link SectorRecordReader} of a file in the binary format of
+ * {@link BinarySectorFile}.
+ *
+ * <p>
+ * Coordinates are copied from the mapped file as doubles and ids are decoded
+ * straight from UTF-8; nothing is parsed. Areas are read in the order of the
+ * file, or in any given order using the area index.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+class BinarySectorRecordReader implements SectorRecordReader {
+
+  private final BinarySectorFile file;
+
+  /**
+   * The indices of the areas to read, in order.
+   */
+  private final int[] areas;
+
+  /**
+   * The position in {@link #areas} of the next area to read.
+   */
+  private int next;
+
+  private int area = -1;
+  private long sector;
+  private long sectorCount;
+
+  /**
+   * The bytes of the blocks of the areas read before the current area.
+   */
+  private long bytesBefore;
+
+  private boolean finished;
+
+  /**
+   * Creates a {@code BinarySectorRecordReader} reading every area in the order
+   * of the file.
+   *
+   * @param file the file to read.
+   * @throws IOException if the file cannot be read or is not in the binary
+   * format.
+   */
+  BinarySectorRecordReader(File file) throws IOException {
+    this(new BinarySectorFile(file), null);
+  }
+
+  /**
+   * Creates a {@code BinarySectorRecordReader} reading the given areas in the
+   * given order.
+   *
+   * @param file the file to read, closed with this reader.
+   * @param areas the indices of the areas to read, or {@code null} for every
+   * area in the order of the file.
+   */
+  BinarySectorRecordReader(BinarySectorFile file, int[] areas) {
+    if (areas == null) {
+      areas = new int[file.getAreaCount()];
+
+      for (int i = 0; i < areas.length; i++) {
+        areas[i] = i;
+      }
+    }
+
+    this.file = file;
+    this.areas = areas;
+  }
+
+  @Override
+  public boolean read(SectorRecord record) throws IOException {
+    if (finished) {
+      return false;
+    }
+
+    while (area < 0 || sector == sectorCount) {
+      if (area >= 0) {
+        bytesBefore += file.getAreaBytes(area);
+      }
+
+      if (next == areas.length) {
+        finished = true;
+
+        return false;
+      }
+
+      area = areas[next++];
+      sector = 0;
+      sectorCount = file.getSectorCount(area);
+
+      record.areaId = file.getAreaId(area);
+      file.getAreaCoordinates(area, record.area);
+    }
+
+    file.getSectorCoordinates(area, sector, record.sector);
+    record.sectorId = file.getSectorId(area, sector, sectorCount);
+
+    sector++;
+
+    return true;
+  }
+
+  /**
+   * Retrieve the progress through the areas read, in bytes of their blocks.
+   * Reaches the size of the file once every area of the file has been read.
+   *
+   * @return the progress in bytes.
+   */
+  @Override
+  public long getBytesRead() {
+    if (finished) {
+      return file.getFileSize();
+    }
+
+    if (area < 0) {
+      return bytesBefore;
+    }
+
+    return bytesBefore + (long) (file.getAreaBytes(area) * ((double) sector / sectorCount));
+  }
+
+  @Override
+  public void close() throws IOException {
+    file.close();
+  }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An {@link InputStream} which counts the bytes read through it, used to
+ * report progress while a file is parsed in a single pass.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+class CountingInputStream extends FilterInputStream {
+
+  private long count;
+
+  /**
+   * Creates a {@code CountingInputStream}.
+   *
+   * @param in the stream to count bytes from.
+   */
+  CountingInputStream(InputStream in) {
+    super(in);
+  }
+
+  /**
+   * Retrieve the number of bytes read (or skipped) so far.
+   *
+   * @return the number of bytes read so far.
+   */
+  long getCount() {
+    return count;
+  }
+
+  @Override
+  public int read() throws IOException {
+    int b = super.read();
+
+    if (b != -1) {
+      count++;
+    }
+
+    return b;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    int n = super.read(b, off, len);
+
+    if (n > 0) {
+      count += n;
+    }
+
+    return n;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    long skipped = super.skip(n);
+
+    count += skipped;
+
+    return skipped;
+  }
+
+  @Override
+  public boolean markSupported() {
+    return false;
+  }
+
+}
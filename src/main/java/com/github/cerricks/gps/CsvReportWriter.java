@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+
+/**
+ * A {@link ReportWriter} writing comma separated values.
+ *
+ * <p>
+ * Each row holds the file, area id, area coordinate validity, verdict and the
+ * offending sector ids separated by {@code ;}. An area with several
+ * violations (see {@link GpsValidator#setReportAllViolations(boolean)}) has
+ * one row per violation.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+class CsvReportWriter extends ReportWriter {
+
+  private static final String[] HEADER = {"File", "AreaID", "AreaCoordinatesValid", "Verdict", "OffendingSectorIDs"};
+
+  private final CSVPrinter printer;
+
+  /**
+   * Creates a {@code CsvReportWriter}.
+   *
+   * @param writer the writer of the report file.
+   * @throws IOException if the header cannot be written.
+   */
+  CsvReportWriter(Writer writer) throws IOException {
+    super(writer);
+
+    this.printer = new CSVPrinter(writer, CSVFormat.DEFAULT.withHeader(HEADER));
+  }
+
+  @Override
+  protected void write(AreaResult result) throws IOException {
+    if (result.getViolations().size() <= 1) {
+      write(result, result.getVerdict(), result.getOffendingSectorIds());
+
+      return;
+    }
+
+    for (AreaResult.Violation violation : result.getViolations()) {
+      write(result, violation.getVerdict(), violation.getSectorIds());
+    }
+  }
+
+  /**
+   * Writes a row.
+   *
+   * @param result the result of the area.
+   * @param verdict the verdict of the row.
+   * @param sectorIds the offending sector ids of the row.
+   * @throws IOException if the row cannot be written.
+   */
+  private void write(AreaResult result, AreaResult.Verdict verdict, List<String> sectorIds) throws IOException {
+    printer.printRecord(
+            file == null ? "" : file.getPath(),
+            result.getAreaId(),
+            result.isAreaCoordinatesValid(),
+            verdict,
+            String.join(";", sectorIds));
+  }
+
+  @Override
+  public void close() throws IOException {
+    printer.close();
+  }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.function.LongSupplier;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+/**
+ * A {@link SectorRecordReader} using Commons CSV.
+ *
+ * <p>
+ * This is the general purpose fallback for inputs which cannot be
+ * memory-mapped, such as compressed files.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+class CsvSectorRecordReader implements SectorRecordReader {
+
+  /**
+   * The size of the buffer used to read files.
+   */
+  private static final int READ_BUFFER_SIZE = 1 << 16;
+
+  private final LongSupplier bytesRead;
+  private final Reader reader;
+  private final Iterator<CSVRecord> records;
+
+  /**
+   * Creates a {@code CsvSectorRecordReader}.
+   *
+   * @param file the file to read.
+   * @param charset the charset of the file.
+   * @throws IOException if the file cannot be opened.
+   */
+  CsvSectorRecordReader(File file, Charset charset) throws IOException {
+    this(new CountingInputStream(new BufferedInputStream(new FileInputStream(file), READ_BUFFER_SIZE)), charset);
+  }
+
+  /**
+   * Creates a {@code CsvSectorRecordReader} counting the bytes read from the
+   * given stream.
+   *
+   * @param input the stream to read.
+   * @param charset the charset of the stream.
+   * @throws IOException if the stream cannot be read.
+   */
+  private CsvSectorRecordReader(CountingInputStream input, Charset charset) throws IOException {
+    this(input, charset, input::getCount);
+  }
+
+  /**
+   * Creates a {@code CsvSectorRecordReader} reading the given stream.
+   *
+   * @param input the stream to read, closed with this reader.
+   * @param charset the charset of the stream.
+   * @param bytesRead the number of bytes of the input consumed so far, for
+   * progress.
+   * @throws IOException if the stream cannot be read.
+   */
+  CsvSectorRecordReader(InputStream input, Charset charset, LongSupplier bytesRead) throws IOException {
+    this.bytesRead = bytesRead;
+    this.reader = new InputStreamReader(input, charset);
+
+    try {
+      this.records = CSVParser.parse(reader, CSVFormat.DEFAULT.withFirstRecordAsHeader()).iterator();
+    } catch (IOException | RuntimeException ex) {
+      reader.close();
+
+      throw ex;
+    }
+  }
+
+  @Override
+  public boolean read(SectorRecord record) throws IOException {
+    if (!records.hasNext()) {
+      return false;
+    }
+
+    CSVRecord csvRecord = records.next();
+
+    String areaId = csvRecord.get(SectorRecord.COLUMN_AREA_ID);
+
+    if (!areaId.equals(record.areaId)) {
+      record.areaId = areaId;
+
+      for (int i = 0; i < SectorRecord.COLUMNS_AREA.length; i++) {
+        record.area[i] = Double.valueOf(csvRecord.get(SectorRecord.COLUMNS_AREA[i]));
+      }
+    }
+
+    record.sectorId = csvRecord.get(SectorRecord.COLUMN_SECTOR_ID);
+
+    for (int i = 0; i < SectorRecord.COLUMNS_SECTOR.length; i++) {
+      record.sector[i] = Double.valueOf(csvRecord.get(SectorRecord.COLUMNS_SECTOR[i]));
+    }
+
+    return true;
+  }
+
+  @Override
+  public long getBytesRead() {
+    return bytesRead.getAsLong();
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+}
@@ -0,0 +1,827 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Validates GPS coordinates of areas and sectors from a file.
+ *
+ * <p>
+ * This class has no dependency on JavaFX, so it can be used from both the
+ * desktop application (see {@link GpsValidatorTask}) and the command line (see
+ * {@link GpsValidatorCli}).
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+public class GpsValidator {
+
+  private static final Logger logger = LogManager.getLogger(GpsValidator.class);
+
+  private static final String MESSAGE_INVALID_AREA_COORDINATES = "Error: Invalid Area Coordinates";
+  private static final String MESSAGE_INVALID_SECTORS = "Error: A sector is outside the area or overlaps with another sector";
+  private static final String MESSAGE_VALID_AREA_COORDINATES = "Succes: Area Coordinates Valid";
+  private static final String MESSAGE_VALID_SECTORS = "Success: All sectors within area and clear of overlap";
+  private static final String MESSAGE_UNDETERMINED = "Warning: Area undetermined (timeout), validation exceeded its time budget";
+
+  /**
+   * Progress is reported every 4096 records.
+   */
+  private static final int PROGRESS_INTERVAL_MASK = 0xFFF;
+
+  /**
+   * The number of threads validating areas concurrently.
+   */
+  private static final int VALIDATOR_THREADS = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * The maximum number of areas parsed ahead of the oldest area still being
+   * validated. Bounds the number of sectors held in memory at once.
+   */
+  static final int MAX_PENDING_AREAS = VALIDATOR_THREADS * 4;
+
+  /**
+   * The number of sectors in an area from which the overlap check of the area
+   * is itself split across threads.
+   */
+  private static final int PARALLEL_OVERLAP_THRESHOLD = 50000;
+
+  /**
+   * Sector construction is timed for every 16th row and extrapolated, keeping
+   * the cost of timing off most rows.
+   */
+  private static final int CONSTRUCTION_SAMPLE_MASK = 0xF;
+
+  /**
+   * How often (in sectors) the containment check tests whether validation of
+   * the area should stop.
+   */
+  private static final int STOP_CHECK_MASK = 0xFF;
+
+  private static final long NANOS_PER_MILLI = 1000000;
+
+  /**
+   * Marks the absence of a deadline. {@link System#nanoTime()} values may be
+   * negative, so no deadline cannot be represented by an extreme value.
+   */
+  private static final long NO_DEADLINE = Long.MIN_VALUE;
+
+  private final SweepOverlapDetector overlapDetector = new SweepOverlapDetector();
+  private final ParallelOverlapDetector parallelOverlapDetector = new ParallelOverlapDetector();
+  private final RTreeOverlapDetector allOverlapsDetector = new RTreeOverlapDetector();
+
+  private boolean reportAllViolations;
+  private boolean unsortedInput;
+  private File cacheDirectory;
+  private boolean showMetrics;
+  private ExecutorService executor;
+  private long areaTimeout;
+  private long fileTimeout;
+  private int spillThreshold = SectorStore.DEFAULT_SPILL_THRESHOLD;
+
+  /**
+   * Indicates if every violation in an area is reported rather than only the
+   * first.
+   *
+   * @return {@code true} if every violation is reported, {@code false}
+   * otherwise.
+   */
+  public boolean isReportAllViolations() {
+    return reportAllViolations;
+  }
+
+  /**
+   * Sets whether every sector outside its area and every pair of overlapping
+   * sectors is reported, rather than stopping at the first violation in each
+   * area.
+   *
+   * @param reportAllViolations {@code true} to report every violation.
+   */
+  public void setReportAllViolations(boolean reportAllViolations) {
+    this.reportAllViolations = reportAllViolations;
+  }
+
+  /**
+   * Indicates if the rows of an area may be spread throughout the input.
+   *
+   * @return {@code true} if rows are grouped by area before validating,
+   * {@code false} if the rows of each area are expected to be contiguous.
+   */
+  public boolean isUnsortedInput() {
+    return unsortedInput;
+  }
+
+  /**
+   * Sets whether the rows of an area may be spread throughout the input. If
+   * so, rows are first grouped by area id using an external merge sort with
+   * bounded memory (see {@link SortedSectorRecordReader}) and areas are
+   * validated in order of their ids. Otherwise a new area starts whenever the
+   * area id changes.
+   *
+   * @param unsortedInput {@code true} to group rows by area before
+   * validating.
+   */
+  public void setUnsortedInput(boolean unsortedInput) {
+    this.unsortedInput = unsortedInput;
+  }
+
+  /**
+   * Retrieve the directory of the result cache.
+   *
+   * @return the directory of the result cache, or {@code null} if results are
+   * not cached.
+   */
+  public File getCacheDirectory() {
+    return cacheDirectory;
+  }
+
+  /**
+   * Sets the directory of a persistent cache of area results. When set, a hash
+   * of the rows of each area is computed while parsing and areas whose rows
+   * are unchanged since the previous run of the same file reuse the cached
+   * result instead of being validated again.
+   *
+   * @param cacheDirectory the directory of the result cache, or {@code null}
+   * to not cache results.
+   */
+  public void setCacheDirectory(File cacheDirectory) {
+    this.cacheDirectory = cacheDirectory;
+  }
+
+  /**
+   * Indicates if a summary of the metrics of each run is written to the
+   * listener.
+   *
+   * @return {@code true} if the metrics are written, {@code false} otherwise.
+   */
+  public boolean isShowMetrics() {
+    return showMetrics;
+  }
+
+  /**
+   * Sets whether a summary of the metrics of each run (see
+   * {@link ValidationMetrics}) is written to the listener at the end of the
+   * run. Metrics are always recorded and available over JMX.
+   *
+   * @param showMetrics {@code true} to write the metrics.
+   */
+  public void setShowMetrics(boolean showMetrics) {
+    this.showMetrics = showMetrics;
+  }
+
+  /**
+   * Retrieve the executor areas are validated on.
+   *
+   * @return the shared executor, or {@code null} if each run creates its own
+   * pool of validator threads.
+   */
+  public ExecutorService getExecutor() {
+    return executor;
+  }
+
+  /**
+   * Sets an executor to validate areas on, shared by every run of this and any
+   * other validator it is given to. Validating several files at once on a
+   * shared executor bounds the number of validator threads to that of the
+   * executor, rather than one pool per file. The executor is not shut down by
+   * the validator.
+   *
+   * @param executor the executor to validate areas on, or {@code null} for
+   * each run to create its own pool of validator threads.
+   */
+  public void setExecutor(ExecutorService executor) {
+    this.executor = executor;
+  }
+
+  /**
+   * Retrieve the time budget for validating an area.
+   *
+   * @return the time budget in milliseconds, or {@code 0} if unlimited.
+   */
+  public long getAreaTimeout() {
+    return areaTimeout;
+  }
+
+  /**
+   * Sets the time budget for validating the sectors of a single area, counted
+   * from when a validator thread starts on the area. An area which exceeds it
+   * is reported as {@link AreaResult.Verdict#UNDETERMINED} and validation
+   * moves on, so a single pathological area cannot occupy a validator thread
+   * indefinitely.
+   *
+   * @param areaTimeout the time budget in milliseconds, or {@code 0} for no
+   * limit.
+   */
+  public void setAreaTimeout(long areaTimeout) {
+    if (areaTimeout < 0) {
+      throw new IllegalArgumentException("Timeout must not be negative: " + areaTimeout);
+    }
+
+    this.areaTimeout = areaTimeout;
+  }
+
+  /**
+   * Retrieve the time budget for validating a file.
+   *
+   * @return the time budget in milliseconds, or {@code 0} if unlimited.
+   */
+  public long getFileTimeout() {
+    return fileTimeout;
+  }
+
+  /**
+   * Sets the time budget for validating the areas of a file, counted from the
+   * start of the run. Areas still being validated when it runs out, and every
+   * area parsed after, are reported as {@link AreaResult.Verdict#UNDETERMINED}
+   * without being validated; the rest of the file is still read so that each
+   * area is reported.
+   *
+   * @param fileTimeout the time budget in milliseconds, or {@code 0} for no
+   * limit.
+   */
+  public void setFileTimeout(long fileTimeout) {
+    if (fileTimeout < 0) {
+      throw new IllegalArgumentException("Timeout must not be negative: " + fileTimeout);
+    }
+
+    this.fileTimeout = fileTimeout;
+  }
+
+  /**
+   * Retrieve the number of sectors beyond which an area is held off the heap.
+   *
+   * @return the spill threshold, or {@code 0} if areas are always held on the
+   * heap.
+   */
+  public int getSpillThreshold() {
+    return spillThreshold;
+  }
+
+  /**
+   * Sets the number of sectors beyond which the sectors of an area are moved
+   * off the heap into memory-mapped temporary files (see {@link SectorStore}),
+   * so that areas larger than the heap can be validated. Defaults to
+   * {@link SectorStore#DEFAULT_SPILL_THRESHOLD}.
+   *
+   * @param spillThreshold the spill threshold in sectors, or {@code 0} to
+   * always hold areas on the heap.
+   */
+  public void setSpillThreshold(int spillThreshold) {
+    if (spillThreshold < 0) {
+      throw new IllegalArgumentException("Spill threshold must not be negative: " + spillThreshold);
+    }
+
+    this.spillThreshold = spillThreshold;
+  }
+
+  /**
+   * Validates the given file.
+   *
+   * <p>
+   * The file is parsed in a single pass on the calling thread and each complete
+   * area is handed to a pool of validator threads. Messages are passed to the
+   * listener in file order as each area at the head of the queue completes.
+   * Progress is reported as the number of bytes consumed from the file.
+   *
+   * <p>
+   * Interrupting the calling thread stops parsing within a few thousand rows
+   * and stops validation of the pending areas, which check for interruption
+   * periodically.
+   *
+   * @param file the file to validate.
+   * @param listener the listener to receive output and progress.
+   * @return the outcome of validating the file.
+   * @throws IOException if the file cannot be read.
+   * @throws InterruptedException if interrupted while waiting for validation.
+   * @throws ExecutionException if an area failed to validate.
+   */
+  public ValidationSummary validate(File file, ValidationListener listener) throws IOException, InterruptedException, ExecutionException {
+    listener.fileStarted(file);
+    listener.message("Processing file: " + file.getAbsolutePath() + System.lineSeparator());
+
+    long start = System.nanoTime();
+    long fileDeadline = fileTimeout == 0 ? NO_DEADLINE : start + fileTimeout * NANOS_PER_MILLI;
+
+    ValidationMetrics metrics = new ValidationMetrics(ValidationMetrics.global());
+    String fileName = file.getName();
+
+    String areaId = null;
+    Area area = null;
+    SectorStore sectors = new SectorStore(SectorStore.DEFAULT_CAPACITY, spillThreshold);
+
+    ValidationSummary.Builder summary = new ValidationSummary.Builder();
+
+    ExecutorService executor = this.executor != null ? this.executor : Executors.newFixedThreadPool(VALIDATOR_THREADS, runnable -> {
+      Thread thread = new Thread(runnable, "gps-validator");
+      thread.setDaemon(true);
+
+      return thread;
+    });
+
+    Deque<Future<AreaResult>> pending = new ArrayDeque<>();
+
+    long totalBytes = file.length();
+    long records = 0;
+    long waitNanos = 0;
+    long constructionSampleNanos = 0;
+
+    ResultCache cache = cacheDirectory == null ? null : ResultCache.open(cacheDirectory, file, reportAllViolations);
+    ResultCache.Hasher hasher = new ResultCache.Hasher();
+
+    try (SectorRecordReader reader = openReader(file, listener)) {
+      SectorRecord record = new SectorRecord();
+
+      long waitStart;
+
+      while (reader.read(record)) {
+        if (areaId == null || !areaId.equals(record.areaId)) {
+          if (areaId != null) {
+            waitStart = System.nanoTime();
+
+            pending.add(submitArea(executor, areaId, area, sectors, cache, hasher, fileName, metrics, fileDeadline));
+
+            writeCompleted(pending, MAX_PENDING_AREAS, listener, summary, metrics);
+
+            waitNanos += System.nanoTime() - waitStart;
+
+            // reset for next area
+            area = null;
+            sectors = new SectorStore(SectorStore.DEFAULT_CAPACITY, spillThreshold);
+          }
+
+          areaId = record.areaId;
+
+          if (cache != null) {
+            hasher.reset(record);
+          }
+
+          Coordinates c1 = new Coordinates(record.area[0], record.area[1]);
+          Coordinates c2 = new Coordinates(record.area[2], record.area[3]);
+
+          // check that area coordinates are valid
+          if (c1.getLatitude() != c2.getLatitude()
+                  && c1.getLongitude() != c2.getLongitude()) {
+            area = new Area(areaId, c1, c2);
+          }
+        }
+
+        // process sector, timing a sample of rows
+        if ((records & CONSTRUCTION_SAMPLE_MASK) == 0) {
+          long constructionStart = System.nanoTime();
+
+          sectors.add(record);
+
+          constructionSampleNanos += System.nanoTime() - constructionStart;
+        } else {
+          sectors.add(record);
+        }
+
+        if (cache != null) {
+          hasher.add(record);
+        }
+
+        if ((++records & PROGRESS_INTERVAL_MASK) == 0) {
+          if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException("Interrupted while validating " + file);
+          }
+
+          listener.progress(reader.getBytesRead(), totalBytes);
+        }
+      }
+
+      listener.progress(reader.getBytesRead(), totalBytes);
+
+      waitStart = System.nanoTime();
+
+      long parseNanos = waitStart - start - waitNanos;
+      long constructionNanos = constructionSampleNanos * (CONSTRUCTION_SAMPLE_MASK + 1);
+
+      if (areaId != null) {
+        pending.add(submitArea(executor, areaId, area, sectors, cache, hasher, fileName, metrics, fileDeadline));
+      }
+
+      writeCompleted(pending, 0, listener, summary, metrics);
+
+      waitNanos += System.nanoTime() - waitStart;
+
+      metrics.parsed(Math.max(0, parseNanos - constructionNanos), constructionNanos, waitNanos);
+      metrics.fileValidated(records, reader.getBytesRead(), System.nanoTime() - start);
+
+      if (cache != null) {
+        saveCache(cache, summary.build(), listener);
+      }
+
+      int undetermined = summary.build().getUndeterminedAreaCount();
+
+      if (undetermined > 0) {
+        listener.message(System.lineSeparator() + "Undetermined (timeout): " + undetermined + " areas exceeded the time budget." + System.lineSeparator());
+      }
+
+      if (logger.isDebugEnabled()) {
+        logger.debug("Metrics for " + file + System.lineSeparator() + metrics.getSummary());
+      }
+
+      if (showMetrics) {
+        listener.message(System.lineSeparator() + "Metrics:" + System.lineSeparator() + metrics.getSummary());
+      }
+
+      listener.message(System.lineSeparator() + "Finished processing file." + System.lineSeparator());
+    } finally {
+      if (executor == this.executor) {
+        // leave the shared executor running, only abandon this run's areas
+        pending.forEach(future -> future.cancel(true));
+      } else {
+        executor.shutdownNow();
+      }
+    }
+
+    return summary.build();
+  }
+
+  /**
+   * Opens a reader for the given file, grouping rows by area if the input is
+   * unsorted.
+   *
+   * @param file the file to read.
+   * @param listener the listener to report progress to while grouping rows.
+   * @return the reader.
+   * @throws IOException if the file cannot be read.
+   */
+  private SectorRecordReader openReader(File file, ValidationListener listener) throws IOException {
+    SectorRecordReader reader = SectorRecordReader.open(file, Charset.defaultCharset());
+
+    if (!unsortedInput) {
+      return reader;
+    }
+
+    try (SectorRecordReader source = reader) {
+      long totalBytes = file.length();
+
+      return new SortedSectorRecordReader(source, SortedSectorRecordReader.DEFAULT_MAX_RECORDS_IN_MEMORY,
+              bytesRead -> listener.progress(bytesRead, totalBytes));
+    }
+  }
+
+  /**
+   * Submits an area for validation.
+   *
+   * @param executor the executor to validate the area on.
+   * @param areaId the id of the area.
+   * @param area the area, or {@code null} if the area coordinates are invalid.
+   * @param sectors the sectors of the area, closed once validated.
+   * @param cache the result cache, or {@code null} if results are not cached.
+   * @param hasher the hash of the rows of the area.
+   * @param fileName the name of the file, for metrics.
+   * @param metrics the metrics of the run.
+   * @param fileDeadline the {@link System#nanoTime()} by which the file must
+   * be validated, or {@link #NO_DEADLINE}.
+   * @return the pending result of the area.
+   */
+  private Future<AreaResult> submitArea(ExecutorService executor, String areaId, Area area, SectorStore sectors,
+          ResultCache cache, ResultCache.Hasher hasher, String fileName, ValidationMetrics metrics, long fileDeadline) {
+    if (area == null) {
+      sectors.close();
+
+      // nothing to validate sectors against
+      return CompletableFuture.completedFuture(new AreaResult(areaId, AreaResult.Verdict.INVALID_AREA_COORDINATES));
+    }
+
+    if (cache == null) {
+      return executor.submit(() -> {
+        try (SectorStore closing = sectors) {
+          return validateArea(area, closing, fileName, metrics, fileDeadline);
+        }
+      });
+    }
+
+    long hash1 = hasher.getHash1();
+    long hash2 = hasher.getHash2();
+
+    AreaResult cached = cache.get(areaId, hash1, hash2);
+
+    if (cached != null) {
+      sectors.close();
+      metrics.areaCached();
+
+      return CompletableFuture.completedFuture(cached);
+    }
+
+    return executor.submit(() -> {
+      AreaResult result;
+
+      try (SectorStore closing = sectors) {
+        result = validateArea(area, closing, fileName, metrics, fileDeadline);
+      }
+
+      // an undetermined area is validated again next time
+      if (!result.isUndetermined()) {
+        cache.put(result, hash1, hash2);
+      }
+
+      return result;
+    });
+  }
+
+  /**
+   * Validates the sectors of an area, finding the first or all violations.
+   *
+   * @param area the area to check.
+   * @param sectors the sectors to check.
+   * @param fileName the name of the file, for metrics.
+   * @param metrics the metrics to record stage times to.
+   * @param fileDeadline the {@link System#nanoTime()} by which the file must
+   * be validated, or {@link #NO_DEADLINE}.
+   * @return the result of the area, {@link AreaResult.Verdict#UNDETERMINED}
+   * if validation exceeded its time budget or was interrupted.
+   */
+  private AreaResult validateArea(Area area, List<Sector> sectors, String fileName, ValidationMetrics metrics, long fileDeadline) {
+    BooleanSupplier stop = stopCondition(fileDeadline);
+
+    if (stop.getAsBoolean()) {
+      // budget of the file already spent
+      return new AreaResult(area.getId(), AreaResult.Verdict.UNDETERMINED);
+    }
+
+    return reportAllViolations
+            ? findViolations(area, sectors, fileName, metrics, stop)
+            : validateSectors(area, sectors, fileName, metrics, stop);
+  }
+
+  /**
+   * Creates the condition on which validation of an area stops: the current
+   * (validator) thread is interrupted, or the time budget of the area or the
+   * file runs out. The condition may be checked from other threads.
+   *
+   * @param fileDeadline the {@link System#nanoTime()} by which the file must
+   * be validated, or {@link #NO_DEADLINE}.
+   * @return the condition.
+   */
+  private BooleanSupplier stopCondition(long fileDeadline) {
+    Thread thread = Thread.currentThread();
+
+    long deadline = fileDeadline;
+
+    if (areaTimeout > 0) {
+      long areaDeadline = System.nanoTime() + areaTimeout * NANOS_PER_MILLI;
+
+      deadline = deadline == NO_DEADLINE || areaDeadline - deadline < 0 ? areaDeadline : deadline;
+    }
+
+    if (deadline == NO_DEADLINE) {
+      return thread::isInterrupted;
+    }
+
+    long stopAt = deadline;
+
+    return () -> thread.isInterrupted() || System.nanoTime() - stopAt >= 0;
+  }
+
+  /**
+   * Saves the result cache of a fully validated file. Failing to save is
+   * logged but does not fail validation.
+   *
+   * @param cache the result cache.
+   * @param summary the outcome of validating the file.
+   * @param listener the listener to write the number of reused results to.
+   */
+  private void saveCache(ResultCache cache, ValidationSummary summary, ValidationListener listener) {
+    try {
+      cache.save();
+    } catch (IOException ex) {
+      logger.warn("Failed to save result cache", ex);
+    }
+
+    listener.message(System.lineSeparator() + "Reused cached results for " + cache.getHits() + " of " + summary.getAreaCount() + " areas." + System.lineSeparator());
+  }
+
+  /**
+   * Writes the results of areas at the head of the queue which have finished
+   * validating, in file order. Waits for the oldest area while more than the
+   * given number of areas are pending.
+   *
+   * @param pending the pending results of areas, in file order.
+   * @param maxPending the maximum number of areas left pending on return.
+   * @param listener the listener to write results to.
+   * @param summary the summary to add results to.
+   * @param metrics the metrics to add results to.
+   * @throws InterruptedException if interrupted while waiting.
+   * @throws ExecutionException if an area failed to validate.
+   */
+  private void writeCompleted(Deque<Future<AreaResult>> pending, int maxPending, ValidationListener listener,
+          ValidationSummary.Builder summary, ValidationMetrics metrics) throws InterruptedException, ExecutionException {
+    while (!pending.isEmpty() && (pending.size() > maxPending || pending.peek().isDone())) {
+      AreaResult result = pending.poll().get();
+
+      summary.add(result);
+      metrics.areaCompleted(result);
+
+      listener.areaValidated(result);
+      listener.message(formatResult(result, reportAllViolations));
+    }
+  }
+
+  /**
+   * Formats the result of an area as text.
+   *
+   * @param result the result of the area.
+   * @param detailed {@code true} to list each violation.
+   * @return the result as text.
+   */
+  static String formatResult(AreaResult result, boolean detailed) {
+    StringBuilder text = new StringBuilder();
+    text.append(System.lineSeparator());
+    text.append("Area ID = ").append(result.getAreaId()).append(System.lineSeparator());
+
+    if (!result.isAreaCoordinatesValid()) {
+      return text.append(MESSAGE_INVALID_AREA_COORDINATES).append(System.lineSeparator()).toString();
+    }
+
+    text.append(MESSAGE_VALID_AREA_COORDINATES).append(System.lineSeparator());
+
+    if (result.isUndetermined()) {
+      return text.append(MESSAGE_UNDETERMINED).append(System.lineSeparator()).toString();
+    }
+
+    text.append(result.isValid() ? MESSAGE_VALID_SECTORS : MESSAGE_INVALID_SECTORS).append(System.lineSeparator());
+
+    if (detailed) {
+      for (AreaResult.Violation violation : result.getViolations()) {
+        List<String> ids = violation.getSectorIds();
+
+        if (violation.getVerdict() == AreaResult.Verdict.SECTOR_OUTSIDE_AREA) {
+          text.append("Error: Sector [").append(ids.get(0)).append("] is outside the area");
+        } else {
+          text.append("Error: Sector [").append(ids.get(0)).append("] overlaps Sector [").append(ids.get(1)).append("]");
+        }
+
+        text.append(System.lineSeparator());
+      }
+    }
+
+    return text.toString();
+  }
+
+  /**
+   * Validates that the given sectors are contained within an area and that no
+   * sectors overlap one another.
+   *
+   * <p>
+   * This method is called concurrently for different areas.
+   *
+   * @param area the area to check.
+   * @param sectors the sectors to check.
+   * @param fileName the name of the file, for metrics.
+   * @param metrics the metrics to record stage times to.
+   * @param stop the condition on which to stop validating, checked
+   * periodically.
+   * @return the result of the area, {@link AreaResult.Verdict#UNDETERMINED}
+   * if stopped before a verdict was reached.
+   */
+  AreaResult validateSectors(Area area, List<Sector> sectors, String fileName, ValidationMetrics metrics, BooleanSupplier stop) {
+    long start = System.nanoTime();
+
+    // check that all sectors are fully contained within the area - STOP if not
+    for (int i = 0; i < sectors.size(); i++) {
+      Sector sector = sectors.get(i);
+
+      if ((i & STOP_CHECK_MASK) == 0 && stop.getAsBoolean()) {
+        metrics.areaValidated(fileName, area.getId(), sectors.size(), System.nanoTime() - start, 0);
+
+        return new AreaResult(area.getId(), AreaResult.Verdict.UNDETERMINED);
+      }
+
+      if (!area.contains(sector)) {
+        if (logger.isDebugEnabled()) {
+          logger.debug("Area [" + area.getId() + "] does not fully contain Sector [" + sector.getId() + "]");
+        }
+
+        metrics.areaValidated(fileName, area.getId(), sectors.size(), System.nanoTime() - start, 0);
+
+        return new AreaResult(area.getId(), AreaResult.Verdict.SECTOR_OUTSIDE_AREA, sector.getId());
+      }
+    }
+
+    long contained = System.nanoTime();
+
+    int[] overlap;
+
+    try {
+      // check if any of the sectors overlaps another (splitting very large areas across threads)
+      overlap = sectors.size() >= PARALLEL_OVERLAP_THRESHOLD
+              ? parallelOverlapDetector.findOverlap(sectors, stop)
+              : overlapDetector.findOverlap(sectors, stop);
+    } catch (CancellationException ex) {
+      metrics.areaValidated(fileName, area.getId(), sectors.size(), contained - start, System.nanoTime() - contained);
+
+      if (logger.isDebugEnabled()) {
+        logger.debug("Stopped validating Area [" + area.getId() + "] before a verdict was reached");
+      }
+
+      return new AreaResult(area.getId(), AreaResult.Verdict.UNDETERMINED);
+    }
+
+    metrics.areaValidated(fileName, area.getId(), sectors.size(), contained - start, System.nanoTime() - contained);
+
+    if (overlap != null) {
+      if (logger.isDebugEnabled()) {
+        logger.debug("Sector [" + sectors.get(overlap[0]).getId() + "] overlaps Sector [" + sectors.get(overlap[1]).getId() + "] in Area [" + area.getId() + "]");
+      }
+
+      return new AreaResult(area.getId(), AreaResult.Verdict.SECTORS_OVERLAP, sectors.get(overlap[0]).getId(), sectors.get(overlap[1]).getId());
+    }
+
+    return new AreaResult(area.getId(), AreaResult.Verdict.VALID);
+  }
+
+  /**
+   * Finds every sector not contained within an area and every pair of
+   * overlapping sectors.
+   *
+   * <p>
+   * This method is called concurrently for different areas.
+   *
+   * @param area the area to check.
+   * @param sectors the sectors to check.
+   * @param fileName the name of the file, for metrics.
+   * @param metrics the metrics to record stage times to.
+   * @param stop the condition on which to stop validating, checked
+   * periodically.
+   * @return the result of the area, listing every violation, or
+   * {@link AreaResult.Verdict#UNDETERMINED} if stopped before all violations
+   * were found.
+   */
+  AreaResult findViolations(Area area, List<Sector> sectors, String fileName, ValidationMetrics metrics, BooleanSupplier stop) {
+    long start = System.nanoTime();
+
+    List<AreaResult.Violation> violations = new ArrayList<>();
+
+    for (int i = 0; i < sectors.size(); i++) {
+      Sector sector = sectors.get(i);
+
+      if ((i & STOP_CHECK_MASK) == 0 && stop.getAsBoolean()) {
+        metrics.areaValidated(fileName, area.getId(), sectors.size(), System.nanoTime() - start, 0);
+
+        return new AreaResult(area.getId(), AreaResult.Verdict.UNDETERMINED);
+      }
+
+      if (!area.contains(sector)) {
+        violations.add(new AreaResult.Violation(AreaResult.Verdict.SECTOR_OUTSIDE_AREA, sector.getId()));
+      }
+    }
+
+    long contained = System.nanoTime();
+
+    List<int[]> overlaps;
+
+    try {
+      overlaps = allOverlapsDetector.findAllOverlaps(sectors, stop);
+    } catch (CancellationException ex) {
+      metrics.areaValidated(fileName, area.getId(), sectors.size(), contained - start, System.nanoTime() - contained);
+
+      // some queries were skipped, the violations found are incomplete
+      return new AreaResult(area.getId(), AreaResult.Verdict.UNDETERMINED);
+    }
+
+    metrics.areaValidated(fileName, area.getId(), sectors.size(), contained - start, System.nanoTime() - contained);
+
+    for (int[] overlap : overlaps) {
+      violations.add(new AreaResult.Violation(AreaResult.Verdict.SECTORS_OVERLAP, sectors.get(overlap[0]).getId(), sectors.get(overlap[1]).getId()));
+    }
+
+    if (logger.isDebugEnabled() && !violations.isEmpty()) {
+      logger.debug("Found " + violations.size() + " violations in Area [" + area.getId() + "]");
+    }
+
+    return new AreaResult(area.getId(), violations);
+  }
+
+}
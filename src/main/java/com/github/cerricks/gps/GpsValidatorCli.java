@@ -0,0 +1,377 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Command line entry point for validating files without starting JavaFX.
+ *
+ * <p>
+ * Usage:
+ *
+ * <pre>
+ * java -cp gps-validator.jar com.github.cerricks.gps.GpsValidatorCli [-a] [-u] [-m] [-c | --cache-dir dir] [--area-timeout s] [--file-timeout s] [--spill-threshold n] [-o output] [-r report] file...
+ * java -cp gps-validator.jar com.github.cerricks.gps.GpsValidatorCli --convert output file
+ * </pre>
+ *
+ * <p>
+ * Results are written to standard output, or to the given output file. With
+ * {@code -r} the result of each area is also streamed to a report file, as
+ * JSON if the report file name ends in {@code .json} and as CSV otherwise.
+ * With {@code -a} every sector outside its area and every pair of overlapping
+ * sectors is listed, rather than only the first violation in each area. With
+ * {@code -u} the rows of an area need not be contiguous in the input. With
+ * {@code -c} (or {@code --cache-dir}) results of unchanged areas are reused
+ * from a persistent cache. With {@code -m} a summary of per-stage timings and
+ * throughput (see {@link ValidationMetrics}) is written after each file. With
+ * {@code --area-timeout} and {@code --file-timeout} (in seconds) areas whose
+ * validation exceeds the time budget are reported as undetermined. Areas with
+ * more than {@code --spill-threshold} sectors are held off the heap in
+ * memory-mapped temporary files ({@code 0} to never spill). With
+ * {@code --convert} the file is converted to a compact binary format (see
+ * {@link BinarySectorFile}) instead of being validated; binary files are
+ * recognized and validated without parsing. The exit
+ * code is {@link #EXIT_VALID} if all areas in all files are valid,
+ * {@link #EXIT_INVALID} if any area is invalid, {@link #EXIT_UNDETERMINED} if
+ * no area is invalid but some are undetermined and {@link #EXIT_ERROR} if any
+ * file could not be processed or the arguments are not valid (e.g. an
+ * unknown option, in which case nothing is processed).
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+public class GpsValidatorCli {
+
+  private static final Logger logger = LogManager.getLogger(GpsValidatorCli.class);
+
+  /**
+   * Exit code when all areas are valid.
+   */
+  public static final int EXIT_VALID = 0;
+
+  /**
+   * Exit code when at least one area is invalid.
+   */
+  public static final int EXIT_INVALID = 1;
+
+  /**
+   * Exit code when a file could not be processed or the arguments are invalid.
+   */
+  public static final int EXIT_ERROR = 2;
+
+  /**
+   * Exit code when no area is invalid but at least one area could not be
+   * validated within its time budget.
+   */
+  public static final int EXIT_UNDETERMINED = 3;
+
+  private static final String USAGE = "Usage: GpsValidatorCli [-a] [-u] [-m] [-c | --cache-dir dir] [--area-timeout s] [--file-timeout s] [--spill-threshold n] [-o output] [-r report] file..."
+          + System.lineSeparator() + "       GpsValidatorCli --convert output file";
+
+  public static void main(String[] args) {
+    System.exit(run(args, System.out, System.err));
+  }
+
+  /**
+   * Validates the files given on the command line.
+   *
+   * @param args the command line arguments.
+   * @param out the stream to write results to when no output file is given.
+   * @param err the stream to write errors to.
+   * @return the exit code.
+   */
+  static int run(String[] args, PrintStream out, PrintStream err) {
+    File output = null;
+    File report = null;
+    File convert = null;
+    GpsValidator validator = new GpsValidator();
+    List<File> files = new ArrayList<>();
+
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "-o":
+        case "--output":
+          if (++i >= args.length) {
+            err.println(USAGE);
+
+            return EXIT_ERROR;
+          }
+
+          output = new File(args[i]);
+          break;
+        case "-r":
+        case "--report":
+          if (++i >= args.length) {
+            err.println(USAGE);
+
+            return EXIT_ERROR;
+          }
+
+          report = new File(args[i]);
+          break;
+        case "-a":
+        case "--all-violations":
+          validator.setReportAllViolations(true);
+          break;
+        case "-u":
+        case "--unsorted":
+          validator.setUnsortedInput(true);
+          break;
+        case "-m":
+        case "--metrics":
+          validator.setShowMetrics(true);
+          break;
+        case "-c":
+        case "--cache":
+          validator.setCacheDirectory(ResultCache.defaultDirectory());
+          break;
+        case "--cache-dir":
+          if (++i >= args.length) {
+            err.println(USAGE);
+
+            return EXIT_ERROR;
+          }
+
+          validator.setCacheDirectory(new File(args[i]));
+          break;
+        case "--area-timeout":
+        case "--file-timeout":
+          String option = args[i];
+
+          long timeout = ++i < args.length ? parseTimeout(args[i]) : -1;
+
+          if (timeout < 0) {
+            err.println(USAGE);
+
+            return EXIT_ERROR;
+          }
+
+          if (option.equals("--area-timeout")) {
+            validator.setAreaTimeout(timeout);
+          } else {
+            validator.setFileTimeout(timeout);
+          }
+          break;
+        case "--convert":
+          if (++i >= args.length) {
+            err.println(USAGE);
+
+            return EXIT_ERROR;
+          }
+
+          convert = new File(args[i]);
+          break;
+        case "--spill-threshold":
+          int spillThreshold = ++i < args.length ? parseSpillThreshold(args[i]) : -1;
+
+          if (spillThreshold < 0) {
+            err.println(USAGE);
+
+            return EXIT_ERROR;
+          }
+
+          validator.setSpillThreshold(spillThreshold);
+          break;
+        case "-h":
+        case "--help":
+          out.println(USAGE);
+
+          return EXIT_VALID;
+        default:
+          if (args[i].startsWith("-")) {
+            err.println("Unknown option: " + args[i]);
+            err.println(USAGE);
+
+            return EXIT_ERROR;
+          }
+
+          files.add(new File(args[i]));
+      }
+    }
+
+    if (files.isEmpty() || (convert != null && files.size() != 1)) {
+      err.println(USAGE);
+
+      return EXIT_ERROR;
+    }
+
+    if (convert != null) {
+      return convert(files.get(0), convert, out, err);
+    }
+
+    if (report == null) {
+      return validate(validator, files, output, null, out, err);
+    }
+
+    try (ReportWriter reportWriter = ReportWriter.open(report)) {
+      return validate(validator, files, output, reportWriter, out, err);
+    } catch (IOException | UncheckedIOException ex) {
+      err.println("Cannot write to " + report + ": " + ex.getMessage());
+
+      return EXIT_ERROR;
+    }
+  }
+
+  /**
+   * Converts a file to the binary format.
+   *
+   * @param input the file to convert.
+   * @param output the binary file to write.
+   * @param out the stream to write the outcome to.
+   * @param err the stream to write errors to.
+   * @return the exit code.
+   */
+  private static int convert(File input, File output, PrintStream out, PrintStream err) {
+    try {
+      long records = BinarySectorFileWriter.convert(input, Charset.defaultCharset(), output);
+
+      out.println("Converted " + records + " rows of " + input + " to " + output);
+
+      return EXIT_VALID;
+    } catch (IOException | RuntimeException ex) {
+      logger.error("Failed to convert file", ex);
+
+      err.println("Failed to convert file " + input + ": " + ex);
+
+      return EXIT_ERROR;
+    }
+  }
+
+  /**
+   * Parses a time budget given in seconds.
+   *
+   * @param seconds the time budget in (possibly fractional) seconds.
+   * @return the time budget in milliseconds, or {@code -1} if invalid.
+   */
+  private static long parseTimeout(String seconds) {
+    try {
+      double value = Double.parseDouble(seconds);
+
+      return value > 0 && value < Long.MAX_VALUE / 1000000 ? Math.max(1, Math.round(value * 1000)) : -1;
+    } catch (NumberFormatException ex) {
+      return -1;
+    }
+  }
+
+  /**
+   * Parses a spill threshold given in sectors.
+   *
+   * @param sectors the spill threshold in sectors.
+   * @return the spill threshold, or {@code -1} if invalid.
+   */
+  private static int parseSpillThreshold(String sectors) {
+    try {
+      return Math.max(-1, Integer.parseInt(sectors));
+    } catch (NumberFormatException ex) {
+      return -1;
+    }
+  }
+
+  /**
+   * Validates the given files, writing results to the output file if given.
+   *
+   * @param validator the validator to validate the files with.
+   * @param files the files to validate.
+   * @param output the output file, or {@code null} for the standard output.
+   * @param report the report to stream area results to, or {@code null}.
+   * @param out the stream to write results to when no output file is given.
+   * @param err the stream to write errors to.
+   * @return the exit code.
+   */
+  private static int validate(GpsValidator validator, List<File> files, File output, ReportWriter report, PrintStream out, PrintStream err) {
+    if (output == null) {
+      return validate(validator, files, report, out, err);
+    }
+
+    try (PrintStream outputStream = new PrintStream(new FileOutputStream(output), false, "UTF-8")) {
+      return validate(validator, files, report, outputStream, err);
+    } catch (FileNotFoundException | UnsupportedEncodingException ex) {
+      err.println("Cannot write to " + output + ": " + ex.getMessage());
+
+      return EXIT_ERROR;
+    }
+  }
+
+  /**
+   * Validates the given files one after another.
+   *
+   * @param validator the validator to validate the files with.
+   * @param files the files to validate.
+   * @param report the report to stream area results to, or {@code null}.
+   * @param out the stream to write results to.
+   * @param err the stream to write errors to.
+   * @return the exit code.
+   */
+  private static int validate(GpsValidator validator, List<File> files, ReportWriter report, PrintStream out, PrintStream err) {
+    ValidationListener listener = new ValidationListener() {
+      @Override
+      public void fileStarted(File file) {
+        if (report != null) {
+          report.fileStarted(file);
+        }
+      }
+
+      @Override
+      public void message(String message) {
+        out.print(message);
+      }
+
+      @Override
+      public void areaValidated(AreaResult result) {
+        if (report != null) {
+          report.areaValidated(result);
+        }
+      }
+    };
+
+    int exitCode = EXIT_VALID;
+
+    for (File file : files) {
+      try {
+        ValidationSummary summary = validator.validate(file, listener);
+
+        out.flush();
+
+        if (summary.getInvalidAreaCount() > 0 && exitCode != EXIT_ERROR) {
+          exitCode = EXIT_INVALID;
+        } else if (summary.getUndeterminedAreaCount() > 0 && exitCode == EXIT_VALID) {
+          exitCode = EXIT_UNDETERMINED;
+        }
+      } catch (Exception ex) {
+        logger.error("Failed to process file", ex);
+
+        err.println("Failed to process file " + file + ": " + ex);
+
+        exitCode = EXIT_ERROR;
+      }
+    }
+
+    return exitCode;
+  }
+
+}
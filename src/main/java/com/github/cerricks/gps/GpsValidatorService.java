@@ -16,9 +16,9 @@
 package com.github.cerricks.gps;
 
 import java.io.File;
+import java.util.concurrent.ExecutorService;
 import javafx.concurrent.Service;
 import javafx.concurrent.Task;
-import javafx.scene.control.TextArea;
 
 /**
  * A {@link Service} for validating GPS coordinates in a file.
@@ -29,7 +29,15 @@ import javafx.scene.control.TextArea;
 public class GpsValidatorService extends Service<Void> {
 
   private File file;
-  private TextArea textArea;
+  private OutputBuffer output;
+  private File report;
+  private boolean reportAllViolations;
+  private boolean unsortedInput;
+  private File cacheDirectory;
+  private boolean showMetrics;
+  private ExecutorService validatorExecutor;
+  private long areaTimeout;
+  private long fileTimeout;
 
   public GpsValidatorService() {
   }
@@ -44,17 +52,114 @@ public class GpsValidatorService extends Service<Void> {
   }
 
   /**
-   * Sets the text area to output results.
+   * Sets the buffer to output results to.
    *
-   * @param textArea the text area to output results.
+   * @param output the buffer to output results to.
    */
-  public void setTextArea(TextArea textArea) {
-    this.textArea = textArea;
+  public void setOutput(OutputBuffer output) {
+    this.output = output;
+  }
+
+  /**
+   * Sets the report file to stream the result of each area to.
+   *
+   * @param report the report file, or {@code null} for no report.
+   * @since 1.1
+   */
+  public void setReport(File report) {
+    this.report = report;
+  }
+
+  /**
+   * Sets whether every violation in an area is reported rather than only the
+   * first.
+   *
+   * @param reportAllViolations {@code true} to report every violation.
+   * @since 1.1
+   */
+  public void setReportAllViolations(boolean reportAllViolations) {
+    this.reportAllViolations = reportAllViolations;
+  }
+
+  /**
+   * Sets whether the rows of an area may be spread throughout the file.
+   *
+   * @param unsortedInput {@code true} to group rows by area before
+   * validating.
+   * @since 1.1
+   */
+  public void setUnsortedInput(boolean unsortedInput) {
+    this.unsortedInput = unsortedInput;
+  }
+
+  /**
+   * Sets the directory of the persistent result cache.
+   *
+   * @param cacheDirectory the directory of the result cache, or {@code null}
+   * to not cache results.
+   * @since 1.1
+   */
+  public void setCacheDirectory(File cacheDirectory) {
+    this.cacheDirectory = cacheDirectory;
+  }
+
+  /**
+   * Sets whether a summary of the metrics of the run is written to the output.
+   *
+   * @param showMetrics {@code true} to write the metrics.
+   * @since 1.1
+   */
+  public void setShowMetrics(boolean showMetrics) {
+    this.showMetrics = showMetrics;
+  }
+
+  /**
+   * Sets an executor to validate areas on, shared with other services. The
+   * task itself runs on the executor of this service (see
+   * {@link #setExecutor(java.util.concurrent.Executor)}).
+   *
+   * @param validatorExecutor the executor to validate areas on, or
+   * {@code null} for each task to create its own pool of validator threads.
+   * @since 1.1
+   */
+  public void setValidatorExecutor(ExecutorService validatorExecutor) {
+    this.validatorExecutor = validatorExecutor;
+  }
+
+  /**
+   * Sets the time budget for validating a single area.
+   *
+   * @param areaTimeout the time budget in milliseconds, or {@code 0} for no
+   * limit.
+   * @since 1.1
+   */
+  public void setAreaTimeout(long areaTimeout) {
+    this.areaTimeout = areaTimeout;
+  }
+
+  /**
+   * Sets the time budget for validating the file.
+   *
+   * @param fileTimeout the time budget in milliseconds, or {@code 0} for no
+   * limit.
+   * @since 1.1
+   */
+  public void setFileTimeout(long fileTimeout) {
+    this.fileTimeout = fileTimeout;
   }
 
   @Override
   protected Task<Void> createTask() {
-    return new GpsValidatorTask(file, textArea);
+    GpsValidatorTask task = new GpsValidatorTask(file, output, report);
+    task.setReportAllViolations(reportAllViolations);
+    task.setUnsortedInput(unsortedInput);
+    task.setCacheDirectory(cacheDirectory);
+    task.setShowMetrics(showMetrics);
+    task.setValidatorExecutor(validatorExecutor);
+    task.setAreaTimeout(areaTimeout);
+    task.setFileTimeout(fileTimeout);
+
+    return task;
   }
 
 }
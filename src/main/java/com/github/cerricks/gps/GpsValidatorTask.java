@@ -15,24 +15,21 @@
  */
 package com.github.cerricks.gps;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import javafx.application.Platform;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ExecutorService;
 import javafx.concurrent.Task;
-import javafx.scene.control.TextArea;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVParser;
-import org.apache.commons.csv.CSVRecord;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 /**
  * A {@link Task} for validating GPS coordinates from a file.
  *
+ * <p>
+ * Validation is performed by a {@link GpsValidator}; this task writes its
+ * output to an {@link OutputBuffer} and reports its progress.
+ *
  * @author Clifford Errickson
  * @since 1.0
  */
@@ -40,170 +37,168 @@ public class GpsValidatorTask extends Task<Void> {
 
   private static final Logger logger = LogManager.getLogger(GpsValidatorTask.class);
 
-  private static final String MESSAGE_INVALID_AREA_COORDINATES = "Error: Invalid Area Coordinates";
-  private static final String MESSAGE_INVALID_SECTORS = "Error: A sector is outside the area or overlaps with another sector";
-  private static final String MESSAGE_VALID_AREA_COORDINATES = "Succes: Area Coordinates Valid";
-  private static final String MESSAGE_VALID_SECTORS = "Success: All sectors within area and clear of overlap";
-
   private final File file;
-  private final TextArea textArea;
-  private final int totalLines;
+  private final OutputBuffer output;
+  private final File report;
+  private final GpsValidator validator = new GpsValidator();
 
   /**
    * Creates a GpsValidatorTask.
    *
    * @param file the file to process.
-   * @param textArea the field to write output to.
+   * @param output the buffer to write output to.
    */
-  public GpsValidatorTask(File file, TextArea textArea) {
-    this.file = file;
-    this.textArea = textArea;
-    this.totalLines = countLines(file);
+  public GpsValidatorTask(File file, OutputBuffer output) {
+    this(file, output, null);
   }
 
-  @Override
-  protected Void call() throws Exception {
-    writeMessage("Processing file: " + file.getAbsolutePath() + System.lineSeparator());
-
-    String areaId = null;
-    Area area = null;
-    List<Sector> sectors = new ArrayList();
-
-    try (FileReader fileReader = new FileReader(file)) {
-      CSVParser parser = CSVParser.parse(fileReader, CSVFormat.DEFAULT.withFirstRecordAsHeader());
+  /**
+   * Creates a GpsValidatorTask that also streams the result of each area to a
+   * report file.
+   *
+   * @param file the file to process.
+   * @param output the buffer to write output to.
+   * @param report the report file to write, or {@code null} for no report.
+   * @since 1.1
+   */
+  public GpsValidatorTask(File file, OutputBuffer output, File report) {
+    this.file = file;
+    this.output = output;
+    this.report = report;
+  }
 
-      for (CSVRecord record : parser) {
-        if (areaId == null || !areaId.equals(record.get("AreaID"))) {
-          if (area != null) {
-            validateSectors(area, sectors);
+  /**
+   * Sets whether every violation in an area is reported rather than only the
+   * first.
+   *
+   * @param reportAllViolations {@code true} to report every violation.
+   * @since 1.1
+   */
+  public void setReportAllViolations(boolean reportAllViolations) {
+    validator.setReportAllViolations(reportAllViolations);
+  }
 
-            // reset for next area
-            area = null;
-            sectors.clear();
-          }
+  /**
+   * Sets whether the rows of an area may be spread throughout the file.
+   *
+   * @param unsortedInput {@code true} to group rows by area before
+   * validating.
+   * @since 1.1
+   */
+  public void setUnsortedInput(boolean unsortedInput) {
+    validator.setUnsortedInput(unsortedInput);
+  }
 
-          writeMessage(System.lineSeparator());
+  /**
+   * Sets the directory of the persistent result cache.
+   *
+   * @param cacheDirectory the directory of the result cache, or {@code null}
+   * to not cache results.
+   * @since 1.1
+   */
+  public void setCacheDirectory(File cacheDirectory) {
+    validator.setCacheDirectory(cacheDirectory);
+  }
 
-          areaId = record.get("AreaID");
+  /**
+   * Sets whether a summary of the metrics of the run is written to the output.
+   *
+   * @param showMetrics {@code true} to write the metrics.
+   * @since 1.1
+   */
+  public void setShowMetrics(boolean showMetrics) {
+    validator.setShowMetrics(showMetrics);
+  }
 
-          writeMessage("Area ID = " + areaId + System.lineSeparator());
+  /**
+   * Sets an executor to validate areas on, shared with other tasks.
+   *
+   * @param executor the executor to validate areas on, or {@code null} for the
+   * task to create its own pool of validator threads.
+   * @since 1.1
+   */
+  public void setValidatorExecutor(ExecutorService executor) {
+    validator.setExecutor(executor);
+  }
 
-          Coordinates c1 = new Coordinates(Double.valueOf(record.get("ALat1")), Double.valueOf(record.get("ALon1")));
-          Coordinates c2 = new Coordinates(Double.valueOf(record.get("ALat2")), Double.valueOf(record.get("ALon2")));
+  /**
+   * Sets the time budget for validating a single area.
+   *
+   * @param areaTimeout the time budget in milliseconds, or {@code 0} for no
+   * limit.
+   * @since 1.1
+   */
+  public void setAreaTimeout(long areaTimeout) {
+    validator.setAreaTimeout(areaTimeout);
+  }
 
-          // check that area coordinates are valid
-          if (c1.getLatitude() == c2.getLatitude()
-                  || c1.getLongitude() == c2.getLongitude()) {
-            writeMessage(MESSAGE_INVALID_AREA_COORDINATES + System.lineSeparator());
-          } else {
-            writeMessage(MESSAGE_VALID_AREA_COORDINATES + System.lineSeparator());
+  /**
+   * Sets the time budget for validating the file.
+   *
+   * @param fileTimeout the time budget in milliseconds, or {@code 0} for no
+   * limit.
+   * @since 1.1
+   */
+  public void setFileTimeout(long fileTimeout) {
+    validator.setFileTimeout(fileTimeout);
+  }
 
-            area = new Area(areaId, c1, c2);
+  @Override
+  protected Void call() throws Exception {
+    try (ReportWriter reportWriter = report == null ? null : ReportWriter.open(report)) {
+      validator.validate(file, new ValidationListener() {
+        @Override
+        public void fileStarted(File file) {
+          if (reportWriter != null) {
+            reportWriter.fileStarted(file);
           }
         }
 
-        // process sector
-        sectors.add(new Sector(
-                record.get("SectorID"),
-                new Coordinates(Double.valueOf(record.get("c1")), Double.valueOf(record.get("d1"))),
-                new Coordinates(Double.valueOf(record.get("c2")), Double.valueOf(record.get("d2"))),
-                new Coordinates(Double.valueOf(record.get("c3")), Double.valueOf(record.get("d3"))),
-                new Coordinates(Double.valueOf(record.get("c4")), Double.valueOf(record.get("d4")))
-        ));
-
-        updateProgress(parser.getCurrentLineNumber(), totalLines);
-      }
+        @Override
+        public void message(String message) {
+          writeMessage(message);
+        }
 
-      validateSectors(area, sectors);
+        @Override
+        public void areaValidated(AreaResult result) {
+          if (reportWriter != null) {
+            reportWriter.areaValidated(result);
+          }
+        }
 
-      writeMessage(System.lineSeparator() + "Finished processing file.");
+        @Override
+        public void progress(long bytesRead, long totalBytes) {
+          updateProgress(bytesRead, totalBytes);
+        }
+      });
 
       // update progress to 100% complete
       updateProgress(1, 1);
-    } catch (IOException ex) {
-      logger.error("Failed to process file", ex);
-
-      writeMessage("Oops. Something went wrong. Check log for details.");
-    }
-
-    return null;
-  }
-
-  /**
-   * Validates that the given sectors are contained within an area and that no
-   * sectors overlap one another.
-   *
-   * @param area the area to check.
-   * @param sectors the sectors to check.
-   */
-  private void validateSectors(Area area, List<Sector> sectors) {
-    // check that all sectors are fully contained within the area - STOP if not
-    for (Sector sector : sectors) {
-      if (!area.contains(sector)) {
-        if (logger.isDebugEnabled()) {
-          logger.debug("Area [" + area.getId() + "] does not fully contain Sector [" + sector.getId() + "]");
-        }
-
-        writeMessage(MESSAGE_INVALID_SECTORS + System.lineSeparator());
 
-        return;
+      if (reportWriter != null) {
+        writeMessage("Report written to: " + report.getAbsolutePath() + System.lineSeparator());
+      }
+    } catch (IOException | UncheckedIOException ex) {
+      if (isCancelled()) {
+        // reading was interrupted by cancel()
+        return null;
       }
-    }
-
-    // check if any of the sectors overlaps another
-    Sector s1, s2;
-    for (int i = 0; i < sectors.size(); i++) {
-      s1 = sectors.get(i);
-
-      for (int j = i + 1; j < sectors.size(); j++) {
-        s2 = sectors.get(j);
-
-        if (s1.overlaps(s2)) {
-          if (logger.isDebugEnabled()) {
-            logger.debug("Sector [" + s1.getId() + "] overlaps Sector [" + s2.getId() + "] in Area [" + area.getId() + "]");
-          }
 
-          writeMessage(MESSAGE_INVALID_SECTORS + System.lineSeparator());
+      logger.error("Failed to process file", ex);
 
-          return;
-        }
-      }
+      writeMessage("Oops. Something went wrong. Check log for details." + System.lineSeparator());
     }
 
-    writeMessage(MESSAGE_VALID_SECTORS + System.lineSeparator());
+    return null;
   }
 
   /**
-   * Writes a message to the output text area field.
+   * Writes a message to the output buffer.
    *
    * @param message the message to write.
    */
   private void writeMessage(String message) {
-    if (Platform.isFxApplicationThread()) {
-      textArea.appendText(message);
-    } else {
-      Platform.runLater(() -> textArea.appendText(message));
-    }
-  }
-
-  /**
-   * Count the number of lines in the given file.
-   *
-   * @param file the file.
-   * @return the number of lines in the given file.
-   */
-  private int countLines(File file) {
-    int lineCount = 0;
-
-    try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-      while (reader.readLine() != null) {
-        lineCount++;
-      }
-    } catch (IOException ex) {
-      logger.error("Failed to count lines in file", ex);
-    }
-
-    return lineCount;
+    output.write(message);
   }
 
 }
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * An {@link InputStream} of the decompressed content of a gzip file, which is
+ * decompressed on a separate thread while the content is parsed.
+ *
+ * <p>
+ * The decompressing thread reads the file through large buffers and hands
+ * decompressed chunks to the reading thread through a small bounded queue, so
+ * decompression and parsing overlap on two cores while memory stays bounded to
+ * a few chunks. Each chunk carries the number of compressed bytes consumed to
+ * produce it, so that progress can be reported in bytes of the file.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+class GzipPipeInputStream extends InputStream {
+
+  /**
+   * The size of the buffers used to read and decompress the file.
+   */
+  private static final int READ_BUFFER_SIZE = 1 << 16;
+
+  /**
+   * The size of a chunk of decompressed content.
+   */
+  private static final int CHUNK_SIZE = 1 << 20;
+
+  /**
+   * The number of decompressed chunks the decompressing thread may be ahead.
+   */
+  private static final int QUEUED_CHUNKS = 4;
+
+  /**
+   * Marks the end of the decompressed content.
+   */
+  private static final Chunk END = new Chunk(new byte[0], 0, 0);
+
+  private final BlockingQueue<Chunk> chunks = new ArrayBlockingQueue<>(QUEUED_CHUNKS);
+  private final Thread decompressor;
+
+  private Chunk chunk;
+  private int position;
+  private long compressedBytesRead;
+  private boolean closed;
+
+  /**
+   * Creates a {@code GzipPipeInputStream} and starts decompressing the file.
+   *
+   * @param file the gzip file to read.
+   * @throws IOException if the file cannot be opened.
+   */
+  GzipPipeInputStream(File file) throws IOException {
+    CountingInputStream compressed = new CountingInputStream(new BufferedInputStream(new FileInputStream(file), READ_BUFFER_SIZE));
+
+    this.decompressor = new Thread(() -> decompress(compressed), "gps-gunzip");
+    this.decompressor.setDaemon(true);
+    this.decompressor.start();
+  }
+
+  /**
+   * Decompresses the file into chunks until the end of the file, a failure or
+   * the stream being closed. Unless closed, the last chunk queued is always
+   * either the end or a failure, whatever is thrown.
+   *
+   * @param compressed the compressed content of the file.
+   */
+  private void decompress(CountingInputStream compressed) {
+    try (InputStream file = compressed; InputStream in = new GZIPInputStream(file, READ_BUFFER_SIZE)) {
+      while (true) {
+        byte[] buffer = new byte[CHUNK_SIZE];
+        int length = 0;
+
+        while (length < buffer.length) {
+          int n = in.read(buffer, length, buffer.length - length);
+
+          if (n < 0) {
+            break;
+          }
+
+          length += n;
+        }
+
+        if (length > 0) {
+          chunks.put(new Chunk(buffer, length, compressed.getCount()));
+        }
+
+        if (length < buffer.length) {
+          chunks.put(END);
+
+          return;
+        }
+      }
+    } catch (InterruptedException ex) {
+      // closed before the end of the file
+    } catch (IOException ex) {
+      fail(ex);
+    } catch (RuntimeException | Error ex) {
+      // the reader must never be left waiting for a chunk that is not coming
+      fail(new IOException("Failed to decompress", ex));
+    }
+  }
+
+  /**
+   * Queues a failure to decompress, ending the content.
+   *
+   * @param failure the failure, thrown to the reader.
+   */
+  private void fail(IOException failure) {
+    try {
+      chunks.put(new Chunk(failure));
+    } catch (InterruptedException interrupted) {
+      // closed, nobody is waiting for the failure
+    }
+  }
+
+  /**
+   * Retrieve the number of bytes of the compressed file consumed to produce the
+   * content read so far.
+   *
+   * @return the number of compressed bytes read.
+   */
+  long getCompressedBytesRead() {
+    return compressedBytesRead;
+  }
+
+  /**
+   * Ensures the current chunk has content left, waiting for the next chunk if
+   * needed.
+   *
+   * @return {@code false} at the end of the content, {@code true} otherwise.
+   * @throws IOException if the file cannot be decompressed or the wait is
+   * interrupted.
+   */
+  private boolean fill() throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+
+    while (chunk != END && (chunk == null || position == chunk.length)) {
+      try {
+        chunk = chunks.take();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+
+        throw new InterruptedIOException("Interrupted while decompressing");
+      }
+
+      if (chunk.failure != null) {
+        IOException failure = chunk.failure;
+
+        chunk = END;
+
+        throw failure;
+      }
+
+      position = 0;
+
+      if (chunk != END) {
+        compressedBytesRead = chunk.compressedBytes;
+      }
+    }
+
+    return chunk != END;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!fill()) {
+      return -1;
+    }
+
+    return chunk.buffer[position++] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+
+    if (!fill()) {
+      return -1;
+    }
+
+    int n = Math.min(len, chunk.length - position);
+
+    System.arraycopy(chunk.buffer, position, b, off, n);
+    position += n;
+
+    return n;
+  }
+
+  @Override
+  public int available() throws IOException {
+    return closed || chunk == null || chunk == END ? 0 : chunk.length - position;
+  }
+
+  /**
+   * Stops decompressing and closes the file.
+   */
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+
+    closed = true;
+    decompressor.interrupt();
+    chunks.clear();
+  }
+
+  /**
+   * A chunk of decompressed content, or a failure to decompress.
+   */
+  private static class Chunk {
+
+    final byte[] buffer;
+    final int length;
+    final long compressedBytes;
+    final IOException failure;
+
+    Chunk(byte[] buffer, int length, long compressedBytes) {
+      this.buffer = buffer;
+      this.length = length;
+      this.compressedBytes = compressedBytes;
+      this.failure = null;
+    }
+
+    Chunk(IOException failure) {
+      this.buffer = null;
+      this.length = 0;
+      this.compressedBytes = 0;
+      this.failure = failure;
+    }
+
+  }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of non-negative values with power of two buckets, safe to
+ * update from many threads.
+ *
+ * <p>
+ * Bucket {@code b} counts values in {@code [2^(b-1), 2^b)}, bucket {@code 0}
+ * counts zero. Percentiles are interpolated within their bucket, so they are
+ * accurate to within a factor of two; the count, sum and maximum are exact.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+class Histogram {
+
+  private static final int BUCKETS = 64;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Records a value.
+   *
+   * @param value the value, negative values are recorded as zero.
+   */
+  void record(long value) {
+    value = Math.max(0, value);
+
+    buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(value));
+    count.increment();
+    sum.add(value);
+
+    long current;
+
+    while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+      // retry
+    }
+  }
+
+  long getCount() {
+    return count.sum();
+  }
+
+  long getSum() {
+    return sum.sum();
+  }
+
+  long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Estimates a percentile.
+   *
+   * @param percentile the percentile, from 0 to 100.
+   * @return the estimated value at the percentile, {@code 0} if empty.
+   */
+  long getPercentile(double percentile) {
+    long total = getCount();
+
+    if (total == 0) {
+      return 0;
+    }
+
+    long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+    long seen = 0;
+
+    for (int b = 0; b < BUCKETS; b++) {
+      long inBucket = buckets.get(b);
+
+      if (seen + inBucket >= rank) {
+        if (b == 0) {
+          return 0;
+        }
+
+        long low = 1L << (b - 1);
+        long high = b == BUCKETS - 1 ? Long.MAX_VALUE : (1L << b) - 1;
+        long estimate = low + (long) ((high - low) * ((double) (rank - seen) / inBucket));
+
+        return Math.min(estimate, getMax());
+      }
+
+      seen += inBucket;
+    }
+
+    return getMax();
+  }
+
+  /**
+   * Clears all recorded values.
+   */
+  void reset() {
+    for (int b = 0; b < BUCKETS; b++) {
+      buckets.set(b, 0);
+    }
+
+    count.reset();
+    sum.reset();
+    max.set(0);
+  }
+
+}
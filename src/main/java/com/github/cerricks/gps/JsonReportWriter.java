@@ -0,0 +1,158 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * A {@link ReportWriter} writing a JSON array with one object per area.
+ *
+ * <p>
+ * Besides the verdict and offending sectors of the area, each object lists
+ * every violation found, see
+ * {@link GpsValidator#setReportAllViolations(boolean)}.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+class JsonReportWriter extends ReportWriter {
+
+  private boolean first = true;
+
+  /**
+   * Creates a {@code JsonReportWriter}.
+   *
+   * @param writer the writer of the report file.
+   * @throws IOException if the start of the array cannot be written.
+   */
+  JsonReportWriter(Writer writer) throws IOException {
+    super(writer);
+
+    writer.write("[");
+  }
+
+  @Override
+  protected void write(AreaResult result) throws IOException {
+    writer.write(first ? "\n" : ",\n");
+    first = false;
+
+    writer.write("  {\"file\": ");
+    writeString(file == null ? null : file.getPath());
+    writer.write(", \"areaId\": ");
+    writeString(result.getAreaId());
+    writer.write(", \"areaCoordinatesValid\": ");
+    writer.write(Boolean.toString(result.isAreaCoordinatesValid()));
+    writer.write(", \"verdict\": ");
+    writeString(result.getVerdict().name());
+    writer.write(", \"offendingSectorIds\": ");
+    writeStrings(result.getOffendingSectorIds());
+    writer.write(", \"violations\": [");
+
+    for (int i = 0; i < result.getViolations().size(); i++) {
+      AreaResult.Violation violation = result.getViolations().get(i);
+
+      if (i > 0) {
+        writer.write(", ");
+      }
+
+      writer.write("{\"verdict\": ");
+      writeString(violation.getVerdict().name());
+      writer.write(", \"sectorIds\": ");
+      writeStrings(violation.getSectorIds());
+      writer.write("}");
+    }
+
+    writer.write("]}");
+  }
+
+  /**
+   * Writes a JSON array of strings.
+   *
+   * @param values the values to write.
+   * @throws IOException if the values cannot be written.
+   */
+  private void writeStrings(List<String> values) throws IOException {
+    writer.write("[");
+
+    for (int i = 0; i < values.size(); i++) {
+      if (i > 0) {
+        writer.write(", ");
+      }
+
+      writeString(values.get(i));
+    }
+
+    writer.write("]");
+  }
+
+  /**
+   * Writes a JSON string, escaping as required.
+   *
+   * @param value the value to write, may be {@code null}.
+   * @throws IOException if the value cannot be written.
+   */
+  private void writeString(String value) throws IOException {
+    if (value == null) {
+      writer.write("null");
+
+      return;
+    }
+
+    writer.write('"');
+
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+
+      switch (c) {
+        case '"':
+          writer.write("\\\"");
+          break;
+        case '\\':
+          writer.write("\\\\");
+          break;
+        case '\n':
+          writer.write("\\n");
+          break;
+        case '\r':
+          writer.write("\\r");
+          break;
+        case '\t':
+          writer.write("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            writer.write(String.format("\\u%04x", (int) c));
+          } else {
+            writer.write(c);
+          }
+      }
+    }
+
+    writer.write('"');
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      writer.write(first ? "]\n" : "\n]\n");
+    } finally {
+      super.close();
+    }
+  }
+
+}
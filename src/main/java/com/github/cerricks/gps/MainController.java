@@ -18,18 +18,38 @@ package com.github.cerricks.gps;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
 import java.util.Properties;
 import java.util.ResourceBundle;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import javafx.application.Platform;
+import javafx.beans.Observable;
+import javafx.beans.binding.Bindings;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckMenuItem;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
 import javafx.scene.control.MenuItem;
 import javafx.scene.control.ProgressBar;
-import javafx.scene.control.TextArea;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.SelectionMode;
+import javafx.scene.control.Tab;
+import javafx.scene.control.TabPane;
+import javafx.scene.control.Tooltip;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.ClipboardContent;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -44,9 +64,45 @@ public class MainController implements Initializable {
 
   private static final Logger logger = LogManager.getLogger(MainController.class);
 
+  /**
+   * The number of files processed at the same time. Each file is parsed on a
+   * single thread, so while one file waits on I/O another keeps the validator
+   * threads busy.
+   */
+  static final int CONCURRENT_FILES = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
+  /**
+   * The time budget per area, in milliseconds, when limited.
+   */
+  private static final long AREA_TIMEOUT = 60000;
+
+  @FXML
+  private MenuItem openMenuItem;
+
+  @FXML
+  private MenuItem openDirectoryMenuItem;
+
   @FXML
   private MenuItem exitMenuItem;
 
+  @FXML
+  private CheckMenuItem reportMenuItem;
+
+  @FXML
+  private CheckMenuItem allViolationsMenuItem;
+
+  @FXML
+  private CheckMenuItem unsortedInputMenuItem;
+
+  @FXML
+  private CheckMenuItem cacheMenuItem;
+
+  @FXML
+  private CheckMenuItem metricsMenuItem;
+
+  @FXML
+  private CheckMenuItem areaTimeoutMenuItem;
+
   @FXML
   private Button btnProcess;
 
@@ -57,11 +113,24 @@ public class MainController implements Initializable {
   private Button btnReset;
 
   @FXML
-  private TextArea outputTextArea;
+  private TabPane outputTabPane;
 
   @FXML
   private ProgressBar progressBar;
 
+  /**
+   * Runs the tasks parsing files, bounding the number of files processed at
+   * once.
+   */
+  private final ExecutorService fileExecutor = Executors.newFixedThreadPool(CONCURRENT_FILES, daemonThreads("gps-file"));
+
+  /**
+   * Validates the areas of every file being processed, so CPU-bound files
+   * share one pool of validator threads rather than each creating their own.
+   */
+  private final ExecutorService validatorExecutor = Executors.newFixedThreadPool(
+          Runtime.getRuntime().availableProcessors(), daemonThreads("gps-validator"));
+
   @Override
   public void initialize(final URL url, final ResourceBundle rb) {
     if (logger.isDebugEnabled()) {
@@ -71,72 +140,317 @@ public class MainController implements Initializable {
     exitMenuItem.setOnAction((ActionEvent t) -> {
       Platform.exit();
     });
+
   }
 
   /**
-   * Prompt user for file and start task to process.
+   * Create a factory of daemon threads, so running tasks do not keep the
+   * application alive after exit.
+   *
+   * @param name the name of the threads.
+   * @return the thread factory.
+   */
+  private static ThreadFactory daemonThreads(String name) {
+    return runnable -> {
+      Thread thread = new Thread(runnable, name);
+      thread.setDaemon(true);
+
+      return thread;
+    };
+  }
+
+  /**
+   * Prompt user for files and start tasks to process them.
    */
   @FXML
   protected void process() {
-    // display dialog to select file name and path
+    // display dialog to select file names and path
     FileChooser fileChooser = new FileChooser();
-    fileChooser.setTitle("Open File");
-    fileChooser.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("CSV Files", "*.csv"));
+    fileChooser.setTitle("Open Files");
+    fileChooser.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("CSV Files", "*.csv", "*.csv.gz"),
+            new FileChooser.ExtensionFilter("Binary Files", "*.gpsb"));
 
-    File file = fileChooser.showOpenDialog(null);
+    List<File> files = fileChooser.showOpenMultipleDialog(null);
 
-    if (file == null) {
+    if (files == null || files.isEmpty()) {
       return;
     }
 
+    process(files);
+  }
+
+  /**
+   * Prompt user for a directory and start tasks to process the CSV files
+   * (plain or gzip compressed) and binary files in it.
+   */
+  @FXML
+  protected void processDirectory() {
+    // display dialog to select directory
+    DirectoryChooser directoryChooser = new DirectoryChooser();
+    directoryChooser.setTitle("Open Directory");
+
+    File directory = directoryChooser.showDialog(null);
+
+    if (directory == null) {
+      return;
+    }
+
+    File[] files = directory.listFiles((dir, name) -> {
+      String lowerCase = name.toLowerCase(Locale.ROOT);
+
+      return lowerCase.endsWith(".csv") || lowerCase.endsWith(".csv.gz") || lowerCase.endsWith(".gpsb");
+    });
+
+    if (files == null || files.length == 0) {
+      Alert alert = new Alert(AlertType.INFORMATION);
+      alert.setTitle("Open Directory");
+      alert.setHeaderText(null);
+      alert.setContentText("No CSV files found in " + directory.getAbsolutePath());
+
+      alert.showAndWait();
+
+      return;
+    }
+
+    Arrays.sort(files);
+
+    process(Arrays.asList(files));
+  }
+
+  /**
+   * Start tasks to process the given files, at most
+   * {@link #CONCURRENT_FILES} at a time. Each file gets a tab with its own
+   * output and progress; the progress bar shows the progress of the batch.
+   *
+   * @param files the files to process.
+   */
+  private void process(List<File> files) {
     if (logger.isDebugEnabled()) {
-      logger.debug("Selected file = " + file.getAbsolutePath());
+      logger.debug("Selected files = " + files);
+    }
+
+    File report = null;
+    File reportDirectory = null;
+
+    if (reportMenuItem.isSelected()) {
+      if (files.size() == 1) {
+        // display dialog to select report file name and path
+        FileChooser reportChooser = new FileChooser();
+        reportChooser.setTitle("Save Report");
+        reportChooser.setInitialDirectory(files.get(0).getParentFile());
+        reportChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV Files", "*.csv"),
+                new FileChooser.ExtensionFilter("JSON Files", "*.json"));
+
+        report = reportChooser.showSaveDialog(null);
+
+        if (report == null) {
+          return;
+        }
+      } else {
+        // display dialog to select directory to write one report per file to
+        DirectoryChooser reportChooser = new DirectoryChooser();
+        reportChooser.setTitle("Save Reports To");
+        reportChooser.setInitialDirectory(files.get(0).getParentFile());
+
+        reportDirectory = reportChooser.showDialog(null);
+
+        if (reportDirectory == null) {
+          return;
+        }
+      }
+    }
+
+    List<GpsValidatorService> batch = new ArrayList<>();
+
+    for (File file : files) {
+      batch.add(createService(file, reportDirectory == null ? report : new File(reportDirectory, reportName(file)), batch));
     }
 
+    List<Observable> dependencies = new ArrayList<>();
+
+    for (GpsValidatorService service : batch) {
+      dependencies.add(service.progressProperty());
+      dependencies.add(service.stateProperty());
+    }
+
+    // queued files count as not started, finished files as complete
+    progressBar.progressProperty().bind(Bindings.createDoubleBinding(() -> batch.stream()
+            .mapToDouble(service -> service.isRunning() ? Math.max(0, service.getProgress()) : 1)
+            .sum() / batch.size(), dependencies.toArray(new Observable[0])));
+
+    btnCancelProcess.setOnAction((ActionEvent t) -> {
+      batch.forEach(GpsValidatorService::cancel);
+    });
+
+    setStateProcessing();
+
+    // start the background services
+    batch.forEach(GpsValidatorService::start);
+
+    outputTabPane.getSelectionModel().select(outputTabPane.getTabs().size() - batch.size());
+  }
+
+  /**
+   * Create the service to process a file and the tab showing its output.
+   *
+   * @param file the file to process.
+   * @param report the report file to write, or {@code null} for no report.
+   * @param batch the services of the batch the file belongs to.
+   * @return the service.
+   */
+  private GpsValidatorService createService(File file, File report, List<GpsValidatorService> batch) {
+    ListView<String> outputListView = createOutputListView();
+    OutputBuffer output = new OutputBuffer(outputListView.getItems());
+
     GpsValidatorService gpsValidatorService = new GpsValidatorService();
+    gpsValidatorService.setExecutor(fileExecutor);
+    gpsValidatorService.setValidatorExecutor(validatorExecutor);
     gpsValidatorService.setFile(file);
-    gpsValidatorService.setTextArea(outputTextArea);
+    gpsValidatorService.setOutput(output);
+    gpsValidatorService.setReport(report);
+    gpsValidatorService.setReportAllViolations(allViolationsMenuItem.isSelected());
+    gpsValidatorService.setUnsortedInput(unsortedInputMenuItem.isSelected());
+    gpsValidatorService.setCacheDirectory(cacheMenuItem.isSelected() ? ResultCache.defaultDirectory() : null);
+    gpsValidatorService.setShowMetrics(metricsMenuItem.isSelected());
+    gpsValidatorService.setAreaTimeout(areaTimeoutMenuItem.isSelected() ? AREA_TIMEOUT : 0);
+
+    ProgressIndicator progressIndicator = new ProgressIndicator();
+    progressIndicator.setPrefSize(16, 16);
+    progressIndicator.progressProperty().bind(gpsValidatorService.progressProperty());
+
+    Tab tab = new Tab(file.getName(), outputListView);
+    tab.setGraphic(progressIndicator);
+    tab.setTooltip(new Tooltip(file.getAbsolutePath()));
+    tab.setUserData(output);
+    tab.setClosable(false);
+    tab.setOnClosed(event -> output.stop());
 
     gpsValidatorService.setOnRunning(event -> {
       if (logger.isDebugEnabled()) {
-        logger.debug("Processing task: {0}", event.getSource().getTitle());
+        logger.debug("Processing file: " + file.getAbsolutePath());
       }
-
-      setStateProcessing();
     });
 
     gpsValidatorService.setOnSucceeded(event -> {
       if (logger.isDebugEnabled()) {
-        logger.debug("Finished processing task: {0}", event.getSource().getTitle());
+        logger.debug("Finished processing file: " + file.getAbsolutePath());
       }
 
-      setStateNotProcessing();
+      output.stop();
+
+      setFinished(tab, null, batch);
     });
 
     gpsValidatorService.setOnCancelled(event -> {
       if (logger.isDebugEnabled()) {
-        logger.debug("Cancelled processing task: {0}", event.getSource().getTitle());
+        logger.debug("Cancelled processing file: " + file.getAbsolutePath());
       }
 
-      setStateNotProcessing();
+      output.stop();
+
+      setFinished(tab, "cancelled", batch);
     });
 
     gpsValidatorService.setOnFailed(event -> {
-      if (logger.isDebugEnabled()) {
-        logger.error("Failed to process task", event.getSource().getException());
-      }
+      logger.error("Failed to process file: " + file.getAbsolutePath(), event.getSource().getException());
 
-      setStateNotProcessing();
+      output.stop();
+
+      setFinished(tab, "failed", batch);
     });
 
-    btnCancelProcess.setOnAction((ActionEvent t) -> {
-      gpsValidatorService.cancel();
+    outputTabPane.getTabs().add(tab);
+
+    return gpsValidatorService;
+  }
+
+  /**
+   * Create a list view for the output of a file.
+   *
+   * @return the list view.
+   */
+  private ListView<String> createOutputListView() {
+    ListView<String> outputListView = new ListView<>();
+
+    outputListView.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+    outputListView.setCellFactory(listView -> new ListCell<String>() {
+      @Override
+      protected void updateItem(String item, boolean empty) {
+        super.updateItem(item, empty);
+
+        setText(empty ? null : item);
+
+        getStyleClass().remove("error");
+
+        if (!empty && item.startsWith("Error")) {
+          getStyleClass().add("error");
+        }
+      }
     });
 
-    progressBar.progressProperty().bind(gpsValidatorService.progressProperty());
+    MenuItem copyMenuItem = new MenuItem("Copy");
+    copyMenuItem.setOnAction(event -> copySelected());
+
+    MenuItem copyAllMenuItem = new MenuItem("Copy All");
+    copyAllMenuItem.setOnAction(event -> copyAll());
 
-    // start the background service
-    gpsValidatorService.start();
+    outputListView.setContextMenu(new ContextMenu(copyMenuItem, copyAllMenuItem));
+
+    return outputListView;
+  }
+
+  /**
+   * Mark the tab of a file as finished, and the screen as not processing once
+   * every file of the batch has finished.
+   *
+   * @param tab the tab of the file.
+   * @param status the status to show in the tab, or {@code null} if the file
+   * was processed.
+   * @param batch the services of the batch the file belongs to.
+   */
+  private void setFinished(Tab tab, String status, List<GpsValidatorService> batch) {
+    tab.setGraphic(null);
+    tab.setClosable(true);
+
+    if (status != null) {
+      tab.setText(tab.getText() + " (" + status + ")");
+    }
+
+    if (batch.stream().noneMatch(GpsValidatorService::isRunning)) {
+      setStateNotProcessing();
+    }
+  }
+
+  /**
+   * Retrieve the name of the report of a file processed in a batch.
+   *
+   * @param file the file.
+   * @return the name of the report.
+   */
+  private static String reportName(File file) {
+    String name = file.getName();
+
+    if (SectorRecordReader.isGzip(file)) {
+      name = name.substring(0, name.length() - ".gz".length());
+    }
+
+    int extension = name.lastIndexOf('.');
+
+    return (extension > 0 ? name.substring(0, extension) : name) + "-report.csv";
+  }
+
+  /**
+   * Retrieve the list view of the selected tab.
+   *
+   * @return the list view of the selected tab, or {@code null} if there are no
+   * tabs.
+   */
+  @SuppressWarnings("unchecked")
+  private ListView<String> getSelectedOutput() {
+    Tab tab = outputTabPane.getSelectionModel().getSelectedItem();
+
+    return tab == null ? null : (ListView<String>) tab.getContent();
   }
 
   /**
@@ -144,7 +458,47 @@ public class MainController implements Initializable {
    */
   @FXML
   public void reset() {
-    outputTextArea.clear();
+    for (Tab tab : outputTabPane.getTabs()) {
+      ((OutputBuffer) tab.getUserData()).stop();
+    }
+
+    outputTabPane.getTabs().clear();
+  }
+
+  /**
+   * Copy the selected output lines to the clipboard.
+   */
+  @FXML
+  protected void copySelected() {
+    ListView<String> outputListView = getSelectedOutput();
+
+    if (outputListView != null) {
+      copyToClipboard(outputListView.getSelectionModel().getSelectedItems());
+    }
+  }
+
+  /**
+   * Copy all output lines to the clipboard.
+   */
+  @FXML
+  protected void copyAll() {
+    ListView<String> outputListView = getSelectedOutput();
+
+    if (outputListView != null) {
+      copyToClipboard(outputListView.getItems());
+    }
+  }
+
+  /**
+   * Copy the given lines to the clipboard.
+   *
+   * @param lines the lines to copy.
+   */
+  private void copyToClipboard(List<String> lines) {
+    ClipboardContent content = new ClipboardContent();
+    content.putString(String.join(System.lineSeparator(), lines));
+
+    Clipboard.getSystemClipboard().setContent(content);
   }
 
   /**
@@ -153,6 +507,8 @@ public class MainController implements Initializable {
   private void setStateProcessing() {
     btnProcess.setDisable(true);
     btnProcess.setText("Processing...");
+    openMenuItem.setDisable(true);
+    openDirectoryMenuItem.setDisable(true);
     btnCancelProcess.setDisable(false);
     btnReset.setDisable(true);
     progressBar.setVisible(true);
@@ -163,7 +519,9 @@ public class MainController implements Initializable {
    */
   private void setStateNotProcessing() {
     btnProcess.setDisable(false);
-    btnProcess.setText("Open File");
+    btnProcess.setText("Open Files");
+    openMenuItem.setDisable(false);
+    openDirectoryMenuItem.setDisable(false);
     btnCancelProcess.setDisable(true);
     btnReset.setDisable(false);
     progressBar.setVisible(false);
@@ -0,0 +1,594 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * A {@link SectorRecordReader} which memory-maps the input file and parses the
+ * area/sector schema directly from bytes.
+ *
+ * <p>
+ * Column positions are resolved from the header once. Numeric columns are
+ * parsed straight into primitive doubles; values which are not plain decimals
+ * fall back to {@link Double#parseDouble(String)} so results are identical to
+ * parsing the text. Ids are only decoded into {@code String}s when they change.
+ * Quoted fields (including escaped quotes and embedded separators) follow RFC
+ * 4180, like the default Commons CSV format.
+ *
+ * <p>
+ * Files larger than the mapping window are mapped a window at a time; a row
+ * crossing the end of a window is re-read from a new window starting at the
+ * row.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+class MappedCsvSectorRecordReader implements SectorRecordReader {
+
+  /**
+   * The default maximum size of a mapped window of the file.
+   */
+  static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+  /**
+   * The largest mantissa which is exactly representable as a double.
+   */
+  private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+  /**
+   * Powers of ten which are exactly representable as a double.
+   */
+  private static final double[] POWERS_OF_TEN = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+    1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  private static final byte COMMA = ',';
+  private static final byte QUOTE = '"';
+  private static final byte CR = '\r';
+  private static final byte LF = '\n';
+
+  /**
+   * Result of scanning a row: the window ends before the row does.
+   */
+  private static final int ROW_INCOMPLETE = -1;
+
+  /**
+   * Result of scanning a row: the end of the file was reached.
+   */
+  private static final int ROW_END = -2;
+
+  /**
+   * Result of scanning a row: the row is empty.
+   */
+  private static final int ROW_EMPTY = 0;
+
+  private final RandomAccessFile randomAccessFile;
+  private final FileChannel channel;
+  private final Charset charset;
+  private final long fileSize;
+  private final int windowSize;
+
+  private MappedByteBuffer buffer;
+  private long windowOffset;
+  private int position;
+  private int limit;
+  private long rowNumber;
+
+  // boundaries of the fields of the current row
+  private int[] fieldStart = new int[16];
+  private int[] fieldEnd = new int[16];
+  private boolean[] fieldEscaped = new boolean[16];
+
+  // column index of each field read
+  private int areaIdColumn;
+  private final int[] areaColumns = new int[SectorRecord.COLUMNS_AREA.length];
+  private int sectorIdColumn;
+  private final int[] sectorColumns = new int[SectorRecord.COLUMNS_SECTOR.length];
+  private int requiredColumns;
+  private boolean headerRead;
+
+  // the undecoded bytes of the current area id
+  private byte[] areaIdBytes = new byte[64];
+  private int areaIdLength = -1;
+
+  private byte[] scratch = new byte[64];
+
+  /**
+   * Creates a {@code MappedCsvSectorRecordReader}.
+   *
+   * @param file the file to read.
+   * @param charset the charset of the file, which must be ASCII compatible.
+   * @throws IOException if the file cannot be opened.
+   */
+  MappedCsvSectorRecordReader(File file, Charset charset) throws IOException {
+    this(file, charset, DEFAULT_WINDOW_SIZE);
+  }
+
+  /**
+   * Creates a {@code MappedCsvSectorRecordReader}.
+   *
+   * @param file the file to read.
+   * @param charset the charset of the file, which must be ASCII compatible.
+   * @param windowSize the maximum size of a mapped window of the file.
+   * @throws IOException if the file cannot be opened.
+   */
+  MappedCsvSectorRecordReader(File file, Charset charset, int windowSize) throws IOException {
+    this.randomAccessFile = new RandomAccessFile(file, "r");
+    this.channel = randomAccessFile.getChannel();
+    this.charset = charset;
+    this.windowSize = windowSize;
+
+    try {
+      this.fileSize = channel.size();
+
+      map(0);
+
+      // skip UTF-8 byte order mark
+      if (limit >= 3 && buffer.get(0) == (byte) 0xEF && buffer.get(1) == (byte) 0xBB && buffer.get(2) == (byte) 0xBF) {
+        position = 3;
+      }
+    } catch (IOException | RuntimeException ex) {
+      randomAccessFile.close();
+
+      throw ex;
+    }
+  }
+
+  @Override
+  public boolean read(SectorRecord record) throws IOException {
+    if (!headerRead) {
+      if (!readHeader()) {
+        return false;
+      }
+    }
+
+    int fields = nextRow();
+
+    if (fields == ROW_END) {
+      return false;
+    }
+
+    if (fields < requiredColumns) {
+      throw new IOException("Row " + rowNumber + " has " + fields + " values, expected at least " + requiredColumns);
+    }
+
+    if (!fieldEquals(areaIdColumn, areaIdBytes, areaIdLength)) {
+      setAreaId(areaIdColumn);
+
+      String areaId = decode(areaIdColumn);
+
+      if (!areaId.equals(record.areaId)) {
+        record.areaId = areaId;
+
+        for (int i = 0; i < areaColumns.length; i++) {
+          record.area[i] = parseDouble(areaColumns[i]);
+        }
+      }
+    }
+
+    record.sectorId = decode(sectorIdColumn);
+
+    for (int i = 0; i < sectorColumns.length; i++) {
+      record.sector[i] = parseDouble(sectorColumns[i]);
+    }
+
+    return true;
+  }
+
+  @Override
+  public long getBytesRead() {
+    return windowOffset + position;
+  }
+
+  @Override
+  public void close() throws IOException {
+    randomAccessFile.close();
+  }
+
+  /**
+   * Reads the header row and resolves the position of each column.
+   *
+   * @return {@code true} if a header was read, {@code false} if the file is
+   * empty.
+   * @throws IOException if the header cannot be read or a column is missing.
+   */
+  private boolean readHeader() throws IOException {
+    int fields = nextRow();
+
+    if (fields == ROW_END) {
+      return false;
+    }
+
+    String[] header = new String[fields];
+
+    for (int i = 0; i < fields; i++) {
+      header[i] = decode(i);
+    }
+
+    areaIdColumn = column(header, SectorRecord.COLUMN_AREA_ID);
+    sectorIdColumn = column(header, SectorRecord.COLUMN_SECTOR_ID);
+
+    requiredColumns = Math.max(areaIdColumn, sectorIdColumn) + 1;
+
+    for (int i = 0; i < areaColumns.length; i++) {
+      areaColumns[i] = column(header, SectorRecord.COLUMNS_AREA[i]);
+      requiredColumns = Math.max(requiredColumns, areaColumns[i] + 1);
+    }
+
+    for (int i = 0; i < sectorColumns.length; i++) {
+      sectorColumns[i] = column(header, SectorRecord.COLUMNS_SECTOR[i]);
+      requiredColumns = Math.max(requiredColumns, sectorColumns[i] + 1);
+    }
+
+    headerRead = true;
+
+    return true;
+  }
+
+  /**
+   * Finds the position of a column in the header.
+   *
+   * @param header the header.
+   * @param name the name of the column.
+   * @return the position of the column.
+   * @throws IOException if the column is missing.
+   */
+  private static int column(String[] header, String name) throws IOException {
+    int index = Arrays.asList(header).indexOf(name);
+
+    if (index < 0) {
+      throw new IOException("Missing column: " + name);
+    }
+
+    return index;
+  }
+
+  /**
+   * Scans the next non-empty row, mapping a new window when a row crosses the
+   * end of the current one.
+   *
+   * @return the number of fields in the row, or {@link #ROW_END}.
+   * @throws IOException if the file cannot be read or the row is malformed.
+   */
+  private int nextRow() throws IOException {
+    while (true) {
+      int rowStart = position;
+      int fields = scanRow();
+
+      if (fields == ROW_INCOMPLETE) {
+        if (rowStart == 0) {
+          throw new IOException("Row " + (rowNumber + 1) + " is longer than the mapping window");
+        }
+
+        map(windowOffset + rowStart);
+
+        continue;
+      }
+
+      if (fields != ROW_EMPTY) {
+        return fields;
+      }
+    }
+  }
+
+  /**
+   * Scans a row from the current position, recording the boundaries of each
+   * field.
+   *
+   * @return the number of fields in the row, {@link #ROW_EMPTY},
+   * {@link #ROW_INCOMPLETE} or {@link #ROW_END}.
+   * @throws IOException if the row is malformed.
+   */
+  private int scanRow() throws IOException {
+    boolean lastWindow = windowOffset + limit >= fileSize;
+
+    int p = position;
+
+    if (p >= limit) {
+      return lastWindow ? ROW_END : ROW_INCOMPLETE;
+    }
+
+    // empty line
+    byte b = buffer.get(p);
+
+    if (b == LF || b == CR) {
+      int end = lineEnd(p, lastWindow);
+
+      if (end < 0) {
+        return ROW_INCOMPLETE;
+      }
+
+      position = end;
+
+      return ROW_EMPTY;
+    }
+
+    int field = 0;
+
+    while (true) {
+      if (field == fieldStart.length) {
+        fieldStart = Arrays.copyOf(fieldStart, field * 2);
+        fieldEnd = Arrays.copyOf(fieldEnd, field * 2);
+        fieldEscaped = Arrays.copyOf(fieldEscaped, field * 2);
+      }
+
+      if (p < limit && buffer.get(p) == QUOTE) {
+        boolean escaped = false;
+
+        fieldStart[field] = ++p;
+
+        while (true) {
+          if (p >= limit) {
+            if (lastWindow) {
+              throw new IOException("Unterminated quoted field in row " + (rowNumber + 1));
+            }
+
+            return ROW_INCOMPLETE;
+          }
+
+          if (buffer.get(p) == QUOTE) {
+            if (p + 1 >= limit && !lastWindow) {
+              return ROW_INCOMPLETE;
+            }
+
+            if (p + 1 < limit && buffer.get(p + 1) == QUOTE) {
+              escaped = true;
+              p += 2;
+
+              continue;
+            }
+
+            break;
+          }
+
+          p++;
+        }
+
+        fieldEnd[field] = p++;
+        fieldEscaped[field] = escaped;
+
+        if (p < limit && buffer.get(p) != COMMA && buffer.get(p) != CR && buffer.get(p) != LF) {
+          throw new IOException("Invalid character after quoted field in row " + (rowNumber + 1));
+        }
+      } else {
+        fieldStart[field] = p;
+
+        while (p < limit) {
+          b = buffer.get(p);
+
+          if (b == COMMA || b == LF || b == CR) {
+            break;
+          }
+
+          p++;
+        }
+
+        fieldEnd[field] = p;
+        fieldEscaped[field] = false;
+      }
+
+      field++;
+
+      if (p >= limit) {
+        if (!lastWindow) {
+          return ROW_INCOMPLETE;
+        }
+
+        break;
+      }
+
+      if (buffer.get(p) == COMMA) {
+        p++;
+
+        continue;
+      }
+
+      p = lineEnd(p, lastWindow);
+
+      if (p < 0) {
+        return ROW_INCOMPLETE;
+      }
+
+      break;
+    }
+
+    position = p;
+    rowNumber++;
+
+    return field;
+  }
+
+  /**
+   * Finds the position after the line break at the given position.
+   *
+   * @param p the position of a {@code CR} or {@code LF}.
+   * @param lastWindow whether the current window is the last of the file.
+   * @return the position after the line break, or {@code -1} if the window ends
+   * within the line break.
+   */
+  private int lineEnd(int p, boolean lastWindow) {
+    if (buffer.get(p) == CR) {
+      if (p + 1 < limit) {
+        return buffer.get(p + 1) == LF ? p + 2 : p + 1;
+      }
+
+      return lastWindow ? p + 1 : -1;
+    }
+
+    return p + 1;
+  }
+
+  /**
+   * Maps the window of the file starting at the given offset.
+   *
+   * @param offset the offset in the file.
+   * @throws IOException if the file cannot be mapped.
+   */
+  private void map(long offset) throws IOException {
+    buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(windowSize, fileSize - offset));
+    windowOffset = offset;
+    position = 0;
+    limit = buffer.limit();
+  }
+
+  /**
+   * Indicates if the given field of the current row holds the given bytes.
+   *
+   * @param field the field.
+   * @param bytes the bytes.
+   * @param length the number of bytes.
+   * @return {@code true} if the field holds the given bytes.
+   */
+  private boolean fieldEquals(int field, byte[] bytes, int length) {
+    int start = fieldStart[field];
+
+    if (fieldEscaped[field] || fieldEnd[field] - start != length) {
+      return false;
+    }
+
+    for (int i = 0; i < length; i++) {
+      if (buffer.get(start + i) != bytes[i]) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Remembers the bytes of the given field as the current area id.
+   *
+   * @param field the field.
+   */
+  private void setAreaId(int field) {
+    int length = fieldEnd[field] - fieldStart[field];
+
+    if (fieldEscaped[field]) {
+      // never matches, so escaped ids are always decoded
+      areaIdLength = -1;
+
+      return;
+    }
+
+    if (length > areaIdBytes.length) {
+      areaIdBytes = new byte[length];
+    }
+
+    for (int i = 0; i < length; i++) {
+      areaIdBytes[i] = buffer.get(fieldStart[field] + i);
+    }
+
+    areaIdLength = length;
+  }
+
+  /**
+   * Decodes the given field of the current row into a {@code String}.
+   *
+   * @param field the field.
+   * @return the value of the field.
+   */
+  private String decode(int field) {
+    int start = fieldStart[field];
+    int length = fieldEnd[field] - start;
+
+    if (length > scratch.length) {
+      scratch = new byte[Math.max(length, scratch.length * 2)];
+    }
+
+    int n = 0;
+
+    for (int i = 0; i < length; i++) {
+      byte b = buffer.get(start + i);
+
+      scratch[n++] = b;
+
+      // an escaped quote is written as 2 quotes
+      if (b == QUOTE && fieldEscaped[field]) {
+        i++;
+      }
+    }
+
+    return new String(scratch, 0, n, charset);
+  }
+
+  /**
+   * Parses the given field of the current row as a double.
+   *
+   * <p>
+   * Plain decimals with up to 15 significant digits (such as GPS coordinates)
+   * are converted directly, since both the digits and the power of ten are
+   * exact doubles and a single division is correctly rounded. Anything else is
+   * decoded and parsed with {@link Double#parseDouble(String)}.
+   *
+   * @param field the field.
+   * @return the value of the field.
+   */
+  private double parseDouble(int field) {
+    int p = fieldStart[field];
+    int end = fieldEnd[field];
+
+    if (!fieldEscaped[field] && p < end) {
+      boolean negative = false;
+      byte b = buffer.get(p);
+
+      if (b == '-' || b == '+') {
+        negative = b == '-';
+        p++;
+      }
+
+      long mantissa = 0;
+      int digits = 0;
+      int fractionDigits = -1;
+
+      for (; p < end; p++) {
+        b = buffer.get(p);
+
+        if (b >= '0' && b <= '9') {
+          mantissa = mantissa * 10 + (b - '0');
+
+          if (++digits > 15) {
+            break;
+          }
+
+          if (fractionDigits >= 0) {
+            fractionDigits++;
+          }
+        } else if (b == '.' && fractionDigits < 0) {
+          fractionDigits = 0;
+        } else {
+          break;
+        }
+      }
+
+      if (p == end && digits > 0 && mantissa < MAX_EXACT_MANTISSA) {
+        double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+
+        return negative ? -value : value;
+      }
+    }
+
+    return Double.parseDouble(decode(field));
+  }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import javafx.animation.AnimationTimer;
+import javafx.collections.ObservableList;
+
+/**
+ * Buffers output lines written from any thread and adds them to an
+ * {@link ObservableList} (such as the items of a {@code ListView}) at most once
+ * per frame.
+ *
+ * <p>
+ * Writing never touches the FX thread, so a fast producer cannot flood the FX
+ * event queue. Each frame the buffered lines are added in a single change.
+ *
+ * <p>
+ * Messages are treated as one stream of text, as when they were appended to a
+ * text area: each line terminator ends an entry, blank lines included, and
+ * text after the last terminator is held until the line is completed or the
+ * buffer is stopped.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+public class OutputBuffer {
+
+  private final Queue<String> pending = new ConcurrentLinkedQueue<>();
+  private final ObservableList<String> lines;
+  private final AnimationTimer timer;
+
+  /**
+   * The text written after the last line terminator.
+   */
+  private final StringBuilder partial = new StringBuilder();
+
+  /**
+   * Creates an {@code OutputBuffer}. Must be called on the FX thread.
+   *
+   * @param lines the list to add output lines to.
+   */
+  public OutputBuffer(ObservableList<String> lines) {
+    this.lines = lines;
+    this.timer = new AnimationTimer() {
+      @Override
+      public void handle(long now) {
+        flush();
+      }
+    };
+
+    timer.start();
+  }
+
+  /**
+   * Writes a message. Messages may span multiple lines; each completed line,
+   * blank or not, becomes one entry of the list.
+   *
+   * <p>
+   * This method may be called from any thread.
+   *
+   * @param message the message to write.
+   */
+  public synchronized void write(String message) {
+    partial.append(message);
+
+    int start = 0;
+
+    for (int i = 0; i < partial.length(); i++) {
+      char c = partial.charAt(i);
+
+      if (c == '\n' || c == '\r') {
+        pending.add(partial.substring(start, i));
+
+        if (c == '\r' && i + 1 < partial.length() && partial.charAt(i + 1) == '\n') {
+          i++;
+        }
+
+        start = i + 1;
+      }
+    }
+
+    partial.delete(0, start);
+  }
+
+  /**
+   * Adds all buffered lines to the list. Must be called on the FX thread.
+   */
+  public void flush() {
+    if (pending.isEmpty()) {
+      return;
+    }
+
+    List<String> batch = new ArrayList<>();
+
+    String line;
+
+    while ((line = pending.poll()) != null) {
+      batch.add(line);
+    }
+
+    lines.addAll(batch);
+  }
+
+  /**
+   * Adds any buffered lines, including an unterminated last line, to the list
+   * and stops adding lines written later. Must be called on the FX thread.
+   */
+  public void stop() {
+    timer.stop();
+
+    synchronized (this) {
+      if (partial.length() > 0) {
+        pending.add(partial.toString());
+        partial.setLength(0);
+      }
+    }
+
+    flush();
+  }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Detects overlapping regions by splitting a sweep-and-prune across a
+ * {@link ForkJoinPool}.
+ *
+ * <p>
+ * The regions are sorted by minimum longitude once and divided into strips of
+ * consecutive sweep positions. Each strip is swept in parallel and also checks
+ * its regions against regions of later strips they straddle into, so pairs
+ * crossing strip edges are not missed. The first overlap found stops all
+ * remaining strips.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ * @see SweepOverlapDetector
+ */
+public class ParallelOverlapDetector {
+
+  /**
+   * The default number of regions per strip.
+   */
+  public static final int DEFAULT_STRIP_SIZE = 8192;
+
+  private final ForkJoinPool pool;
+  private final int stripSize;
+
+  /**
+   * Creates a {@code ParallelOverlapDetector} using the common
+   * {@link ForkJoinPool}.
+   */
+  public ParallelOverlapDetector() {
+    this(ForkJoinPool.commonPool(), DEFAULT_STRIP_SIZE);
+  }
+
+  /**
+   * Creates a {@code ParallelOverlapDetector}.
+   *
+   * @param pool the pool to run strips on.
+   * @param stripSize the number of regions per strip.
+   */
+  public ParallelOverlapDetector(ForkJoinPool pool, int stripSize) {
+    if (stripSize < 1) {
+      throw new IllegalArgumentException("Strip size must be positive: " + stripSize);
+    }
+
+    this.pool = pool;
+    this.stripSize = stripSize;
+  }
+
+  /**
+   * Finds a pair of overlapping regions.
+   *
+   * <p>
+   * When more than one pair overlaps, which pair is returned depends on which
+   * strip finishes first.
+   *
+   * @param regions the regions to check.
+   * @return the indices (in the given list) of two overlapping regions, or
+   * {@code null} if no regions overlap.
+   */
+  public int[] findOverlap(List<? extends Region> regions) {
+    return findOverlap(regions, () -> false);
+  }
+
+  /**
+   * Finds a pair of overlapping regions, stopping all strips early once the
+   * given condition holds.
+   *
+   * <p>
+   * The condition is checked from the threads of the pool, so it must not
+   * depend on the calling thread (e.g. check {@code caller.isInterrupted()}
+   * rather than {@code Thread.interrupted()}).
+   *
+   * @param regions the regions to check.
+   * @param cancelled indicates if the strips should stop early, checked
+   * periodically.
+   * @return the indices (in the given list) of two overlapping regions, or
+   * {@code null} if no regions overlap.
+   * @throws CancellationException if a strip stopped early and no overlap was
+   * found, so no verdict was reached.
+   */
+  public int[] findOverlap(List<? extends Region> regions, BooleanSupplier cancelled) {
+    SweepOverlapDetector.Sweep sweep = new SweepOverlapDetector.Sweep(regions);
+
+    AtomicReference<int[]> found = new AtomicReference<>();
+    AtomicBoolean stopped = new AtomicBoolean();
+
+    pool.invoke(new StripTask(sweep, 0, sweep.size(), found, cancelled, stopped));
+
+    int[] overlap = found.get();
+
+    if (overlap == null && stopped.get()) {
+      throw new CancellationException();
+    }
+
+    return overlap;
+  }
+
+  /**
+   * Sweeps a range of positions, splitting it in half until it is no larger
+   * than a strip.
+   */
+  private class StripTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final SweepOverlapDetector.Sweep sweep;
+    private final int from;
+    private final int to;
+    private final AtomicReference<int[]> found;
+    private final BooleanSupplier cancelled;
+
+    /**
+     * Set when a strip stops early because the condition held, rather than
+     * because another strip found an overlap.
+     */
+    private final AtomicBoolean stopped;
+
+    StripTask(SweepOverlapDetector.Sweep sweep, int from, int to, AtomicReference<int[]> found, BooleanSupplier cancelled,
+            AtomicBoolean stopped) {
+      this.sweep = sweep;
+      this.from = from;
+      this.to = to;
+      this.found = found;
+      this.cancelled = cancelled;
+      this.stopped = stopped;
+    }
+
+    @Override
+    protected void compute() {
+      if (found.get() != null) {
+        return;
+      }
+
+      if (cancelled.getAsBoolean()) {
+        stopped.set(true);
+
+        return;
+      }
+
+      if (to - from <= stripSize) {
+        try {
+          int[] overlap = sweep.findOverlap(from, to, () -> found.get() != null || cancelled.getAsBoolean());
+
+          if (overlap != null) {
+            found.compareAndSet(null, overlap);
+          }
+        } catch (CancellationException ex) {
+          if (found.get() == null) {
+            stopped.set(true);
+          }
+        }
+
+        return;
+      }
+
+      int middle = (from + to) >>> 1;
+
+      invokeAll(new StripTask(sweep, from, middle, found, cancelled, stopped),
+              new StripTask(sweep, middle, to, found, cancelled, stopped));
+    }
+
+  }
+
+}
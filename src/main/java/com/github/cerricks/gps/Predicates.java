@@ -0,0 +1,304 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.math.BigDecimal;
+
+/**
+ * Robust geometric predicates over primitive doubles.
+ *
+ * <p>
+ * Each predicate is first evaluated in floating point together with a bound on
+ * its rounding error (the filter of Shewchuk's {@code orient2d}). Only when
+ * the result is too close to zero for its sign to be trusted is it evaluated
+ * again in exact arithmetic. Almost all inputs take the fast path, while
+ * collinear and touching inputs, such as sectors sharing an edge or a vertex,
+ * get exact and therefore deterministic answers.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+final class Predicates {
+
+  /**
+   * Half the distance between 1 and the next larger double, {@code 2^-53}.
+   */
+  private static final double EPSILON = 0x1p-53;
+
+  /**
+   * Relative error bound of the floating point orientation determinant.
+   */
+  private static final double ORIENTATION_ERROR_BOUND = (3 + 16 * EPSILON) * EPSILON;
+
+  /**
+   * Splits a double into two halves of 26 bits for exact products,
+   * {@code 2^27 + 1}.
+   */
+  private static final double SPLITTER = 0x1p27 + 1;
+
+  private Predicates() {
+  }
+
+  /**
+   * Determines on which side of the directed line through {@code a} and
+   * {@code b} the point {@code c} lies.
+   *
+   * @param ax the x coordinate of {@code a}.
+   * @param ay the y coordinate of {@code a}.
+   * @param bx the x coordinate of {@code b}.
+   * @param by the y coordinate of {@code b}.
+   * @param cx the x coordinate of {@code c}.
+   * @param cy the y coordinate of {@code c}.
+   * @return {@code 1} if {@code c} lies to the left of the line (the points
+   * turn counterclockwise), {@code -1} if it lies to the right and {@code 0}
+   * if the points are collinear.
+   */
+  static int orientation(double ax, double ay, double bx, double by, double cx, double cy) {
+    double left = (ax - cx) * (by - cy);
+    double right = (ay - cy) * (bx - cx);
+    double det = left - right;
+    double sum;
+
+    if (left > 0) {
+      if (right <= 0) {
+        return signum(det);
+      }
+
+      sum = left + right;
+    } else if (left < 0) {
+      if (right >= 0) {
+        return signum(det);
+      }
+
+      sum = -left - right;
+    } else {
+      return signum(det);
+    }
+
+    double bound = ORIENTATION_ERROR_BOUND * sum;
+
+    if (det >= bound || -det >= bound) {
+      return signum(det);
+    }
+
+    return orientationAdaptive(ax, ay, bx, by, cx, cy);
+  }
+
+  /**
+   * Indicates if the point {@code c} certainly lies on the given side of the
+   * directed line through {@code a} and {@code b}, using only the floating
+   * point filter. Points too close to the line for the filter to decide are
+   * reported as not on the side, without falling back to exact arithmetic, so
+   * this suits cheap early accepts that have an exact check behind them.
+   *
+   * @param ax the x coordinate of {@code a}.
+   * @param ay the y coordinate of {@code a}.
+   * @param bx the x coordinate of {@code b}.
+   * @param by the y coordinate of {@code b}.
+   * @param cx the x coordinate of {@code c}.
+   * @param cy the y coordinate of {@code c}.
+   * @param side the side, {@code 1} for the left and {@code -1} for the right,
+   * see {@link #orientation(double, double, double, double, double, double)}.
+   * @return {@code true} if {@code c} lies on the given side, {@code false} if
+   * it does not or the filter cannot tell.
+   */
+  static boolean isOnSide(double ax, double ay, double bx, double by, double cx, double cy, int side) {
+    double left = (ax - cx) * (by - cy);
+    double right = (ay - cy) * (bx - cx);
+    double det = side > 0 ? left - right : right - left;
+
+    return det > ORIENTATION_ERROR_BOUND * (Math.abs(left) + Math.abs(right));
+  }
+
+  /**
+   * Determines the orientation of three points exactly, without allocating
+   * when the differences of the coordinates are exact, as they are for nearby
+   * points (by Sterbenz's lemma) and for points sharing a coordinate.
+   *
+   * <p>
+   * The two products of the determinant are then computed as exact
+   * two-component expansions and their difference as a four-component
+   * expansion, whose sign is that of its largest non-zero component. Only when
+   * a difference is inexact is the determinant evaluated with
+   * {@link BigDecimal}.
+   *
+   * @param ax the x coordinate of {@code a}.
+   * @param ay the y coordinate of {@code a}.
+   * @param bx the x coordinate of {@code b}.
+   * @param by the y coordinate of {@code b}.
+   * @param cx the x coordinate of {@code c}.
+   * @param cy the y coordinate of {@code c}.
+   * @return the orientation, see
+   * {@link #orientation(double, double, double, double, double, double)}.
+   */
+  private static int orientationAdaptive(double ax, double ay, double bx, double by, double cx, double cy) {
+    double acx = ax - cx;
+    double bcx = bx - cx;
+    double acy = ay - cy;
+    double bcy = by - cy;
+
+    if (diffTail(ax, cx, acx) != 0 || diffTail(bx, cx, bcx) != 0
+            || diffTail(ay, cy, acy) != 0 || diffTail(by, cy, bcy) != 0) {
+      return orientationExact(ax, ay, bx, by, cx, cy);
+    }
+
+    double left = acx * bcy;
+    double leftTail = productTail(acx, bcy, left);
+    double right = acy * bcx;
+    double rightTail = productTail(acy, bcx, right);
+
+    // (left + leftTail) - (right + rightTail) as a nonoverlapping expansion x3 + x2 + x1 + x0
+    double i = leftTail - rightTail;
+    double x0 = diffTail(leftTail, rightTail, i);
+    double j = left + i;
+    double k = sumTail(left, i, j);
+    double l = k - right;
+    double x1 = diffTail(k, right, l);
+    double x3 = j + l;
+    double x2 = sumTail(j, l, x3);
+
+    return x3 != 0 ? signum(x3) : x2 != 0 ? signum(x2) : x1 != 0 ? signum(x1) : signum(x0);
+  }
+
+  /**
+   * Retrieve the rounding error of a sum, such that {@code a + b} is exactly
+   * {@code sum + tail}.
+   *
+   * @param a the first operand.
+   * @param b the second operand.
+   * @param sum the rounded sum {@code a + b}.
+   * @return the rounding error.
+   */
+  private static double sumTail(double a, double b, double sum) {
+    double bVirtual = sum - a;
+    double aVirtual = sum - bVirtual;
+
+    return (a - aVirtual) + (b - bVirtual);
+  }
+
+  /**
+   * Retrieve the rounding error of a difference, such that {@code a - b} is
+   * exactly {@code difference + tail}.
+   *
+   * @param a the first operand.
+   * @param b the second operand.
+   * @param difference the rounded difference {@code a - b}.
+   * @return the rounding error.
+   */
+  private static double diffTail(double a, double b, double difference) {
+    double bVirtual = a - difference;
+    double aVirtual = difference + bVirtual;
+
+    return (a - aVirtual) + (bVirtual - b);
+  }
+
+  /**
+   * Retrieve the rounding error of a product, such that {@code a * b} is
+   * exactly {@code product + tail} (Dekker's product).
+   *
+   * @param a the first operand.
+   * @param b the second operand.
+   * @param product the rounded product {@code a * b}.
+   * @return the rounding error.
+   */
+  private static double productTail(double a, double b, double product) {
+    double c = SPLITTER * a;
+    double aHigh = c - (c - a);
+    double aLow = a - aHigh;
+
+    double d = SPLITTER * b;
+    double bHigh = d - (d - b);
+    double bLow = b - bHigh;
+
+    return aLow * bLow - (((product - aHigh * bHigh) - aLow * bHigh) - aHigh * bLow);
+  }
+
+  /**
+   * Determines the orientation of three points in exact arithmetic with
+   * {@link BigDecimal}.
+   *
+   * @param ax the x coordinate of {@code a}.
+   * @param ay the y coordinate of {@code a}.
+   * @param bx the x coordinate of {@code b}.
+   * @param by the y coordinate of {@code b}.
+   * @param cx the x coordinate of {@code c}.
+   * @param cy the y coordinate of {@code c}.
+   * @return the orientation, see
+   * {@link #orientation(double, double, double, double, double, double)}.
+   */
+  static int orientationExact(double ax, double ay, double bx, double by, double cx, double cy) {
+    BigDecimal x = new BigDecimal(cx);
+    BigDecimal y = new BigDecimal(cy);
+
+    BigDecimal left = new BigDecimal(ax).subtract(x).multiply(new BigDecimal(by).subtract(y));
+    BigDecimal right = new BigDecimal(ay).subtract(y).multiply(new BigDecimal(bx).subtract(x));
+
+    return left.compareTo(right);
+  }
+
+  /**
+   * Indicates if the closed segments {@code ab} and {@code cd} share at least
+   * one point. Segments which touch at an end point or overlap along a common
+   * line intersect.
+   *
+   * @param ax the x coordinate of {@code a}.
+   * @param ay the y coordinate of {@code a}.
+   * @param bx the x coordinate of {@code b}.
+   * @param by the y coordinate of {@code b}.
+   * @param cx the x coordinate of {@code c}.
+   * @param cy the y coordinate of {@code c}.
+   * @param dx the x coordinate of {@code d}.
+   * @param dy the y coordinate of {@code d}.
+   * @return {@code true} if the segments intersect, {@code false} otherwise.
+   */
+  static boolean segmentsIntersect(double ax, double ay, double bx, double by, double cx, double cy, double dx, double dy) {
+    int abc = orientation(ax, ay, bx, by, cx, cy);
+    int abd = orientation(ax, ay, bx, by, dx, dy);
+
+    if (abc != 0 && abc == abd) {
+      // c and d on the same side of ab
+      return false;
+    }
+
+    int cda = orientation(cx, cy, dx, dy, ax, ay);
+    int cdb = orientation(cx, cy, dx, dy, bx, by);
+
+    if (cda != 0 && cda == cdb) {
+      // a and b on the same side of cd
+      return false;
+    }
+
+    if (abc != 0 || abd != 0 || cda != 0 || cdb != 0) {
+      // the segments straddle each other, or an end point lies on the other segment
+      return true;
+    }
+
+    // all four points are collinear, the segments intersect if their extents overlap
+    return Math.max(Math.min(ax, bx), Math.min(cx, dx)) <= Math.min(Math.max(ax, bx), Math.max(cx, dx))
+            && Math.max(Math.min(ay, by), Math.min(cy, dy)) <= Math.min(Math.max(ay, by), Math.max(cy, dy));
+  }
+
+  /**
+   * Retrieve the sign of a value.
+   *
+   * @param value the value.
+   * @return {@code 1}, {@code -1} or {@code 0}.
+   */
+  private static int signum(double value) {
+    return value > 0 ? 1 : value < 0 ? -1 : 0;
+  }
+
+}
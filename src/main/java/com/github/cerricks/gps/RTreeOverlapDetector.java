@@ -0,0 +1,128 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Finds every pair of overlapping regions by querying each region against a
+ * {@link StrTree} of all regions.
+ *
+ * <p>
+ * Only pairs whose bounding boxes intersect are passed to the exact
+ * {@link Region#overlaps(Region)} check, so the cost depends on the number of
+ * overlapping pairs rather than on the square of the number of regions.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+public class RTreeOverlapDetector {
+
+  /**
+   * The number of regions from which the queries are split across the common
+   * fork/join pool.
+   */
+  static final int PARALLEL_THRESHOLD = 50000;
+
+  /**
+   * Finds all pairs of overlapping regions.
+   *
+   * @param regions the regions to check.
+   * @return the indices (in the given list) of each pair of overlapping
+   * regions, lower index first, ordered by the lower then the higher index.
+   */
+  public List<int[]> findAllOverlaps(List<? extends Region> regions) {
+    return findAllOverlaps(regions, () -> false);
+  }
+
+  /**
+   * Finds all pairs of overlapping regions, skipping the remaining queries
+   * once the given condition holds.
+   *
+   * <p>
+   * The condition may be checked from the threads of the common fork/join
+   * pool, so it must not depend on the calling thread.
+   *
+   * @param regions the regions to check.
+   * @param cancelled indicates if the remaining queries should be skipped,
+   * checked before each query.
+   * @return the indices (in the given list) of each pair of overlapping
+   * regions, lower index first, ordered by the lower then the higher index.
+   * @throws CancellationException if queries were skipped, so the pairs found
+   * are incomplete.
+   */
+  public List<int[]> findAllOverlaps(List<? extends Region> regions, BooleanSupplier cancelled) {
+    StrTree tree = new StrTree(regions);
+
+    IntStream indices = IntStream.range(0, regions.size());
+
+    if (regions.size() >= PARALLEL_THRESHOLD) {
+      indices = indices.parallel();
+    }
+
+    AtomicBoolean stopped = new AtomicBoolean();
+
+    List<int[]> overlaps = indices.mapToObj(i -> {
+      if (stopped.get() || cancelled.getAsBoolean()) {
+        stopped.set(true);
+
+        return Collections.<int[]>emptyList();
+      }
+
+      return findOverlaps(tree, regions, i);
+    }).flatMap(List::stream).collect(Collectors.toList());
+
+    if (stopped.get()) {
+      throw new CancellationException();
+    }
+
+    return overlaps;
+  }
+
+  /**
+   * Finds the regions with a higher index overlapping the given region.
+   *
+   * @param tree the tree of all regions.
+   * @param regions the regions to check.
+   * @param index the index of the region to check.
+   * @return the overlapping pairs, ordered by the higher index.
+   */
+  private static List<int[]> findOverlaps(StrTree tree, List<? extends Region> regions, int index) {
+    Region region = regions.get(index);
+
+    List<int[]> overlaps = new ArrayList<>(0);
+
+    tree.search(region, other -> {
+      if (other > index && region.overlaps(regions.get(other))) {
+        overlaps.add(new int[]{index, other});
+      }
+    });
+
+    if (overlaps.size() > 1) {
+      overlaps.sort((a, b) -> Integer.compare(a[1], b[1]));
+    }
+
+    return overlaps;
+  }
+
+}
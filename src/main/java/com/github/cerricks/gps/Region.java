@@ -15,24 +15,61 @@
  */
 package com.github.cerricks.gps;
 
-import java.awt.geom.Line2D;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 /**
  * Represents a region bounded by 4 geographical coordinates.
  *
+ * <p>
+ * The coordinates are held internally as a packed array of longitude/latitude
+ * pairs ordered along the perimeter, so that the geometry checks below run as
+ * plain indexed loops without allocating. The array may be shared: a
+ * {@code Region} can also be a view of the vertices of one entry of a
+ * {@link SectorStore}.
+ *
  * @author Clifford Errickson
  * @since 1.0
  */
 public class Region {
 
-  private final List<Coordinates> coordinates;
+  /**
+   * The number of vertices making up a {@code Region}.
+   */
+  static final int VERTEX_COUNT = 4;
+
+  /**
+   * Marks a convex orientation that has not been computed yet.
+   */
+  static final int UNKNOWN_ORIENTATION = Integer.MIN_VALUE;
+
+  /**
+   * The number of doubles holding the vertices of a {@code Region}.
+   */
+  static final int VERTEX_LENGTH = VERTEX_COUNT * 2;
+
+  /**
+   * The ordered vertices as {@code [lon0, lat0, lon1, lat1, ...]}, starting at
+   * {@link #offset}.
+   */
+  private final double[] vertices;
+  private final int offset;
+  private final double minLatitude;
+  private final double maxLatitude;
+  private final double minLongitude;
+  private final double maxLongitude;
+  private final boolean axisAligned;
+
+  /**
+   * The orientation shared by every turn along the perimeter, {@code -1} or
+   * {@code 1}, {@code 0} if the {@code Region} is not strictly convex, or
+   * {@link #UNKNOWN_ORIENTATION} until first needed. Computing it lazily keeps
+   * it out of construction on the parsing thread; racing threads compute the
+   * same value.
+   */
+  private int convexOrientation = UNKNOWN_ORIENTATION;
+  private List<Coordinates> coordinates;
 
   /**
    * Creates a {@code Region} defined by 4 geographical coordinates. It is not
@@ -45,15 +82,136 @@ public class Region {
    * @param c4 the fourth coordinates.
    */
   public Region(Coordinates c1, Coordinates c2, Coordinates c3, Coordinates c4) {
-    this.coordinates = Collections.unmodifiableList(orderCoordinates(c1, c2, c3, c4));
+    this(c1.getLatitude(), c1.getLongitude(),
+            c2.getLatitude(), c2.getLongitude(),
+            c3.getLatitude(), c3.getLongitude(),
+            c4.getLatitude(), c4.getLongitude());
+  }
+
+  /**
+   * Creates a {@code Region} defined by 4 geographical coordinates given as
+   * latitude and longitude degrees. It is not necessary to provide coordinates
+   * in any particular order.
+   *
+   * @param lat1 the latitude of the first coordinates.
+   * @param lon1 the longitude of the first coordinates.
+   * @param lat2 the latitude of the second coordinates.
+   * @param lon2 the longitude of the second coordinates.
+   * @param lat3 the latitude of the third coordinates.
+   * @param lon3 the longitude of the third coordinates.
+   * @param lat4 the latitude of the fourth coordinates.
+   * @param lon4 the longitude of the fourth coordinates.
+   */
+  public Region(double lat1, double lon1, double lat2, double lon2, double lat3, double lon3, double lat4, double lon4) {
+    this.vertices = new double[VERTEX_LENGTH];
+    this.offset = 0;
+
+    vertices[0] = lon1;
+    vertices[1] = lat1;
+    vertices[2] = lon2;
+    vertices[3] = lat2;
+    vertices[4] = lon3;
+    vertices[5] = lat3;
+    vertices[6] = lon4;
+    vertices[7] = lat4;
+
+    orderVertices(vertices, 0);
+
+    this.minLatitude = Math.min(Math.min(lat1, lat2), Math.min(lat3, lat4));
+    this.maxLatitude = Math.max(Math.max(lat1, lat2), Math.max(lat3, lat4));
+    this.minLongitude = Math.min(Math.min(lon1, lon2), Math.min(lon3, lon4));
+    this.maxLongitude = Math.max(Math.max(lon1, lon2), Math.max(lon3, lon4));
+
+    this.axisAligned = isAxisAligned(vertices, 0, minLatitude, maxLatitude, minLongitude, maxLongitude);
+  }
+
+  /**
+   * Creates a {@code Region} viewing vertices already ordered along the
+   * perimeter, without copying them.
+   *
+   * @param vertices the packed vertices, see
+   * {@link #orderVertices(double[], int)}.
+   * @param offset the index of the first vertex in {@code vertices}.
+   * @param minLatitude the minimum latitude of the vertices.
+   * @param maxLatitude the maximum latitude of the vertices.
+   * @param minLongitude the minimum longitude of the vertices.
+   * @param maxLongitude the maximum longitude of the vertices.
+   * @param axisAligned whether the vertices are the corners of their bounding
+   * box.
+   * @param convexOrientation the convex orientation of the vertices, see
+   * {@link #convexOrientation(double[], int)}, or {@link #UNKNOWN_ORIENTATION}
+   * if not computed yet.
+   */
+  Region(double[] vertices, int offset, double minLatitude, double maxLatitude, double minLongitude, double maxLongitude,
+          boolean axisAligned, int convexOrientation) {
+    this.vertices = vertices;
+    this.offset = offset;
+    this.minLatitude = minLatitude;
+    this.maxLatitude = maxLatitude;
+    this.minLongitude = minLongitude;
+    this.maxLongitude = maxLongitude;
+    this.axisAligned = axisAligned;
+    this.convexOrientation = convexOrientation;
+  }
+
+  /**
+   * Determines whether packed vertices ordered along a perimeter are the
+   * corners of their bounding box.
+   *
+   * @param v the packed vertices.
+   * @param offset the index of the first vertex in {@code v}.
+   * @param minLatitude the minimum latitude of the vertices.
+   * @param maxLatitude the maximum latitude of the vertices.
+   * @param minLongitude the minimum longitude of the vertices.
+   * @param maxLongitude the maximum longitude of the vertices.
+   * @return {@code true} if the vertices are axis-aligned, {@code false}
+   * otherwise.
+   */
+  static boolean isAxisAligned(double[] v, int offset, double minLatitude, double maxLatitude, double minLongitude, double maxLongitude) {
+    // ordered corners of the bounding box
+    return v[offset] == minLongitude && v[offset + 1] == minLatitude
+            && v[offset + 2] == minLongitude && v[offset + 3] == maxLatitude
+            && v[offset + 4] == maxLongitude && v[offset + 5] == maxLatitude
+            && v[offset + 6] == maxLongitude && v[offset + 7] == minLatitude;
   }
 
   /**
-   * Orders coordinates in order along the path of the perimeter of the
+   * Determines whether packed vertices ordered along a perimeter form a
+   * strictly convex quadrilateral: every turn has the same, non-zero,
+   * orientation. Self-intersecting (bow-tie) and concave (dart) quadrilaterals
+   * have turns in both directions, degenerate ones have collinear turns.
+   *
+   * @param v the packed vertices.
+   * @param offset the index of the first vertex in {@code v}.
+   * @return the orientation of every turn, or {@code 0} if not strictly
+   * convex.
+   */
+  static int convexOrientation(double[] v, int offset) {
+    int orientation = 0;
+
+    for (int k = 0; k < VERTEX_LENGTH; k += 2) {
+      int i = offset + k;
+      int p = offset + (k + VERTEX_LENGTH - 2) % VERTEX_LENGTH;
+      int n = offset + (k + 2) % VERTEX_LENGTH;
+
+      int turn = Predicates.orientation(v[p], v[p + 1], v[i], v[i + 1], v[n], v[n + 1]);
+
+      if (turn == 0 || (orientation != 0 && turn != orientation)) {
+        return 0;
+      }
+
+      orientation = turn;
+    }
+
+    return orientation;
+  }
+
+  /**
+   * Orders vertices in place along the path of the perimeter of the
    * {@code Region}.
    *
    * <p>
-   * Coordinates will be ordered as follows:
+   * Vertices will be ordered as follows:
    *
    * <ol>
    * <li>Minimum Longitude (with minimum Latitude - in case of orthogonal
@@ -66,28 +224,67 @@ public class Region {
    * orientation)</li>
    * </ol>
    *
-   * @param c1 the first coordinates.
-   * @param c2 the second coordinates.
-   * @param c3 the third coordinates.
-   * @param c4 the forth coordinates.
-   * @return a list of {@code Coordinates} ordered along the perimeter of this
-   * {@code Region}.
+   * @param v the packed vertices to order.
+   * @param offset the index of the first vertex in {@code v}.
    */
-  private List<Coordinates> orderCoordinates(Coordinates c1, Coordinates c2, Coordinates c3, Coordinates c4) {
-    List<Coordinates> tmp = new ArrayList(Arrays.asList(c1, c2, c3, c4));
+  static void orderVertices(double[] v, int offset) {
+    // minimum longitude, then minimum latitude
+    int a = 0;
+
+    for (int i = 1; i < VERTEX_COUNT; i++) {
+      int cmp = Double.compare(v[offset + i * 2], v[offset + a * 2]);
+
+      if (cmp < 0 || (cmp == 0 && Double.compare(v[offset + i * 2 + 1], v[offset + a * 2 + 1]) < 0)) {
+        a = i;
+      }
+    }
+
+    swapVertices(v, offset, 0, a);
 
-    Coordinates a = tmp.stream().min(Comparator.comparing(Coordinates::getLongitude).thenComparing(Comparator.comparing(Coordinates::getLatitude))).get();
-    tmp.remove(a);
+    // maximum latitude, then minimum longitude
+    int b = 1;
 
-    Coordinates b = tmp.stream().max(Comparator.comparing(Coordinates::getLatitude).thenComparing(Comparator.comparing(Coordinates::getLongitude).reversed())).get();
-    tmp.remove(b);
+    for (int i = 2; i < VERTEX_COUNT; i++) {
+      int cmp = Double.compare(v[offset + i * 2 + 1], v[offset + b * 2 + 1]);
 
-    Coordinates c = tmp.stream().max(Comparator.comparing(Coordinates::getLongitude).thenComparing(Comparator.comparing(Coordinates::getLatitude))).get();
-    tmp.remove(c);
+      if (cmp > 0 || (cmp == 0 && Double.compare(v[offset + i * 2], v[offset + b * 2]) < 0)) {
+        b = i;
+      }
+    }
 
-    Coordinates d = tmp.get(0);
+    swapVertices(v, offset, 1, b);
 
-    return Arrays.asList(a, b, c, d);
+    // maximum longitude, then maximum latitude
+    int cmp = Double.compare(v[offset + 6], v[offset + 4]);
+
+    if (cmp > 0 || (cmp == 0 && Double.compare(v[offset + 7], v[offset + 5]) > 0)) {
+      swapVertices(v, offset, 2, 3);
+    }
+  }
+
+  /**
+   * Swaps 2 vertices in a packed vertex array.
+   *
+   * @param v the packed vertices.
+   * @param offset the index of the first vertex in {@code v}.
+   * @param i the index of the first vertex to swap.
+   * @param j the index of the second vertex to swap.
+   */
+  private static void swapVertices(double[] v, int offset, int i, int j) {
+    if (i == j) {
+      return;
+    }
+
+    int vi = offset + i * 2;
+    int vj = offset + j * 2;
+
+    double lon = v[vi];
+    double lat = v[vi + 1];
+
+    v[vi] = v[vj];
+    v[vi + 1] = v[vj + 1];
+    v[vj] = lon;
+    v[vj + 1] = lat;
   }
 
   /**
@@ -96,27 +293,150 @@ public class Region {
    * @return the {@code Coordinates} making up this {@code Region}.
    */
   public List<Coordinates> getCoordinates() {
+    if (coordinates == null) {
+      Coordinates[] tmp = new Coordinates[VERTEX_COUNT];
+
+      for (int i = 0; i < VERTEX_COUNT; i++) {
+        tmp[i] = new Coordinates(vertices[offset + i * 2 + 1], vertices[offset + i * 2]);
+      }
+
+      coordinates = Collections.unmodifiableList(Arrays.asList(tmp));
+    }
+
     return coordinates;
   }
 
   /**
-   * Retrieve the sides making up this {@code Region}.
+   * Retrieve the longitude of the vertex at the given index along the
+   * perimeter.
    *
-   * @return the sides making up this {@code Region}.
+   * @param index the vertex index.
+   * @return the longitude of the vertex.
    */
-  private Set<Line2D> getSides() {
-    Set<Line2D> sides = new HashSet<>();
+  double getLongitude(int index) {
+    return vertices[offset + index * 2];
+  }
 
-    for (int i = 0; i < coordinates.size(); i++) {
-      sides.add(new Line2D.Double(
-              coordinates.get(i).getLongitude(),
-              coordinates.get(i).getLatitude(),
-              coordinates.get((i + 1) % coordinates.size()).getLongitude(),
-              coordinates.get((i + 1) % coordinates.size()).getLatitude()
-      ));
+  /**
+   * Retrieve the latitude of the vertex at the given index along the perimeter.
+   *
+   * @param index the vertex index.
+   * @return the latitude of the vertex.
+   */
+  double getLatitude(int index) {
+    return vertices[offset + index * 2 + 1];
+  }
+
+  /**
+   * Indicates if this {@code Region} is a rectangle with sides of constant
+   * latitude and longitude, i.e. equal to its bounding box. Axis-aligned
+   * regions take cheaper paths through the geometry checks.
+   *
+   * @return {@code true} if this {@code Region} is axis-aligned, {@code false}
+   * otherwise.
+   */
+  boolean isAxisAligned() {
+    return axisAligned;
+  }
+
+  /**
+   * Indicates if this {@code Region} is a strictly convex quadrilateral, in
+   * which case overlap with other convex regions is decided by the separating
+   * axis test.
+   *
+   * @return {@code true} if this {@code Region} is convex, {@code false}
+   * otherwise.
+   */
+  boolean isConvex() {
+    return convexOrientation() != 0;
+  }
+
+  /**
+   * Retrieve the orientation shared by every turn along the perimeter,
+   * computing it on first use.
+   *
+   * @return the orientation of every turn, or {@code 0} if not strictly
+   * convex.
+   */
+  private int convexOrientation() {
+    int orientation = convexOrientation;
+
+    if (orientation == UNKNOWN_ORIENTATION) {
+      orientation = convexOrientation(vertices, offset);
+      convexOrientation = orientation;
     }
 
-    return sides;
+    return orientation;
+  }
+
+  /**
+   * Retrieve the minimum latitude of the bounding box of this {@code Region}.
+   *
+   * @return the minimum latitude of this {@code Region}.
+   */
+  public double getMinLatitude() {
+    return minLatitude;
+  }
+
+  /**
+   * Retrieve the maximum latitude of the bounding box of this {@code Region}.
+   *
+   * @return the maximum latitude of this {@code Region}.
+   */
+  public double getMaxLatitude() {
+    return maxLatitude;
+  }
+
+  /**
+   * Retrieve the minimum longitude of the bounding box of this {@code Region}.
+   *
+   * @return the minimum longitude of this {@code Region}.
+   */
+  public double getMinLongitude() {
+    return minLongitude;
+  }
+
+  /**
+   * Retrieve the maximum longitude of the bounding box of this {@code Region}.
+   *
+   * @return the maximum longitude of this {@code Region}.
+   */
+  public double getMaxLongitude() {
+    return maxLongitude;
+  }
+
+  /**
+   * Indicates if the bounding box of this {@code Region} intersects (or
+   * touches) the bounding box of the given {@code Region}.
+   *
+   * <p>
+   * Regions with disjoint bounding boxes can neither overlap nor intersect, so
+   * this is used to reject most pairs before any other geometry is checked.
+   *
+   * @param region the given {@code Region}.
+   * @return {@code true} if the bounding boxes intersect, {@code false}
+   * otherwise.
+   */
+  public boolean boundsIntersect(Region region) {
+    return minLongitude <= region.maxLongitude
+            && maxLongitude >= region.minLongitude
+            && minLatitude <= region.maxLatitude
+            && maxLatitude >= region.minLatitude;
+  }
+
+  /**
+   * Indicates if the bounding box of this {@code Region} contains the bounding
+   * box of the given {@code Region}.
+   *
+   * @param region the given {@code Region}.
+   * @return {@code true} if the bounding box of the given {@code Region} lies
+   * within the bounding box of this {@code Region}, {@code false} otherwise.
+   */
+  public boolean boundsContain(Region region) {
+    return minLongitude <= region.minLongitude
+            && maxLongitude >= region.maxLongitude
+            && minLatitude <= region.minLatitude
+            && maxLatitude >= region.maxLatitude;
   }
 
   /**
@@ -131,7 +451,25 @@ public class Region {
    * {@code Region}., {@code false} otherwise.
    */
   public boolean contains(Region region) {
-    return region.getCoordinates().stream().allMatch((c) -> (this.contains(c)));
+    if (axisAligned) {
+      // every vertex within the half-open box, see contains(double, double)
+      return region.minLatitude >= minLatitude && region.maxLatitude < maxLatitude
+              && region.minLongitude >= minLongitude && region.maxLongitude < maxLongitude;
+    }
+
+    if (!boundsContain(region)) {
+      return false;
+    }
+
+    double[] v = region.vertices;
+
+    for (int i = region.offset, end = i + VERTEX_LENGTH; i < end; i += 2) {
+      if (!contains(v[i + 1], v[i])) {
+        return false;
+      }
+    }
+
+    return true;
   }
 
   /**
@@ -147,7 +485,13 @@ public class Region {
    * {@code Rectangles}, {@code false} otherwise.
    */
   public boolean containsAll(List<? extends Region> regions) {
-    return regions.stream().allMatch((region) -> (this.contains(region)));
+    for (int i = 0; i < regions.size(); i++) {
+      if (!contains(regions.get(i))) {
+        return false;
+      }
+    }
+
+    return true;
   }
 
   /**
@@ -159,15 +503,59 @@ public class Region {
    * this {@code Region}, {@code false} otherwise.
    */
   public boolean contains(Coordinates c) {
+    return contains(c.getLatitude(), c.getLongitude());
+  }
+
+  /**
+   * Indicates if the given point is contained within this {@code Region}.
+   *
+   * @param latitude the degrees of latitude of the point.
+   * @param longitude the degrees of longitude of the point.
+   * @return {@code true} if the given point is contained within this
+   * {@code Region}, {@code false} otherwise.
+   */
+  public boolean contains(double latitude, double longitude) {
+    if (axisAligned) {
+      // the crossing test below includes the south and west sides but not the north and east sides
+      return latitude >= minLatitude && latitude < maxLatitude
+              && longitude >= minLongitude && longitude < maxLongitude;
+    }
+
+    return containsPolygon(latitude, longitude);
+  }
+
+  /**
+   * Indicates if the given point is contained within this {@code Region},
+   * using the crossing test for general quadrilaterals.
+   *
+   * <p>
+   * Following the usual insideness rule, a point on the perimeter is
+   * contained if the interior lies to its north or east. For an axis-aligned
+   * region that means the south and west sides are contained and the north and
+   * east sides are not.
+   *
+   * @param latitude the degrees of latitude of the point.
+   * @param longitude the degrees of longitude of the point.
+   * @return {@code true} if the given point is contained within this
+   * {@code Region}, {@code false} otherwise.
+   */
+  boolean containsPolygon(double latitude, double longitude) {
+    if (latitude < minLatitude || latitude > maxLatitude
+            || longitude < minLongitude || longitude > maxLongitude) {
+      return false;
+    }
+
     int hits = 0;
 
-    double lastx = coordinates.get(coordinates.size() - 1).getLongitude();
-    double lasty = coordinates.get(coordinates.size() - 1).getLatitude();
+    int end = offset + VERTEX_LENGTH;
+
+    double lastx = vertices[end - 2];
+    double lasty = vertices[end - 1];
     double curx, cury;
 
-    for (int i = 0; i < coordinates.size(); lastx = curx, lasty = cury, i++) {
-      curx = coordinates.get(i).getLongitude();
-      cury = coordinates.get(i).getLatitude();
+    for (int i = offset; i < end; lastx = curx, lasty = cury, i += 2) {
+      curx = vertices[i];
+      cury = vertices[i + 1];
 
       if (cury == lasty) {
         continue;
@@ -176,50 +564,47 @@ public class Region {
       double leftx;
 
       if (curx < lastx) {
-        if (c.getLongitude() >= lastx) {
+        if (longitude >= lastx) {
           continue;
         }
 
         leftx = curx;
       } else {
-        if (c.getLongitude() >= curx) {
+        if (longitude >= curx) {
           continue;
         }
 
         leftx = lastx;
       }
 
-      double test1, test2;
-
       if (cury < lasty) {
-        if (c.getLatitude() < cury || c.getLatitude() >= lasty) {
+        if (latitude < cury || latitude >= lasty) {
           continue;
         }
 
-        if (c.getLongitude() < leftx) {
+        if (longitude < leftx) {
           hits++;
           continue;
         }
 
-        test1 = c.getLongitude() - curx;
-        test2 = c.getLatitude() - cury;
+        // the ray crosses the edge if the point lies strictly left of it, pointing north
+        if (Predicates.orientation(curx, cury, lastx, lasty, longitude, latitude) > 0) {
+          hits++;
+        }
       } else {
-        if (c.getLatitude() < lasty || c.getLatitude() >= cury) {
+        if (latitude < lasty || latitude >= cury) {
           continue;
         }
 
-        if (c.getLongitude() < leftx) {
+        if (longitude < leftx) {
           hits++;
 
           continue;
         }
 
-        test1 = c.getLongitude() - lastx;
-        test2 = c.getLatitude() - lasty;
-      }
-
-      if (test1 < (test2 / (lasty - cury) * (lastx - curx))) {
-        hits++;
+        if (Predicates.orientation(lastx, lasty, curx, cury, longitude, latitude) > 0) {
+          hits++;
+        }
       }
     }
 
@@ -238,7 +623,28 @@ public class Region {
    * {@code Region} at any point, {@code false} otherwise.
    */
   public boolean intersects(Region region) {
-    return this.getSides().stream().anyMatch((side) -> (region.getSides().stream().anyMatch((otherSide) -> (side.intersectsLine(otherSide)))));
+    if (!boundsIntersect(region)) {
+      return false;
+    }
+
+    double[] a = this.vertices;
+    double[] b = region.vertices;
+
+    for (int ki = 0; ki < VERTEX_LENGTH; ki += 2) {
+      int i = offset + ki;
+      int ni = offset + (ki + 2) % VERTEX_LENGTH;
+
+      for (int kj = 0; kj < VERTEX_LENGTH; kj += 2) {
+        int j = region.offset + kj;
+        int nj = region.offset + (kj + 2) % VERTEX_LENGTH;
+
+        if (Predicates.segmentsIntersect(a[i], a[i + 1], a[ni], a[ni + 1], b[j], b[j + 1], b[nj], b[nj + 1])) {
+          return true;
+        }
+      }
+    }
+
+    return false;
   }
 
   /**
@@ -253,17 +659,156 @@ public class Region {
    * region.</li>
    * </ol>
    *
+   * <p>
+   * Pairs of axis-aligned regions are decided from their bounds and pairs of
+   * convex regions by the separating axis test, with the same result; other
+   * pairs take the general path.
+   *
    * @param region the given {@code Region}.
    * @return {@code true} if this {@code Region} overlaps the given
    * {@code Region}, {@code false} otherwise.
    */
   public boolean overlaps(Region region) {
-    // check if either region contains at least one coordinate from the other region
-    if (region.getCoordinates().stream().anyMatch((c) -> (this.contains(c)))
-            || this.getCoordinates().stream().anyMatch((c) -> (region.contains(c)))) {
+    if (!boundsIntersect(region)) {
+      return false;
+    }
+
+    // two rectangles with intersecting (closed) bounds either share a perimeter point or one lies inside the other
+    if (axisAligned && region.axisAligned) {
       return true;
     }
 
+    if (convexOrientation() != 0 && region.convexOrientation() != 0) {
+      // adjacent sectors share corners and overlapping sectors usually have a corner inside the other,
+      // either of which proves overlap without testing every side
+      return hasVertexWithin(region) || region.hasVertexWithin(this)
+              || (!hasSeparatingEdge(region) && !region.hasSeparatingEdge(this));
+    }
+
+    return overlapsPolygon(region);
+  }
+
+  /**
+   * Indicates if a vertex of the given {@code Region} is certainly within this
+   * convex {@code Region}: either equal to a vertex of this {@code Region} or
+   * strictly inside it.
+   *
+   * <p>
+   * Vertices outside the bounding box are rejected with a few comparisons.
+   * The vertices of a convex {@code Region} lie on its bounding box, so only
+   * vertices on the bounding box are compared with them, and only vertices
+   * strictly inside are tested against the sides. The sides are tested with
+   * the floating point filter alone; vertices too close to a side to decide
+   * cheaply are left to the separating axis test.
+   *
+   * @param region the given {@code Region}.
+   * @return {@code true} if a vertex of the given {@code Region} is within
+   * this {@code Region}, {@code false} if none is or it cannot be told
+   * cheaply.
+   */
+  private boolean hasVertexWithin(Region region) {
+    double[] a = vertices;
+    double[] b = region.vertices;
+    int aEnd = offset + VERTEX_LENGTH;
+
+    for (int j = region.offset, bEnd = j + VERTEX_LENGTH; j < bEnd; j += 2) {
+      double x = b[j];
+      double y = b[j + 1];
+
+      if (x < minLongitude || x > maxLongitude || y < minLatitude || y > maxLatitude) {
+        continue;
+      }
+
+      if (x == minLongitude || x == maxLongitude || y == minLatitude || y == maxLatitude) {
+        for (int i = offset; i < aEnd; i += 2) {
+          if (a[i] == x && a[i + 1] == y) {
+            return true;
+          }
+        }
+
+        continue;
+      }
+
+      int inside = convexOrientation();
+      int o = offset;
+
+      if (Predicates.isOnSide(a[o], a[o + 1], a[o + 2], a[o + 3], x, y, inside)
+              && Predicates.isOnSide(a[o + 2], a[o + 3], a[o + 4], a[o + 5], x, y, inside)
+              && Predicates.isOnSide(a[o + 4], a[o + 5], a[o + 6], a[o + 7], x, y, inside)
+              && Predicates.isOnSide(a[o + 6], a[o + 7], a[o], a[o + 1], x, y, inside)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Indicates if the line through a side of this convex {@code Region}
+   * separates it from the given {@code Region}, i.e. every vertex of the given
+   * {@code Region} lies strictly outside that side.
+   *
+   * <p>
+   * By the separating axis theorem two convex regions are disjoint if and only
+   * if the line through a side of one of them separates them. Testing the
+   * sides of both regions therefore decides overlap, counting touching regions
+   * as overlapping. Each test is an exact orientation predicate rather than a
+   * projection, so regions sharing a side or a vertex give deterministic
+   * results.
+   *
+   * @param region the given {@code Region}.
+   * @return {@code true} if a side of this {@code Region} separates the
+   * regions, {@code false} otherwise.
+   */
+  private boolean hasSeparatingEdge(Region region) {
+    double[] a = vertices;
+    double[] b = region.vertices;
+    int outside = -convexOrientation();
+    int bEnd = region.offset + VERTEX_LENGTH;
+
+    for (int k = 0; k < VERTEX_LENGTH; k += 2) {
+      int i = offset + k;
+      int n = offset + (k + 2) % VERTEX_LENGTH;
+
+      boolean separating = true;
+
+      for (int j = region.offset; j < bEnd && separating; j += 2) {
+        // outside means turning against the perimeter
+        separating = Predicates.orientation(a[i], a[i + 1], a[n], a[n + 1], b[j], b[j + 1]) == outside;
+      }
+
+      if (separating) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Indicates if this {@code Region} overlaps the given {@code Region}, using
+   * the checks for general quadrilaterals.
+   *
+   * @param region the given {@code Region}.
+   * @return {@code true} if this {@code Region} overlaps the given
+   * {@code Region}, {@code false} otherwise.
+   */
+  boolean overlapsPolygon(Region region) {
+    if (!boundsIntersect(region)) {
+      return false;
+    }
+
+    // check if either region contains at least one coordinate from the other region
+    for (int k = 0; k < VERTEX_LENGTH; k += 2) {
+      int i = offset + k;
+      int j = region.offset + k;
+
+      if (this.containsPolygon(region.vertices[j + 1], region.vertices[j])
+              || region.containsPolygon(vertices[i + 1], vertices[i])) {
+        return true;
+      }
+    }
+
     // check if the regions intersect at any point
     return this.intersects(region);
   }
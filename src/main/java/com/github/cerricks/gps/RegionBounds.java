@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.util.List;
+
+/**
+ * The bounding boxes of a list of regions, read by index.
+ *
+ * <p>
+ * The overlap detectors only need the bounding boxes of most regions. A
+ * {@link SectorStore} implements this interface to hand out the bounds
+ * straight from its columns, without creating a {@link Sector} view per
+ * region; other lists are read through their regions.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+interface RegionBounds {
+
+  /**
+   * Retrieve the number of regions.
+   *
+   * @return the number of regions.
+   */
+  int size();
+
+  /**
+   * Retrieve the minimum latitude of the bounding box of a region.
+   *
+   * @param index the index of the region.
+   * @return the minimum latitude.
+   */
+  double getMinLatitude(int index);
+
+  /**
+   * Retrieve the maximum latitude of the bounding box of a region.
+   *
+   * @param index the index of the region.
+   * @return the maximum latitude.
+   */
+  double getMaxLatitude(int index);
+
+  /**
+   * Retrieve the minimum longitude of the bounding box of a region.
+   *
+   * @param index the index of the region.
+   * @return the minimum longitude.
+   */
+  double getMinLongitude(int index);
+
+  /**
+   * Retrieve the maximum longitude of the bounding box of a region.
+   *
+   * @param index the index of the region.
+   * @return the maximum longitude.
+   */
+  double getMaxLongitude(int index);
+
+  /**
+   * Retrieve the bounding boxes of a list of regions.
+   *
+   * @param regions the regions.
+   * @return the list itself if it is a {@link SectorStore}, otherwise a view
+   * reading the bounds of each region.
+   */
+  static RegionBounds of(List<? extends Region> regions) {
+    if (regions instanceof RegionBounds) {
+      return (RegionBounds) regions;
+    }
+
+    return new RegionBounds() {
+      @Override
+      public int size() {
+        return regions.size();
+      }
+
+      @Override
+      public double getMinLatitude(int index) {
+        return regions.get(index).getMinLatitude();
+      }
+
+      @Override
+      public double getMaxLatitude(int index) {
+        return regions.get(index).getMaxLatitude();
+      }
+
+      @Override
+      public double getMinLongitude(int index) {
+        return regions.get(index).getMinLongitude();
+      }
+
+      @Override
+      public double getMaxLongitude(int index) {
+        return regions.get(index).getMaxLongitude();
+      }
+    };
+  }
+
+}
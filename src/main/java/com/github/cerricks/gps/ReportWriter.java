@@ -0,0 +1,150 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams the result of each area to a report file as soon as the area has
+ * been validated, so memory use does not depend on the number of areas.
+ *
+ * <p>
+ * A {@code ReportWriter} is a {@link ValidationListener}; the same writer can
+ * be passed to {@link GpsValidator#validate(File, ValidationListener)} for
+ * several files to produce a single report.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+public abstract class ReportWriter implements ValidationListener, Closeable {
+
+  /**
+   * The format of a report file.
+   */
+  public enum Format {
+
+    /**
+     * Comma separated values with a header row.
+     */
+    CSV,
+    /**
+     * A JSON array with one object per area.
+     */
+    JSON;
+
+    /**
+     * Determines the format of a report file from its extension. Files ending
+     * in {@code .json} are JSON, anything else is CSV.
+     *
+     * @param file the report file.
+     * @return the format of the report file.
+     */
+    public static Format of(File file) {
+      return file.getName().toLowerCase().endsWith(".json") ? JSON : CSV;
+    }
+
+  }
+
+  /**
+   * The writer of the report file.
+   */
+  protected final Writer writer;
+
+  /**
+   * The file currently being validated.
+   */
+  protected File file;
+
+  /**
+   * Creates a {@code ReportWriter}.
+   *
+   * @param writer the writer of the report file.
+   */
+  protected ReportWriter(Writer writer) {
+    this.writer = writer;
+  }
+
+  /**
+   * Opens a report file, choosing the format from its extension.
+   *
+   * @param report the report file to write.
+   * @return the report writer.
+   * @throws IOException if the report file cannot be opened.
+   */
+  public static ReportWriter open(File report) throws IOException {
+    return open(report, Format.of(report));
+  }
+
+  /**
+   * Opens a report file.
+   *
+   * @param report the report file to write.
+   * @param format the format of the report.
+   * @return the report writer.
+   * @throws IOException if the report file cannot be opened.
+   */
+  public static ReportWriter open(File report, Format format) throws IOException {
+    Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(report), StandardCharsets.UTF_8));
+
+    try {
+      return format == Format.JSON ? new JsonReportWriter(writer) : new CsvReportWriter(writer);
+    } catch (IOException | RuntimeException ex) {
+      writer.close();
+
+      throw ex;
+    }
+  }
+
+  @Override
+  public void fileStarted(File file) {
+    this.file = file;
+  }
+
+  @Override
+  public void message(String message) {
+  }
+
+  @Override
+  public void areaValidated(AreaResult result) {
+    try {
+      write(result);
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Failed to write report", ex);
+    }
+  }
+
+  /**
+   * Writes the result of an area to the report.
+   *
+   * @param result the result of an area.
+   * @throws IOException if the report cannot be written.
+   */
+  protected abstract void write(AreaResult result) throws IOException;
+
+  @Override
+  public void close() throws IOException {
+    writer.close();
+  }
+
+}
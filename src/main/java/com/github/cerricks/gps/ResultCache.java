@@ -0,0 +1,397 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A persistent cache of area results, keyed by file path, area id and a hash
+ * of the rows of the area.
+ *
+ * <p>
+ * Each validated file has its own cache file in the cache directory. The cache
+ * is loaded when validation of the file starts and replaced by the results of
+ * the areas seen in the run once validation completes, so areas removed from
+ * the file are dropped from the cache.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+class ResultCache {
+
+  private static final Logger logger = LogManager.getLogger(ResultCache.class);
+
+  /**
+   * The version of the cache file format and of the validation rules. Cache
+   * files of other versions are ignored.
+   */
+  static final int FORMAT_VERSION = 1;
+
+  private final File cacheFile;
+  private final String path;
+  private final boolean allViolations;
+  private final Map<String, Entry> previous;
+  private final Map<String, Entry> current = new ConcurrentHashMap<>();
+  private final AtomicInteger hits = new AtomicInteger();
+
+  /**
+   * Creates a {@code ResultCache}.
+   *
+   * @param cacheFile the cache file.
+   * @param path the canonical path of the validated file.
+   * @param allViolations whether results list every violation.
+   * @param previous the entries loaded from the cache file.
+   */
+  private ResultCache(File cacheFile, String path, boolean allViolations, Map<String, Entry> previous) {
+    this.cacheFile = cacheFile;
+    this.path = path;
+    this.allViolations = allViolations;
+    this.previous = previous;
+  }
+
+  /**
+   * The default cache directory, {@code .gps-validator/cache} in the user's
+   * home directory.
+   *
+   * @return the default cache directory.
+   */
+  static File defaultDirectory() {
+    return new File(new File(System.getProperty("user.home"), ".gps-validator"), "cache");
+  }
+
+  /**
+   * Opens the cache of a file, loading the results of the previous run.
+   *
+   * <p>
+   * A missing, unreadable or outdated cache file is treated as empty.
+   *
+   * @param directory the cache directory.
+   * @param file the file being validated.
+   * @param allViolations whether results list every violation (see
+   * {@link GpsValidator#setReportAllViolations(boolean)}). Results of the
+   * other mode are not reused.
+   * @return the cache.
+   * @throws IOException if the path of the file cannot be resolved.
+   */
+  static ResultCache open(File directory, File file, boolean allViolations) throws IOException {
+    String path = file.getCanonicalPath();
+    File cacheFile = new File(directory, sha256(path) + ".cache");
+
+    Map<String, Entry> previous = Collections.emptyMap();
+
+    if (cacheFile.isFile()) {
+      try {
+        previous = load(cacheFile, path, allViolations);
+      } catch (IOException | RuntimeException ex) {
+        logger.warn("Ignoring unreadable cache file " + cacheFile, ex);
+      }
+    }
+
+    return new ResultCache(cacheFile, path, allViolations, previous);
+  }
+
+  /**
+   * Retrieve the cached result of an area, if the rows of the area are
+   * unchanged. A result found is kept for the next run.
+   *
+   * @param areaId the id of the area.
+   * @param hash1 the first half of the hash of the rows of the area.
+   * @param hash2 the second half of the hash of the rows of the area.
+   * @return the cached result, or {@code null} if none.
+   */
+  AreaResult get(String areaId, long hash1, long hash2) {
+    Entry entry = previous.get(areaId);
+
+    if (entry == null || entry.hash1 != hash1 || entry.hash2 != hash2) {
+      return null;
+    }
+
+    current.put(areaId, entry);
+    hits.incrementAndGet();
+
+    return entry.result;
+  }
+
+  /**
+   * Stores the result of an area. May be called from any thread.
+   *
+   * @param result the result of the area.
+   * @param hash1 the first half of the hash of the rows of the area.
+   * @param hash2 the second half of the hash of the rows of the area.
+   */
+  void put(AreaResult result, long hash1, long hash2) {
+    current.put(result.getAreaId(), new Entry(hash1, hash2, result));
+  }
+
+  /**
+   * Retrieve the number of areas whose result was reused.
+   *
+   * @return the number of cache hits.
+   */
+  int getHits() {
+    return hits.get();
+  }
+
+  /**
+   * Writes the results stored in this run to the cache file, replacing it
+   * atomically.
+   *
+   * @throws IOException if the cache file cannot be written.
+   */
+  void save() throws IOException {
+    File directory = cacheFile.getParentFile();
+
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Cannot create cache directory " + directory);
+    }
+
+    File temporary = File.createTempFile("gps-cache-", ".tmp", directory);
+
+    try {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(path);
+        out.writeBoolean(allViolations);
+        out.writeInt(current.size());
+
+        for (Entry entry : current.values()) {
+          out.writeLong(entry.hash1);
+          out.writeLong(entry.hash2);
+          writeResult(out, entry.result);
+        }
+      }
+
+      Files.move(temporary.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      temporary.delete();
+    }
+  }
+
+  /**
+   * Loads the entries of a cache file.
+   *
+   * @param cacheFile the cache file.
+   * @param path the canonical path of the validated file.
+   * @param allViolations whether results list every violation.
+   * @return the entries, empty if the cache file is for another version, file
+   * or mode.
+   * @throws IOException if the cache file cannot be read.
+   */
+  private static Map<String, Entry> load(File cacheFile, String path, boolean allViolations) throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+      if (in.readInt() != FORMAT_VERSION || !in.readUTF().equals(path) || in.readBoolean() != allViolations) {
+        return Collections.emptyMap();
+      }
+
+      int count = in.readInt();
+
+      Map<String, Entry> entries = new ConcurrentHashMap<>(count * 2);
+
+      for (int i = 0; i < count; i++) {
+        long hash1 = in.readLong();
+        long hash2 = in.readLong();
+        AreaResult result = readResult(in, allViolations);
+
+        entries.put(result.getAreaId(), new Entry(hash1, hash2, result));
+      }
+
+      return entries;
+    }
+  }
+
+  private static void writeResult(DataOutputStream out, AreaResult result) throws IOException {
+    out.writeUTF(result.getAreaId());
+    out.writeUTF(result.getVerdict().name());
+    writeIds(out, result.getOffendingSectorIds());
+    out.writeInt(result.getViolations().size());
+
+    for (AreaResult.Violation violation : result.getViolations()) {
+      out.writeUTF(violation.getVerdict().name());
+      writeIds(out, violation.getSectorIds());
+    }
+  }
+
+  private static AreaResult readResult(DataInputStream in, boolean allViolations) throws IOException {
+    String areaId = in.readUTF();
+    AreaResult.Verdict verdict = AreaResult.Verdict.valueOf(in.readUTF());
+    List<String> offendingSectorIds = readIds(in);
+
+    int count = in.readInt();
+
+    List<AreaResult.Violation> violations = new ArrayList<>(count);
+
+    for (int i = 0; i < count; i++) {
+      AreaResult.Verdict violationVerdict = AreaResult.Verdict.valueOf(in.readUTF());
+
+      violations.add(new AreaResult.Violation(violationVerdict, readIds(in).toArray(new String[0])));
+    }
+
+    return allViolations ? new AreaResult(areaId, violations) : new AreaResult(areaId, verdict, offendingSectorIds);
+  }
+
+  private static void writeIds(DataOutputStream out, List<String> ids) throws IOException {
+    out.writeInt(ids.size());
+
+    for (String id : ids) {
+      out.writeUTF(id);
+    }
+  }
+
+  private static List<String> readIds(DataInputStream in) throws IOException {
+    int count = in.readInt();
+
+    List<String> ids = new ArrayList<>(count);
+
+    for (int i = 0; i < count; i++) {
+      ids.add(in.readUTF());
+    }
+
+    return ids;
+  }
+
+  /**
+   * Computes the SHA-256 of a string as hex.
+   *
+   * @param value the string.
+   * @return the SHA-256 as hex.
+   */
+  private static String sha256(String value) {
+    try {
+      StringBuilder hex = new StringBuilder();
+
+      for (byte b : MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8))) {
+        hex.append(String.format("%02x", b));
+      }
+
+      return hex.toString();
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  /**
+   * A cached result and the hash of the rows it was computed from.
+   */
+  private static class Entry {
+
+    private final long hash1;
+    private final long hash2;
+    private final AreaResult result;
+
+    Entry(long hash1, long hash2, AreaResult result) {
+      this.hash1 = hash1;
+      this.hash2 = hash2;
+      this.result = result;
+    }
+
+  }
+
+  /**
+   * Computes a 128-bit hash of the rows of an area as they are read.
+   *
+   * <p>
+   * The hash covers the area coordinates and the id and coordinates of each
+   * sector, in order. It is not cryptographic, but two independently mixed 64
+   * bit lanes make an accidental match between different content practically
+   * impossible.
+   */
+  static class Hasher {
+
+    private long hash1;
+    private long hash2;
+
+    /**
+     * Starts hashing a new area.
+     *
+     * @param record the first row of the area.
+     */
+    void reset(SectorRecord record) {
+      hash1 = 0x243F6A8885A308D3L;
+      hash2 = 0x13198A2E03707344L;
+
+      for (double value : record.area) {
+        add(Double.doubleToLongBits(value));
+      }
+    }
+
+    /**
+     * Adds a row of the area.
+     *
+     * @param record the row.
+     */
+    void add(SectorRecord record) {
+      String sectorId = record.sectorId;
+
+      add(sectorId.length());
+
+      for (int i = 0; i < sectorId.length(); i++) {
+        add(sectorId.charAt(i));
+      }
+
+      for (double value : record.sector) {
+        add(Double.doubleToLongBits(value));
+      }
+    }
+
+    private void add(long value) {
+      hash1 = Long.rotateLeft(hash1 ^ mix(value), 27) * 0x9E3779B97F4A7C15L + 0x52DCE729L;
+      hash2 = Long.rotateLeft(hash2 ^ mix(value ^ 0xC2B2AE3D27D4EB4FL), 31) * 0xC2B2AE3D27D4EB4FL + 0x38495AB5L;
+    }
+
+    /**
+     * The MurmurHash3 64-bit finalizer.
+     */
+    private static long mix(long value) {
+      value ^= value >>> 33;
+      value *= 0xFF51AFD7ED558CCDL;
+      value ^= value >>> 33;
+      value *= 0xC4CEB9FE1A85EC53L;
+      value ^= value >>> 33;
+
+      return value;
+    }
+
+    long getHash1() {
+      return hash1;
+    }
+
+    long getHash2() {
+      return hash2;
+    }
+
+  }
+
+}
@@ -40,6 +40,49 @@ public class Sector extends Region {
     this.id = id;
   }
 
+  /**
+   * Creates a {@code Sector} with given coordinates as latitude and longitude
+   * degrees. It is not necessary to provide coordinates in any particular
+   * order.
+   *
+   * @param id the id of this {@code Sector}.
+   * @param lat1 the latitude of the first coordinates.
+   * @param lon1 the longitude of the first coordinates.
+   * @param lat2 the latitude of the second coordinates.
+   * @param lon2 the longitude of the second coordinates.
+   * @param lat3 the latitude of the third coordinates.
+   * @param lon3 the longitude of the third coordinates.
+   * @param lat4 the latitude of the fourth coordinates.
+   * @param lon4 the longitude of the fourth coordinates.
+   */
+  public Sector(String id, double lat1, double lon1, double lat2, double lon2, double lat3, double lon3, double lat4, double lon4) {
+    super(lat1, lon1, lat2, lon2, lat3, lon3, lat4, lon4);
+    this.id = id;
+  }
+
+  /**
+   * Creates a {@code Sector} viewing vertices already ordered along the
+   * perimeter, without copying them. See
+   * {@link Region#Region(double[], int, double, double, double, double, boolean, int)}.
+   *
+   * @param id the id of this {@code Sector}, or {@code null} if
+   * {@link #getId()} is overridden.
+   * @param vertices the packed vertices.
+   * @param offset the index of the first vertex in {@code vertices}.
+   * @param minLatitude the minimum latitude of the vertices.
+   * @param maxLatitude the maximum latitude of the vertices.
+   * @param minLongitude the minimum longitude of the vertices.
+   * @param maxLongitude the maximum longitude of the vertices.
+   * @param axisAligned whether the vertices are the corners of their bounding
+   * box.
+   * @param convexOrientation the convex orientation of the vertices.
+   */
+  Sector(String id, double[] vertices, int offset, double minLatitude, double maxLatitude, double minLongitude, double maxLongitude,
+          boolean axisAligned, int convexOrientation) {
+    super(vertices, offset, minLatitude, maxLatitude, minLongitude, maxLongitude, axisAligned, convexOrientation);
+    this.id = id;
+  }
+
   /**
    * Retrieve the id of this {@code Sector}.
    *
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+/**
+ * A single row of the input: one sector and the area it belongs to.
+ *
+ * <p>
+ * A {@code SectorRecord} is mutable and reused for every row read by a
+ * {@link SectorRecordReader}, so that reading does not allocate per row.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+class SectorRecord {
+
+  /**
+   * The names of the columns read from the input.
+   */
+  static final String COLUMN_AREA_ID = "AreaID";
+  static final String[] COLUMNS_AREA = {"ALat1", "ALon1", "ALat2", "ALon2"};
+  static final String COLUMN_SECTOR_ID = "SectorID";
+  static final String[] COLUMNS_SECTOR = {"c1", "d1", "c2", "d2", "c3", "d3", "c4", "d4"};
+
+  /**
+   * The id of the area. Readers return the same {@code String} instance for
+   * consecutive rows of the same area.
+   */
+  String areaId;
+
+  /**
+   * The area diagonal coordinates as {@code [lat1, lon1, lat2, lon2]}.
+   */
+  final double[] area = new double[4];
+
+  /**
+   * The id of the sector.
+   */
+  String sectorId;
+
+  /**
+   * The sector coordinates as {@code [lat1, lon1, lat2, lon2, ...]}.
+   */
+  final double[] sector = new double[8];
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Reads {@link SectorRecord}s from an input file.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+interface SectorRecordReader extends Closeable {
+
+  /**
+   * Reads the next row into the given record.
+   *
+   * @param record the record to populate.
+   * @return {@code true} if a row was read, {@code false} at the end of the
+   * input.
+   * @throws IOException if the input cannot be read or is malformed.
+   */
+  boolean read(SectorRecord record) throws IOException;
+
+  /**
+   * Retrieve the number of bytes of the input consumed so far.
+   *
+   * @return the number of bytes consumed so far.
+   */
+  long getBytesRead();
+
+  /**
+   * Opens a reader for the given file.
+   *
+   * <p>
+   * Files in the binary format (see {@link BinarySectorFile}) are read without
+   * parsing by {@link BinarySectorRecordReader}. Gzip files (see
+   * {@link #isGzip(File)}) are decompressed on a separate thread while parsing
+   * (see {@link GzipPipeInputStream}) and progress is reported in compressed
+   * bytes. Other regular files in an ASCII compatible charset are
+   * memory-mapped and parsed directly from bytes (see
+   * {@link MappedCsvSectorRecordReader}). Anything else is read with Commons
+   * CSV (see {@link CsvSectorRecordReader}).
+   *
+   * @param file the file to read.
+   * @param charset the charset of the file.
+   * @return the reader.
+   * @throws IOException if the file cannot be opened.
+   */
+  static SectorRecordReader open(File file, Charset charset) throws IOException {
+    if (BinarySectorFile.isBinary(file)) {
+      return new BinarySectorRecordReader(file);
+    }
+
+    if (isGzip(file)) {
+      GzipPipeInputStream input = new GzipPipeInputStream(file);
+
+      return new CsvSectorRecordReader(input, charset, input::getCompressedBytesRead);
+    }
+
+    if (file.isFile() && isAsciiCompatible(charset)) {
+      return new MappedCsvSectorRecordReader(file, charset);
+    }
+
+    return new CsvSectorRecordReader(file, charset);
+  }
+
+  /**
+   * Indicates if the given file is gzip compressed, going by its name.
+   *
+   * @param file the file.
+   * @return {@code true} if the name of the file ends in {@code .gz}.
+   */
+  static boolean isGzip(File file) {
+    return file.getName().toLowerCase(Locale.ROOT).endsWith(".gz");
+  }
+
+  /**
+   * Indicates if the CSV structural characters are encoded as single ASCII
+   * bytes in the given charset.
+   *
+   * @param charset the charset.
+   * @return {@code true} if the given charset is ASCII compatible.
+   */
+  static boolean isAsciiCompatible(Charset charset) {
+    String structure = ",\"\r\n.-+0123456789eE";
+
+    return Arrays.equals(structure.getBytes(charset), structure.getBytes(StandardCharsets.US_ASCII));
+  }
+
+}
@@ -0,0 +1,359 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Off-heap columns of a {@link SectorStore}, kept in memory-mapped temporary
+ * files so that the sectors of an area need not fit in the heap.
+ *
+ * <p>
+ * Each sector is a fixed size record holding its ordered vertices, bounding
+ * box, axis-alignment, convex orientation and the position of its id, which
+ * is packed as UTF-8 into a second file. Both files are mapped in segments as
+ * they grow, and records and ids never span segments, so every field is read
+ * with a single absolute get. The operating system pages the files in and out
+ * as needed.
+ *
+ * <p>
+ * Like a {@code SectorStore}, a {@code SectorSpill} is filled by a single
+ * thread and may then be read by several threads.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+class SectorSpill implements Closeable {
+
+  private static final int BOX_OFFSET = Region.VERTEX_LENGTH * Double.BYTES;
+  private static final int ID_POSITION_OFFSET = BOX_OFFSET + 4 * Double.BYTES;
+  private static final int ID_LENGTH_OFFSET = ID_POSITION_OFFSET + Long.BYTES;
+  private static final int AXIS_ALIGNED_OFFSET = ID_LENGTH_OFFSET + Integer.BYTES;
+  private static final int ORIENTATION_OFFSET = AXIS_ALIGNED_OFFSET + 1;
+
+  /**
+   * The size of a record in bytes, padded to a multiple of 8.
+   */
+  static final int RECORD_BYTES = (ORIENTATION_OFFSET + 1 + 7) & ~7;
+
+  /**
+   * The number of records in a segment of the record file (112 MB).
+   */
+  private static final int RECORDS_PER_SEGMENT = 1 << 20;
+
+  /**
+   * The size of a segment of the id file (64 MB), and so the maximum length of
+   * an id in bytes.
+   */
+  private static final int ID_SEGMENT_BYTES = 1 << 26;
+
+  /**
+   * Marks a convex orientation that has not been computed yet.
+   */
+  private static final byte UNKNOWN_ORIENTATION = Byte.MIN_VALUE;
+
+  private final File recordFile;
+  private final File idFile;
+  private final RandomAccessFile records;
+  private final RandomAccessFile ids;
+  private final List<MappedByteBuffer> recordSegments = new ArrayList<>();
+  private final List<MappedByteBuffer> idSegments = new ArrayList<>();
+
+  /**
+   * The position in the id file at which the next id is written.
+   */
+  private long idPosition;
+
+  private int size;
+
+  /**
+   * Creates an empty {@code SectorSpill} backed by new temporary files.
+   *
+   * @throws IOException if the temporary files cannot be created.
+   */
+  SectorSpill() throws IOException {
+    this.recordFile = createSpillFile();
+    this.idFile = createSpillFile();
+    this.records = new RandomAccessFile(recordFile, "rw");
+    this.ids = new RandomAccessFile(idFile, "rw");
+  }
+
+  /**
+   * Creates a temporary spill file.
+   *
+   * @return the spill file.
+   * @throws IOException if the file cannot be created.
+   */
+  private static File createSpillFile() throws IOException {
+    File spill = File.createTempFile("gps-sectors-", ".spill");
+    spill.deleteOnExit();
+
+    return spill;
+  }
+
+  /**
+   * Adds a sector whose vertices are already ordered along the perimeter.
+   *
+   * @param id the id of the sector.
+   * @param v the packed vertices, see {@link Region#orderVertices(double[], int)}.
+   * @param offset the index of the first vertex in {@code v}.
+   * @param minLatitude the minimum latitude of the vertices.
+   * @param maxLatitude the maximum latitude of the vertices.
+   * @param minLongitude the minimum longitude of the vertices.
+   * @param maxLongitude the maximum longitude of the vertices.
+   * @param axisAligned whether the vertices are the corners of their bounding
+   * box.
+   * @throws IOException if the spill files cannot be grown.
+   */
+  void add(String id, double[] v, int offset, double minLatitude, double maxLatitude, double minLongitude, double maxLongitude,
+          boolean axisAligned) throws IOException {
+    byte[] encoded = id.getBytes(StandardCharsets.UTF_8);
+
+    if (encoded.length > ID_SEGMENT_BYTES) {
+      throw new IllegalArgumentException("Sector id too long: " + encoded.length + " bytes");
+    }
+
+    // start the id in the next segment rather than span two
+    long segmentEnd = (idPosition / ID_SEGMENT_BYTES + 1) * ID_SEGMENT_BYTES;
+
+    if (idPosition + encoded.length > segmentEnd) {
+      idPosition = segmentEnd;
+    }
+
+    MappedByteBuffer idSegment = segment(ids, idSegments, idPosition / ID_SEGMENT_BYTES, ID_SEGMENT_BYTES);
+    int idOffset = (int) (idPosition % ID_SEGMENT_BYTES);
+
+    for (int i = 0; i < encoded.length; i++) {
+      idSegment.put(idOffset + i, encoded[i]);
+    }
+
+    MappedByteBuffer segment = segment(records, recordSegments, size / RECORDS_PER_SEGMENT, RECORDS_PER_SEGMENT * RECORD_BYTES);
+    int record = recordOffset(size);
+
+    for (int i = 0; i < Region.VERTEX_LENGTH; i++) {
+      segment.putDouble(record + i * Double.BYTES, v[offset + i]);
+    }
+
+    segment.putDouble(record + BOX_OFFSET, minLatitude);
+    segment.putDouble(record + BOX_OFFSET + Double.BYTES, maxLatitude);
+    segment.putDouble(record + BOX_OFFSET + 2 * Double.BYTES, minLongitude);
+    segment.putDouble(record + BOX_OFFSET + 3 * Double.BYTES, maxLongitude);
+    segment.putLong(record + ID_POSITION_OFFSET, idPosition);
+    segment.putInt(record + ID_LENGTH_OFFSET, encoded.length);
+    segment.put(record + AXIS_ALIGNED_OFFSET, (byte) (axisAligned ? 1 : 0));
+    segment.put(record + ORIENTATION_OFFSET, UNKNOWN_ORIENTATION);
+
+    idPosition += encoded.length;
+    size++;
+  }
+
+  /**
+   * Retrieve a segment of a spill file, mapping it (and any segment before
+   * it) if not mapped yet.
+   *
+   * @param file the spill file.
+   * @param segments the mapped segments of the file.
+   * @param index the index of the segment.
+   * @param segmentBytes the size of a segment in bytes.
+   * @return the segment.
+   * @throws IOException if the segment cannot be mapped.
+   */
+  private static MappedByteBuffer segment(RandomAccessFile file, List<MappedByteBuffer> segments, long index, int segmentBytes) throws IOException {
+    while (segments.size() <= index) {
+      segments.add(file.getChannel().map(FileChannel.MapMode.READ_WRITE, (long) segments.size() * segmentBytes, segmentBytes));
+    }
+
+    return segments.get((int) index);
+  }
+
+  /**
+   * Retrieve the offset of a record within its segment.
+   *
+   * @param index the index of the sector.
+   * @return the offset of the record.
+   */
+  private static int recordOffset(int index) {
+    return (index % RECORDS_PER_SEGMENT) * RECORD_BYTES;
+  }
+
+  /**
+   * Retrieve the segment holding a record.
+   *
+   * @param index the index of the sector.
+   * @return the segment.
+   */
+  private MappedByteBuffer recordSegment(int index) {
+    return recordSegments.get(index / RECORDS_PER_SEGMENT);
+  }
+
+  /**
+   * Retrieve the number of sectors in this spill.
+   *
+   * @return the number of sectors.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Copies the ordered vertices of a sector.
+   *
+   * @param index the index of the sector.
+   * @param v the array to copy the packed vertices to, from index {@code 0}.
+   */
+  void getVertices(int index, double[] v) {
+    MappedByteBuffer segment = recordSegment(index);
+    int record = recordOffset(index);
+
+    for (int i = 0; i < Region.VERTEX_LENGTH; i++) {
+      v[i] = segment.getDouble(record + i * Double.BYTES);
+    }
+  }
+
+  /**
+   * Retrieve the minimum latitude of the bounding box of a sector.
+   *
+   * @param index the index of the sector.
+   * @return the minimum latitude.
+   */
+  double getMinLatitude(int index) {
+    return recordSegment(index).getDouble(recordOffset(index) + BOX_OFFSET);
+  }
+
+  /**
+   * Retrieve the maximum latitude of the bounding box of a sector.
+   *
+   * @param index the index of the sector.
+   * @return the maximum latitude.
+   */
+  double getMaxLatitude(int index) {
+    return recordSegment(index).getDouble(recordOffset(index) + BOX_OFFSET + Double.BYTES);
+  }
+
+  /**
+   * Retrieve the minimum longitude of the bounding box of a sector.
+   *
+   * @param index the index of the sector.
+   * @return the minimum longitude.
+   */
+  double getMinLongitude(int index) {
+    return recordSegment(index).getDouble(recordOffset(index) + BOX_OFFSET + 2 * Double.BYTES);
+  }
+
+  /**
+   * Retrieve the maximum longitude of the bounding box of a sector.
+   *
+   * @param index the index of the sector.
+   * @return the maximum longitude.
+   */
+  double getMaxLongitude(int index) {
+    return recordSegment(index).getDouble(recordOffset(index) + BOX_OFFSET + 3 * Double.BYTES);
+  }
+
+  /**
+   * Indicates if a sector is the rectangle of its bounding box.
+   *
+   * @param index the index of the sector.
+   * @return {@code true} if the sector is axis-aligned, {@code false}
+   * otherwise.
+   */
+  boolean isAxisAligned(int index) {
+    return recordSegment(index).get(recordOffset(index) + AXIS_ALIGNED_OFFSET) != 0;
+  }
+
+  /**
+   * Retrieve the convex orientation of a sector, computing it from the given
+   * vertices on first access; racing threads compute the same value.
+   *
+   * @param index the index of the sector.
+   * @param v the packed vertices of the sector, from index {@code 0}.
+   * @return the convex orientation, see
+   * {@link Region#convexOrientation(double[], int)}.
+   */
+  int getConvexOrientation(int index, double[] v) {
+    MappedByteBuffer segment = recordSegment(index);
+    int record = recordOffset(index);
+
+    int orientation = segment.get(record + ORIENTATION_OFFSET);
+
+    if (orientation == UNKNOWN_ORIENTATION) {
+      orientation = Region.convexOrientation(v, 0);
+      segment.put(record + ORIENTATION_OFFSET, (byte) orientation);
+    }
+
+    return orientation;
+  }
+
+  /**
+   * Retrieve the id of a sector.
+   *
+   * @param index the index of the sector.
+   * @return the id of the sector.
+   */
+  String getId(int index) {
+    MappedByteBuffer segment = recordSegment(index);
+    int record = recordOffset(index);
+
+    long position = segment.getLong(record + ID_POSITION_OFFSET);
+    int length = segment.getInt(record + ID_LENGTH_OFFSET);
+
+    MappedByteBuffer idSegment = idSegments.get((int) (position / ID_SEGMENT_BYTES));
+    int idOffset = (int) (position % ID_SEGMENT_BYTES);
+
+    byte[] encoded = new byte[length];
+
+    for (int i = 0; i < length; i++) {
+      encoded[i] = idSegment.get(idOffset + i);
+    }
+
+    return new String(encoded, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Closes and deletes the spill files. The mappings are released once no
+   * longer reachable; where the platform does not allow deleting a mapped
+   * file it is deleted on exit instead.
+   */
+  @Override
+  public void close() {
+    recordSegments.clear();
+    idSegments.clear();
+
+    try {
+      records.close();
+    } catch (IOException ex) {
+      // nothing left to release
+    }
+
+    try {
+      ids.close();
+    } catch (IOException ex) {
+      // nothing left to release
+    }
+
+    recordFile.delete();
+    idFile.delete();
+  }
+
+}
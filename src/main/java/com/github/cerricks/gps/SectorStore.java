@@ -0,0 +1,524 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Holds the sectors of an area in columns of primitive arrays rather than as
+ * individual objects.
+ *
+ * <p>
+ * The ordered vertices of every sector share one array, as do their bounding
+ * boxes, and the ids are packed as UTF-8 into a single byte array with an end
+ * offset per sector. No object is kept per sector, which cuts the heap needed
+ * for large areas roughly in half and keeps scans over the sectors reading
+ * memory sequentially.
+ *
+ * <p>
+ * As a {@code List}, {@link #get(int)} returns a lightweight {@link Sector}
+ * viewing the columns without copying, for the geometry checks and the APIs
+ * that take sectors. Views are cheap to create and are not retained; their id
+ * is only decoded when asked for. The bounding boxes are also read directly,
+ * as {@link RegionBounds}, so the overlap detectors need no view for the many
+ * sectors they only compare by bounds.
+ *
+ * <p>
+ * Given a spill threshold, a store which grows beyond that many sectors moves
+ * its columns off the heap into memory-mapped temporary files (see
+ * {@link SectorSpill}) and keeps adding sectors there, so that areas of any
+ * size can be held with a small, fixed heap. Views of spilled sectors copy
+ * their vertices out of the mapped files; the geometry checks are the same.
+ * A spilled store must be {@link #close() closed} to delete its files.
+ *
+ * <p>
+ * A {@code SectorStore} is filled by a single thread and may then be read by
+ * several threads, as long as it is safely published to them (e.g. by
+ * submitting it to an executor).
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+public class SectorStore extends AbstractList<Sector> implements RandomAccess, RegionBounds, Closeable {
+
+  /**
+   * The number of sectors a {@code SectorStore} has room for initially.
+   */
+  static final int DEFAULT_CAPACITY = 16;
+
+  /**
+   * The default number of sectors beyond which a store spills off the heap,
+   * about 110 MB of columns.
+   */
+  public static final int DEFAULT_SPILL_THRESHOLD = 1 << 20;
+
+  /**
+   * Marks a convex orientation that has not been computed yet.
+   */
+  private static final byte UNKNOWN_ORIENTATION = Byte.MIN_VALUE;
+
+  private double[] vertices;
+  private double[] minLatitude;
+  private double[] maxLatitude;
+  private double[] minLongitude;
+  private double[] maxLongitude;
+  private boolean[] axisAligned;
+
+  /**
+   * The convex orientation of each sector, computed on first access so that
+   * filling the store stays cheap; racing threads compute the same value.
+   */
+  private byte[] convexOrientation;
+
+  private byte[] idBytes;
+
+  /**
+   * The end (exclusive) of the id of each sector in {@link #idBytes}. The id
+   * starts at the end of the id of the previous sector.
+   */
+  private int[] idEnd;
+
+  private int size;
+
+  /**
+   * The number of sectors beyond which the columns are spilled, or {@code 0}
+   * to never spill.
+   */
+  private final int spillThreshold;
+
+  /**
+   * The off-heap columns once spilled, {@code null} before.
+   */
+  private SectorSpill spill;
+
+  /**
+   * Creates an empty {@code SectorStore}.
+   */
+  public SectorStore() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates an empty {@code SectorStore} with room for the given number of
+   * sectors, which never spills off the heap.
+   *
+   * @param capacity the number of sectors to make room for.
+   */
+  public SectorStore(int capacity) {
+    this(capacity, 0);
+  }
+
+  /**
+   * Creates an empty {@code SectorStore} with room for the given number of
+   * sectors, which spills off the heap when it grows beyond the given number
+   * of sectors.
+   *
+   * @param capacity the number of sectors to make room for.
+   * @param spillThreshold the number of sectors beyond which the columns are
+   * moved off the heap, or {@code 0} to never spill.
+   */
+  public SectorStore(int capacity, int spillThreshold) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+    }
+
+    if (spillThreshold < 0) {
+      throw new IllegalArgumentException("Spill threshold must not be negative: " + spillThreshold);
+    }
+
+    this.spillThreshold = spillThreshold;
+
+    this.vertices = new double[capacity * Region.VERTEX_LENGTH];
+    this.minLatitude = new double[capacity];
+    this.maxLatitude = new double[capacity];
+    this.minLongitude = new double[capacity];
+    this.maxLongitude = new double[capacity];
+    this.axisAligned = new boolean[capacity];
+    this.convexOrientation = new byte[capacity];
+    this.idBytes = new byte[capacity * 8];
+    this.idEnd = new int[capacity];
+  }
+
+  /**
+   * Adds a sector with given coordinates as latitude and longitude degrees. It
+   * is not necessary to provide coordinates in any particular order.
+   *
+   * @param id the id of the sector.
+   * @param lat1 the latitude of the first coordinates.
+   * @param lon1 the longitude of the first coordinates.
+   * @param lat2 the latitude of the second coordinates.
+   * @param lon2 the longitude of the second coordinates.
+   * @param lat3 the latitude of the third coordinates.
+   * @param lon3 the longitude of the third coordinates.
+   * @param lat4 the latitude of the fourth coordinates.
+   * @param lon4 the longitude of the fourth coordinates.
+   * @throws UncheckedIOException if the columns cannot be spilled off the
+   * heap.
+   */
+  public void add(String id, double lat1, double lon1, double lat2, double lon2, double lat3, double lon3, double lat4, double lon4) {
+    if (spill == null && size == spillThreshold && size > 0) {
+      spill();
+    }
+
+    if (spill != null) {
+      addSpilled(id, lat1, lon1, lat2, lon2, lat3, lon3, lat4, lon4);
+
+      return;
+    }
+
+    if (size == minLatitude.length) {
+      grow();
+    }
+
+    int offset = size * Region.VERTEX_LENGTH;
+
+    vertices[offset] = lon1;
+    vertices[offset + 1] = lat1;
+    vertices[offset + 2] = lon2;
+    vertices[offset + 3] = lat2;
+    vertices[offset + 4] = lon3;
+    vertices[offset + 5] = lat3;
+    vertices[offset + 6] = lon4;
+    vertices[offset + 7] = lat4;
+
+    Region.orderVertices(vertices, offset);
+
+    double minLat = Math.min(Math.min(lat1, lat2), Math.min(lat3, lat4));
+    double maxLat = Math.max(Math.max(lat1, lat2), Math.max(lat3, lat4));
+    double minLon = Math.min(Math.min(lon1, lon2), Math.min(lon3, lon4));
+    double maxLon = Math.max(Math.max(lon1, lon2), Math.max(lon3, lon4));
+
+    minLatitude[size] = minLat;
+    maxLatitude[size] = maxLat;
+    minLongitude[size] = minLon;
+    maxLongitude[size] = maxLon;
+    axisAligned[size] = Region.isAxisAligned(vertices, offset, minLat, maxLat, minLon, maxLon);
+    convexOrientation[size] = UNKNOWN_ORIENTATION;
+
+    addId(id);
+
+    size++;
+    modCount++;
+  }
+
+  /**
+   * Adds a sector to the spilled columns, ordering its vertices in the first
+   * slot of the (otherwise unused) vertex column.
+   *
+   * @param id the id of the sector.
+   * @param lat1 the latitude of the first coordinates.
+   * @param lon1 the longitude of the first coordinates.
+   * @param lat2 the latitude of the second coordinates.
+   * @param lon2 the longitude of the second coordinates.
+   * @param lat3 the latitude of the third coordinates.
+   * @param lon3 the longitude of the third coordinates.
+   * @param lat4 the latitude of the fourth coordinates.
+   * @param lon4 the longitude of the fourth coordinates.
+   */
+  private void addSpilled(String id, double lat1, double lon1, double lat2, double lon2, double lat3, double lon3, double lat4, double lon4) {
+    double[] v = vertices;
+
+    v[0] = lon1;
+    v[1] = lat1;
+    v[2] = lon2;
+    v[3] = lat2;
+    v[4] = lon3;
+    v[5] = lat3;
+    v[6] = lon4;
+    v[7] = lat4;
+
+    Region.orderVertices(v, 0);
+
+    double minLat = Math.min(Math.min(lat1, lat2), Math.min(lat3, lat4));
+    double maxLat = Math.max(Math.max(lat1, lat2), Math.max(lat3, lat4));
+    double minLon = Math.min(Math.min(lon1, lon2), Math.min(lon3, lon4));
+    double maxLon = Math.max(Math.max(lon1, lon2), Math.max(lon3, lon4));
+
+    try {
+      spill.add(id, v, 0, minLat, maxLat, minLon, maxLon, Region.isAxisAligned(v, 0, minLat, maxLat, minLon, maxLon));
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Failed to spill sectors", ex);
+    }
+
+    size++;
+    modCount++;
+  }
+
+  /**
+   * Moves the columns off the heap, keeping only room for ordering the
+   * vertices of the next sector.
+   */
+  private void spill() {
+    SectorSpill spilled = null;
+
+    try {
+      spilled = new SectorSpill();
+
+      for (int i = 0; i < size; i++) {
+        spilled.add(getId(i), vertices, i * Region.VERTEX_LENGTH, minLatitude[i], maxLatitude[i],
+                minLongitude[i], maxLongitude[i], axisAligned[i]);
+      }
+    } catch (IOException ex) {
+      if (spilled != null) {
+        spilled.close();
+      }
+
+      throw new UncheckedIOException("Failed to spill sectors", ex);
+    }
+
+    spill = spilled;
+
+    vertices = new double[Region.VERTEX_LENGTH];
+    minLatitude = null;
+    maxLatitude = null;
+    minLongitude = null;
+    maxLongitude = null;
+    axisAligned = null;
+    convexOrientation = null;
+    idBytes = null;
+    idEnd = null;
+  }
+
+  /**
+   * Indicates if the columns of this store have been moved off the heap.
+   *
+   * @return {@code true} if spilled, {@code false} otherwise.
+   */
+  public boolean isSpilled() {
+    return spill != null;
+  }
+
+  /**
+   * Appends the id of the sector being added. ASCII ids, by far the most
+   * common, are copied without encoding.
+   *
+   * @param id the id of the sector.
+   */
+  private void addId(String id) {
+    int idStart = size == 0 ? 0 : idEnd[size - 1];
+    int idLength = id.length();
+    byte[] encoded = null;
+
+    for (int i = 0; i < idLength; i++) {
+      if (id.charAt(i) >= 0x80) {
+        encoded = id.getBytes(StandardCharsets.UTF_8);
+        idLength = encoded.length;
+        break;
+      }
+    }
+
+    if (idStart + idLength > idBytes.length) {
+      idBytes = Arrays.copyOf(idBytes, Math.max(idStart + idLength, idBytes.length + (idBytes.length >> 1)));
+    }
+
+    if (encoded == null) {
+      for (int i = 0; i < idLength; i++) {
+        idBytes[idStart + i] = (byte) id.charAt(i);
+      }
+    } else {
+      System.arraycopy(encoded, 0, idBytes, idStart, idLength);
+    }
+
+    idEnd[size] = idStart + idLength;
+  }
+
+  /**
+   * Adds the sector of a record.
+   *
+   * @param record the record.
+   */
+  void add(SectorRecord record) {
+    double[] c = record.sector;
+
+    add(record.sectorId, c[0], c[1], c[2], c[3], c[4], c[5], c[6], c[7]);
+  }
+
+  /**
+   * Grows the columns by half.
+   */
+  private void grow() {
+    int capacity = Math.max(DEFAULT_CAPACITY, size + (size >> 1));
+
+    vertices = Arrays.copyOf(vertices, capacity * Region.VERTEX_LENGTH);
+    minLatitude = Arrays.copyOf(minLatitude, capacity);
+    maxLatitude = Arrays.copyOf(maxLatitude, capacity);
+    minLongitude = Arrays.copyOf(minLongitude, capacity);
+    maxLongitude = Arrays.copyOf(maxLongitude, capacity);
+    axisAligned = Arrays.copyOf(axisAligned, capacity);
+    convexOrientation = Arrays.copyOf(convexOrientation, capacity);
+    idEnd = Arrays.copyOf(idEnd, capacity);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Retrieve a view of the sector at the given index.
+   *
+   * @param index the index of the sector.
+   * @return a {@link Sector} viewing the sector.
+   */
+  @Override
+  public Sector get(int index) {
+    checkIndex(index);
+
+    if (spill != null) {
+      double[] v = new double[Region.VERTEX_LENGTH];
+
+      spill.getVertices(index, v);
+
+      return new SectorView(index, v, 0, spill.getMinLatitude(index), spill.getMaxLatitude(index),
+              spill.getMinLongitude(index), spill.getMaxLongitude(index), spill.isAxisAligned(index),
+              spill.getConvexOrientation(index, v));
+    }
+
+    int orientation = convexOrientation[index];
+
+    if (orientation == UNKNOWN_ORIENTATION) {
+      orientation = Region.convexOrientation(vertices, index * Region.VERTEX_LENGTH);
+      convexOrientation[index] = (byte) orientation;
+    }
+
+    return new SectorView(index, vertices, index * Region.VERTEX_LENGTH, minLatitude[index], maxLatitude[index],
+            minLongitude[index], maxLongitude[index], axisAligned[index], orientation);
+  }
+
+  /**
+   * Retrieve the id of the sector at the given index.
+   *
+   * @param index the index of the sector.
+   * @return the id of the sector.
+   */
+  public String getId(int index) {
+    checkIndex(index);
+
+    if (spill != null) {
+      return spill.getId(index);
+    }
+
+    int idStart = index == 0 ? 0 : idEnd[index - 1];
+
+    return new String(idBytes, idStart, idEnd[index] - idStart, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Retrieve the minimum latitude of the bounding box of the sector at the
+   * given index.
+   *
+   * @param index the index of the sector.
+   * @return the minimum latitude.
+   */
+  @Override
+  public double getMinLatitude(int index) {
+    checkIndex(index);
+
+    return spill != null ? spill.getMinLatitude(index) : minLatitude[index];
+  }
+
+  /**
+   * Retrieve the maximum latitude of the bounding box of the sector at the
+   * given index.
+   *
+   * @param index the index of the sector.
+   * @return the maximum latitude.
+   */
+  @Override
+  public double getMaxLatitude(int index) {
+    checkIndex(index);
+
+    return spill != null ? spill.getMaxLatitude(index) : maxLatitude[index];
+  }
+
+  /**
+   * Retrieve the minimum longitude of the bounding box of the sector at the
+   * given index.
+   *
+   * @param index the index of the sector.
+   * @return the minimum longitude.
+   */
+  @Override
+  public double getMinLongitude(int index) {
+    checkIndex(index);
+
+    return spill != null ? spill.getMinLongitude(index) : minLongitude[index];
+  }
+
+  /**
+   * Retrieve the maximum longitude of the bounding box of the sector at the
+   * given index.
+   *
+   * @param index the index of the sector.
+   * @return the maximum longitude.
+   */
+  @Override
+  public double getMaxLongitude(int index) {
+    checkIndex(index);
+
+    return spill != null ? spill.getMaxLongitude(index) : maxLongitude[index];
+  }
+
+  /**
+   * Deletes the off-heap columns if spilled. The store must not be used
+   * afterwards.
+   */
+  @Override
+  public void close() {
+    if (spill != null) {
+      spill.close();
+    }
+  }
+
+  /**
+   * Checks that an index refers to a sector in this store.
+   *
+   * @param index the index.
+   */
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+
+  /**
+   * A {@link Sector} viewing an entry of the store. The id is decoded on each
+   * call to {@link #getId()}.
+   */
+  private class SectorView extends Sector {
+
+    private final int index;
+
+    SectorView(int index, double[] vertices, int offset, double minLatitude, double maxLatitude, double minLongitude,
+            double maxLongitude, boolean axisAligned, int orientation) {
+      super(null, vertices, offset, minLatitude, maxLatitude, minLongitude, maxLongitude, axisAligned, orientation);
+      this.index = index;
+    }
+
+    @Override
+    public String getId() {
+      return SectorStore.this.getId(index);
+    }
+
+  }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.util.Arrays;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Sort keys packing a {@code double} key and an index into one {@code long},
+ * so that indices can be ordered by key with a primitive
+ * {@link Arrays#parallelSort(long[])}, without boxing the indices.
+ *
+ * <p>
+ * The index takes the low bits and the key the high bits, as its bits mapped
+ * to a signed order (see {@link #pack(double, int, int)}) with the low bits
+ * dropped. Keys are therefore only ordered down to the precision left to them:
+ * for a million indices, 44 bits of key, about 10 significant digits. Keys
+ * closer than that may come out in either order. Each packed key gives back a
+ * lower bound of its key ({@link #key(long, int)}) which is exactly ordered,
+ * so a sweep can prune against that bound rather than the key itself.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+final class SortKeys {
+
+  private SortKeys() {
+  }
+
+  /**
+   * Retrieve the number of low bits needed for indices below the given size.
+   *
+   * @param size the number of indices.
+   * @return the number of index bits, at least {@code 1}.
+   */
+  static int indexBits(int size) {
+    return 32 - Integer.numberOfLeadingZeros(Math.max(size - 1, 1));
+  }
+
+  /**
+   * Packs a key and an index into a sort key. Packed keys compare as signed
+   * {@code long}s in the order of their keys, down to the precision left to
+   * the keys.
+   *
+   * @param key the key, not NaN.
+   * @param index the index, below {@code 2^indexBits}.
+   * @param indexBits the number of index bits.
+   * @return the sort key.
+   */
+  static long pack(double key, int index, int indexBits) {
+    long bits = Double.doubleToLongBits(key);
+
+    // flip the magnitude of negative keys so the bits order as signed longs
+    long ordered = bits ^ ((bits >> 63) & Long.MAX_VALUE);
+
+    return (ordered & (-1L << indexBits)) | index;
+  }
+
+  /**
+   * Retrieve the index of a sort key.
+   *
+   * @param packed the sort key.
+   * @param indexBits the number of index bits.
+   * @return the index.
+   */
+  static int index(long packed, int indexBits) {
+    return (int) (packed & ~(-1L << indexBits));
+  }
+
+  /**
+   * Retrieve the key of a sort key, rounded down to the precision left to it.
+   * The result is never greater than the packed key and never less than the
+   * result for any sort key ordered before it.
+   *
+   * @param packed the sort key.
+   * @param indexBits the number of index bits.
+   * @return a lower bound of the key.
+   */
+  static double key(long packed, int indexBits) {
+    long ordered = packed & (-1L << indexBits);
+
+    return Double.longBitsToDouble(ordered ^ ((ordered >> 63) & Long.MAX_VALUE));
+  }
+
+  /**
+   * Orders a range of indices by key, down to the precision left to the keys.
+   *
+   * @param indices the indices to order.
+   * @param from the first position to order (inclusive).
+   * @param to the last position to order (exclusive).
+   * @param key the key of an index.
+   */
+  static void sort(int[] indices, int from, int to, IntToDoubleFunction key) {
+    int size = to - from;
+    int indexBits = indexBits(size);
+    long[] packed = new long[size];
+
+    // pack positions in the range rather than indices, which may be larger
+    for (int i = 0; i < size; i++) {
+      packed[i] = pack(key.applyAsDouble(indices[from + i]), i, indexBits);
+    }
+
+    Arrays.parallelSort(packed);
+
+    int[] sorted = new int[size];
+
+    for (int i = 0; i < size; i++) {
+      sorted[i] = indices[from + index(packed[i], indexBits)];
+    }
+
+    System.arraycopy(sorted, 0, indices, from, size);
+  }
+
+}
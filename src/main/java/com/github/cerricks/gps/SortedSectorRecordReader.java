@@ -0,0 +1,462 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.LongConsumer;
+
+/**
+ * Reads the records of another {@link SectorRecordReader} grouped by area id,
+ * for input in which the rows of an area are not contiguous.
+ *
+ * <p>
+ * The source is consumed when the reader is created. Records are buffered up
+ * to a fixed count, sorted by area id and, once the buffer is full, spilled to
+ * a temporary run file. The runs are then merged with a k-way merge, so memory
+ * use is bounded by the buffer size regardless of the size of the input. Both
+ * the sort and the merge are stable: the sectors of an area keep their order in
+ * the source, and the area coordinates are those of the first row of the area.
+ *
+ * <p>
+ * Areas are returned in order of their ids rather than in order of first
+ * appearance.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+class SortedSectorRecordReader implements SectorRecordReader {
+
+  /**
+   * The default number of records sorted in memory before spilling a run.
+   */
+  static final int DEFAULT_MAX_RECORDS_IN_MEMORY = 1 << 18;
+
+  /**
+   * The maximum number of runs merged at once. More runs are first merged into
+   * larger runs.
+   */
+  static final int MAX_MERGE_WIDTH = 64;
+
+  /**
+   * Progress is reported every 4096 records.
+   */
+  private static final int PROGRESS_INTERVAL_MASK = 0xFFF;
+
+  private static final int AREA_VALUES = SectorRecord.COLUMNS_AREA.length;
+  private static final int SECTOR_VALUES = SectorRecord.COLUMNS_SECTOR.length;
+  private static final int RECORD_VALUES = AREA_VALUES + SECTOR_VALUES;
+
+  private final int maxRecordsInMemory;
+  private final List<File> runs = new ArrayList<>();
+
+  private String[] areaIds = new String[0];
+  private String[] sectorIds = new String[0];
+  private double[] values = new double[0];
+  private int buffered;
+
+  private long sourceBytes;
+  private long records;
+  private long recordsRead;
+
+  /**
+   * The sorted order of the records buffered in memory, when nothing was
+   * spilled.
+   */
+  private Integer[] order;
+
+  /**
+   * The merge of the spilled runs, when anything was spilled.
+   */
+  private Merge merge;
+
+  private String previousAreaId;
+
+  /**
+   * Creates a {@code SortedSectorRecordReader}, consuming the whole source.
+   *
+   * @param source the reader to read records from, closed by the caller.
+   * @param maxRecordsInMemory the number of records sorted in memory before
+   * spilling a run to a temporary file.
+   * @param progress called periodically with {@link #getBytesRead()} while
+   * the source is consumed.
+   * @throws IOException if the source cannot be read or a run cannot be
+   * spilled.
+   * @throws InterruptedIOException if the calling thread is
+   * interrupted while consuming the source.
+   */
+  SortedSectorRecordReader(SectorRecordReader source, int maxRecordsInMemory, LongConsumer progress) throws IOException {
+    this.maxRecordsInMemory = maxRecordsInMemory;
+
+    try {
+      SectorRecord record = new SectorRecord();
+
+      while (source.read(record)) {
+        if (buffered == maxRecordsInMemory) {
+          spill();
+        } else if (buffered == areaIds.length) {
+          grow();
+        }
+
+        areaIds[buffered] = record.areaId;
+        sectorIds[buffered] = record.sectorId;
+        System.arraycopy(record.area, 0, values, buffered * RECORD_VALUES, AREA_VALUES);
+        System.arraycopy(record.sector, 0, values, buffered * RECORD_VALUES + AREA_VALUES, SECTOR_VALUES);
+        buffered++;
+
+        if ((++records & PROGRESS_INTERVAL_MASK) == 0) {
+          if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Interrupted while grouping rows by area");
+          }
+
+          sourceBytes = source.getBytesRead();
+          progress.accept(getBytesRead());
+        }
+      }
+
+      sourceBytes = source.getBytesRead();
+
+      if (runs.isEmpty()) {
+        order = sortBuffer();
+      } else {
+        spill();
+
+        while (runs.size() > MAX_MERGE_WIDTH) {
+          // one pass merging each group of consecutive runs into a single run
+          for (int from = 0; from < runs.size() - 1; from++) {
+            mergeRuns(from, Math.min(from + MAX_MERGE_WIDTH, runs.size()));
+          }
+        }
+
+        merge = new Merge(runs);
+      }
+    } catch (IOException | RuntimeException ex) {
+      close();
+
+      throw ex;
+    }
+  }
+
+  /**
+   * Grows the buffer, up to the maximum number of records in memory.
+   */
+  private void grow() {
+    int capacity = (int) Math.min(maxRecordsInMemory, Math.max(1024, areaIds.length * 2L));
+
+    areaIds = Arrays.copyOf(areaIds, capacity);
+    sectorIds = Arrays.copyOf(sectorIds, capacity);
+    values = Arrays.copyOf(values, capacity * RECORD_VALUES);
+  }
+
+  /**
+   * Sorts the buffered records by area id, keeping the source order within an
+   * area.
+   *
+   * @return the indices of the buffered records in sorted order.
+   */
+  private Integer[] sortBuffer() {
+    Integer[] sorted = new Integer[buffered];
+
+    for (int i = 0; i < buffered; i++) {
+      sorted[i] = i;
+    }
+
+    // object sort is stable
+    Arrays.sort(sorted, Comparator.comparing(i -> areaIds[i]));
+
+    return sorted;
+  }
+
+  /**
+   * Sorts the buffered records and writes them to a new run file.
+   *
+   * @throws IOException if the run cannot be written.
+   */
+  private void spill() throws IOException {
+    File run = createRunFile();
+
+    runs.add(run);
+
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run)))) {
+      for (int i : sortBuffer()) {
+        out.writeUTF(areaIds[i]);
+        out.writeUTF(sectorIds[i]);
+
+        for (int v = 0; v < RECORD_VALUES; v++) {
+          out.writeDouble(values[i * RECORD_VALUES + v]);
+        }
+      }
+    }
+
+    Arrays.fill(areaIds, null);
+    Arrays.fill(sectorIds, null);
+    buffered = 0;
+  }
+
+  /**
+   * Merges consecutive runs into one run in their place.
+   *
+   * @param from the index of the first run to merge.
+   * @param to the index after the last run to merge.
+   * @throws IOException if the runs cannot be merged.
+   */
+  private void mergeRuns(int from, int to) throws IOException {
+    List<File> sources = runs.subList(from, to);
+
+    File merged = createRunFile();
+
+    try (Merge sourceMerge = new Merge(sources);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(merged)))) {
+      SectorRecord record = new SectorRecord();
+
+      while (sourceMerge.read(record)) {
+        out.writeUTF(record.areaId);
+        out.writeUTF(record.sectorId);
+
+        for (double value : record.area) {
+          out.writeDouble(value);
+        }
+
+        for (double value : record.sector) {
+          out.writeDouble(value);
+        }
+      }
+    } catch (IOException | RuntimeException ex) {
+      merged.delete();
+
+      throw ex;
+    }
+
+    for (File source : sources) {
+      source.delete();
+    }
+
+    sources.clear();
+    runs.add(from, merged);
+  }
+
+  /**
+   * Creates a temporary run file.
+   *
+   * @return the run file.
+   * @throws IOException if the file cannot be created.
+   */
+  private static File createRunFile() throws IOException {
+    File run = File.createTempFile("gps-areas-", ".run");
+    run.deleteOnExit();
+
+    return run;
+  }
+
+  @Override
+  public boolean read(SectorRecord record) throws IOException {
+    if (merge != null) {
+      if (!merge.read(record)) {
+        return false;
+      }
+    } else {
+      if (recordsRead == buffered) {
+        return false;
+      }
+
+      int i = order[(int) recordsRead];
+
+      record.areaId = areaIds[i];
+      record.sectorId = sectorIds[i];
+      System.arraycopy(values, i * RECORD_VALUES, record.area, 0, AREA_VALUES);
+      System.arraycopy(values, i * RECORD_VALUES + AREA_VALUES, record.sector, 0, SECTOR_VALUES);
+    }
+
+    // return the same instance for consecutive rows of the same area
+    if (record.areaId.equals(previousAreaId)) {
+      record.areaId = previousAreaId;
+    } else {
+      previousAreaId = record.areaId;
+    }
+
+    recordsRead++;
+
+    return true;
+  }
+
+  /**
+   * Retrieve the progress through the input, in bytes of the source: the
+   * first half covers consuming the source and the second half reading the
+   * sorted records.
+   *
+   * @return the progress in bytes of the source.
+   */
+  @Override
+  public long getBytesRead() {
+    long read = records == 0 ? 0 : (long) (sourceBytes * ((double) recordsRead / records));
+
+    return (sourceBytes + read) / 2;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      if (merge != null) {
+        merge.close();
+      }
+    } finally {
+      for (File run : runs) {
+        run.delete();
+      }
+
+      runs.clear();
+    }
+  }
+
+  /**
+   * A k-way merge of sorted run files.
+   */
+  private static class Merge implements AutoCloseable {
+
+    private final PriorityQueue<Run> queue;
+    private final List<Run> open = new ArrayList<>();
+
+    /**
+     * Opens the given runs for merging. Records with equal area ids are
+     * returned in order of the runs.
+     *
+     * @param files the run files, in source order.
+     * @throws IOException if a run cannot be read.
+     */
+    Merge(List<File> files) throws IOException {
+      this.queue = new PriorityQueue<>(Math.max(1, files.size()),
+              Comparator.comparing((Run run) -> run.record.areaId).thenComparingInt(run -> run.index));
+
+      try {
+        for (int i = 0; i < files.size(); i++) {
+          Run run = new Run(files.get(i), i);
+
+          open.add(run);
+
+          if (run.next()) {
+            queue.add(run);
+          }
+        }
+      } catch (IOException ex) {
+        close();
+
+        throw ex;
+      }
+    }
+
+    /**
+     * Reads the next record of the merge.
+     *
+     * @param record the record to populate.
+     * @return {@code true} if a record was read, {@code false} once all runs
+     * are exhausted.
+     * @throws IOException if a run cannot be read.
+     */
+    boolean read(SectorRecord record) throws IOException {
+      Run run = queue.poll();
+
+      if (run == null) {
+        return false;
+      }
+
+      record.areaId = run.record.areaId;
+      record.sectorId = run.record.sectorId;
+      System.arraycopy(run.record.area, 0, record.area, 0, AREA_VALUES);
+      System.arraycopy(run.record.sector, 0, record.sector, 0, SECTOR_VALUES);
+
+      if (run.next()) {
+        queue.add(run);
+      }
+
+      return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+      IOException failure = null;
+
+      for (Run run : open) {
+        try {
+          run.in.close();
+        } catch (IOException ex) {
+          failure = ex;
+        }
+      }
+
+      if (failure != null) {
+        throw failure;
+      }
+    }
+
+  }
+
+  /**
+   * A run file being merged, positioned at its current record.
+   */
+  private static class Run {
+
+    private final DataInputStream in;
+    private final int index;
+    private final SectorRecord record = new SectorRecord();
+
+    Run(File file, int index) throws IOException {
+      this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+      this.index = index;
+    }
+
+    /**
+     * Reads the next record of the run.
+     *
+     * @return {@code true} if a record was read, {@code false} at the end of
+     * the run.
+     * @throws IOException if the run cannot be read.
+     */
+    boolean next() throws IOException {
+      try {
+        record.areaId = in.readUTF();
+      } catch (EOFException ex) {
+        return false;
+      }
+
+      record.sectorId = in.readUTF();
+
+      for (int i = 0; i < AREA_VALUES; i++) {
+        record.area[i] = in.readDouble();
+      }
+
+      for (int i = 0; i < SECTOR_VALUES; i++) {
+        record.sector[i] = in.readDouble();
+      }
+
+      return true;
+    }
+
+  }
+
+}
@@ -0,0 +1,338 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * A static R-tree over the bounding boxes of a list of regions, bulk-loaded
+ * with Sort-Tile-Recursive (STR) packing.
+ *
+ * <p>
+ * Each level is built by sorting its entries by the longitude of their centre,
+ * cutting them into vertical slices, sorting each slice by latitude and packing
+ * consecutive runs of {@link #NODE_CAPACITY} entries into a parent node. The
+ * resulting nodes are full and barely overlap, so a query visits few nodes
+ * beyond those whose bounding boxes it reports.
+ *
+ * <p>
+ * The tree is stored in flat arrays. The leaves are the indices of the regions
+ * in packed order; their bounds are read from the regions as
+ * {@link RegionBounds}, straight from the columns of a {@link SectorStore},
+ * rather than copied. Only the nodes keep bounds of their own: those of the
+ * lowest level, whose children are leaves, followed by the nodes of each
+ * higher level and finally the root.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+public class StrTree {
+
+  /**
+   * The maximum number of children of a node.
+   */
+  static final int NODE_CAPACITY = 16;
+
+  private final RegionBounds bounds;
+
+  /**
+   * The indices of the regions in the list, in packed order.
+   */
+  private final int[] leaves;
+
+  private final double[] minLatitude;
+  private final double[] maxLatitude;
+  private final double[] minLongitude;
+  private final double[] maxLongitude;
+
+  /**
+   * The position of the first child of a node: in {@link #leaves} for a node
+   * of the lowest level, otherwise the index of the child node.
+   */
+  private final int[] child;
+
+  /**
+   * The number of children of a node.
+   */
+  private final int[] childCount;
+
+  /**
+   * The number of nodes of the lowest level, whose children are leaves.
+   */
+  private final int leafParents;
+
+  private final int root;
+  private final int height;
+
+  /**
+   * Bulk-loads a tree over the bounding boxes of the given regions.
+   *
+   * @param regions the regions to index.
+   */
+  public StrTree(List<? extends Region> regions) {
+    this.bounds = RegionBounds.of(regions);
+
+    int size = regions.size();
+    int nodes = 0;
+    int levels = 0;
+
+    if (size > 0) {
+      int count = size;
+
+      do {
+        count = nodeCount(count);
+        nodes += count;
+        levels++;
+      } while (count > 1);
+    }
+
+    this.leaves = new int[size];
+    this.minLatitude = new double[nodes];
+    this.maxLatitude = new double[nodes];
+    this.minLongitude = new double[nodes];
+    this.maxLongitude = new double[nodes];
+    this.child = new int[nodes];
+    this.childCount = new int[nodes];
+    this.leafParents = nodeCount(size);
+    this.height = levels;
+
+    for (int i = 0; i < size; i++) {
+      leaves[i] = i;
+    }
+
+    pack(leaves, 0, size, i -> bounds.getMinLongitude(i) + bounds.getMaxLongitude(i),
+            i -> bounds.getMinLatitude(i) + bounds.getMaxLatitude(i));
+
+    for (int p = 0; p < leafParents; p++) {
+      setLeafParent(p, p * NODE_CAPACITY, Math.min(NODE_CAPACITY, size - p * NODE_CAPACITY));
+    }
+
+    int levelStart = 0;
+    int levelSize = leafParents;
+
+    while (levelSize > 1) {
+      packNodes(levelStart, levelSize);
+
+      int parentStart = levelStart + levelSize;
+      int parentSize = nodeCount(levelSize);
+
+      for (int p = 0; p < parentSize; p++) {
+        int first = levelStart + p * NODE_CAPACITY;
+        int count = Math.min(NODE_CAPACITY, levelSize - p * NODE_CAPACITY);
+
+        setNode(parentStart + p, first, count);
+      }
+
+      levelStart = parentStart;
+      levelSize = parentSize;
+    }
+
+    this.root = size == 0 ? -1 : levelStart;
+  }
+
+  /**
+   * The number of nodes needed to hold the given number of entries.
+   *
+   * @param count the number of entries.
+   * @return the number of parent nodes.
+   */
+  private static int nodeCount(int count) {
+    return (count + NODE_CAPACITY - 1) / NODE_CAPACITY;
+  }
+
+  /**
+   * Sorts the entries of a level into STR order.
+   *
+   * @param entries the entries of the level.
+   * @param start the position of the first entry of the level.
+   * @param size the number of entries in the level.
+   * @param longitude the longitude of the centre of an entry, doubled.
+   * @param latitude the latitude of the centre of an entry, doubled.
+   */
+  private static void pack(int[] entries, int start, int size, IntToDoubleFunction longitude, IntToDoubleFunction latitude) {
+    SortKeys.sort(entries, start, start + size, longitude);
+
+    int slices = (int) Math.ceil(Math.sqrt(nodeCount(size)));
+    int sliceSize = slices * NODE_CAPACITY;
+
+    for (int from = 0; from < size; from += sliceSize) {
+      SortKeys.sort(entries, start + from, start + Math.min(size, from + sliceSize), latitude);
+    }
+  }
+
+  /**
+   * Reorders the nodes of a level into STR order.
+   *
+   * @param start the index of the first node of the level.
+   * @param size the number of nodes in the level.
+   */
+  private void packNodes(int start, int size) {
+    int[] order = new int[size];
+
+    for (int i = 0; i < size; i++) {
+      order[i] = start + i;
+    }
+
+    pack(order, 0, size, i -> minLongitude[i] + maxLongitude[i], i -> minLatitude[i] + maxLatitude[i]);
+
+    double[] minLat = new double[size];
+    double[] maxLat = new double[size];
+    double[] minLon = new double[size];
+    double[] maxLon = new double[size];
+    int[] children = new int[size];
+    int[] counts = new int[size];
+
+    for (int i = 0; i < size; i++) {
+      int node = order[i];
+
+      minLat[i] = minLatitude[node];
+      maxLat[i] = maxLatitude[node];
+      minLon[i] = minLongitude[node];
+      maxLon[i] = maxLongitude[node];
+      children[i] = child[node];
+      counts[i] = childCount[node];
+    }
+
+    System.arraycopy(minLat, 0, minLatitude, start, size);
+    System.arraycopy(maxLat, 0, maxLatitude, start, size);
+    System.arraycopy(minLon, 0, minLongitude, start, size);
+    System.arraycopy(maxLon, 0, maxLongitude, start, size);
+    System.arraycopy(children, 0, child, start, size);
+    System.arraycopy(counts, 0, childCount, start, size);
+  }
+
+  /**
+   * Sets a node of the lowest level to cover a run of leaves.
+   *
+   * @param node the index of the node.
+   * @param first the position of the first leaf.
+   * @param count the number of leaves.
+   */
+  private void setLeafParent(int node, int first, int count) {
+    double minLat = Double.POSITIVE_INFINITY;
+    double maxLat = Double.NEGATIVE_INFINITY;
+    double minLon = Double.POSITIVE_INFINITY;
+    double maxLon = Double.NEGATIVE_INFINITY;
+
+    for (int i = first; i < first + count; i++) {
+      int region = leaves[i];
+
+      minLat = Math.min(minLat, bounds.getMinLatitude(region));
+      maxLat = Math.max(maxLat, bounds.getMaxLatitude(region));
+      minLon = Math.min(minLon, bounds.getMinLongitude(region));
+      maxLon = Math.max(maxLon, bounds.getMaxLongitude(region));
+    }
+
+    minLatitude[node] = minLat;
+    maxLatitude[node] = maxLat;
+    minLongitude[node] = minLon;
+    maxLongitude[node] = maxLon;
+    child[node] = first;
+    childCount[node] = count;
+  }
+
+  /**
+   * Sets a node to cover a run of child nodes.
+   *
+   * @param node the index of the node.
+   * @param first the index of the first child.
+   * @param count the number of children.
+   */
+  private void setNode(int node, int first, int count) {
+    double minLat = Double.POSITIVE_INFINITY;
+    double maxLat = Double.NEGATIVE_INFINITY;
+    double minLon = Double.POSITIVE_INFINITY;
+    double maxLon = Double.NEGATIVE_INFINITY;
+
+    for (int i = first; i < first + count; i++) {
+      minLat = Math.min(minLat, minLatitude[i]);
+      maxLat = Math.max(maxLat, maxLatitude[i]);
+      minLon = Math.min(minLon, minLongitude[i]);
+      maxLon = Math.max(maxLon, maxLongitude[i]);
+    }
+
+    minLatitude[node] = minLat;
+    maxLatitude[node] = maxLat;
+    minLongitude[node] = minLon;
+    maxLongitude[node] = maxLon;
+    child[node] = first;
+    childCount[node] = count;
+  }
+
+  /**
+   * Finds the regions whose bounding boxes intersect the bounding box of the
+   * given region. Touching boxes intersect, as in
+   * {@link Region#boundsIntersect(Region)}.
+   *
+   * @param region the region to search with.
+   * @param action called with the index (in the indexed list) of each region
+   * found, in no particular order.
+   */
+  public void search(Region region, IntConsumer action) {
+    search(region.getMinLatitude(), region.getMinLongitude(), region.getMaxLatitude(), region.getMaxLongitude(), action);
+  }
+
+  /**
+   * Finds the regions whose bounding boxes intersect the given box.
+   *
+   * @param minLat the minimum latitude of the box.
+   * @param minLon the minimum longitude of the box.
+   * @param maxLat the maximum latitude of the box.
+   * @param maxLon the maximum longitude of the box.
+   * @param action called with the index (in the indexed list) of each region
+   * found, in no particular order.
+   */
+  public void search(double minLat, double minLon, double maxLat, double maxLon, IntConsumer action) {
+    if (root < 0) {
+      return;
+    }
+
+    int[] stack = new int[height * NODE_CAPACITY];
+    int top = 0;
+
+    stack[top++] = root;
+
+    while (top > 0) {
+      int node = stack[--top];
+
+      if (minLatitude[node] > maxLat || maxLatitude[node] < minLat
+              || minLongitude[node] > maxLon || maxLongitude[node] < minLon) {
+        continue;
+      }
+
+      int first = child[node];
+      int end = first + childCount[node];
+
+      if (node < leafParents) {
+        for (int i = first; i < end; i++) {
+          int region = leaves[i];
+
+          if (bounds.getMinLatitude(region) <= maxLat && bounds.getMaxLatitude(region) >= minLat
+                  && bounds.getMinLongitude(region) <= maxLon && bounds.getMaxLongitude(region) >= minLon) {
+            action.accept(region);
+          }
+        }
+      } else {
+        for (int i = first; i < end; i++) {
+          stack[top++] = i;
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Detects overlapping regions using a sweep-and-prune over their bounding
+ * boxes.
+ *
+ * <p>
+ * Bounding boxes are sorted by minimum longitude and swept from west to east
+ * while maintaining the set of boxes still "active" at the sweep position. Only
+ * pairs whose bounding boxes intersect are passed to the exact
+ * {@link Region#overlaps(Region)} check, which makes detection close to
+ * {@code n log n} for realistic data rather than testing every pair.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+public class SweepOverlapDetector {
+
+  /**
+   * Finds the first pair of overlapping regions.
+   *
+   * @param regions the regions to check.
+   * @return the indices (in the given list) of two overlapping regions, or
+   * {@code null} if no regions overlap.
+   */
+  public int[] findOverlap(List<? extends Region> regions) {
+    return findOverlap(regions, () -> false);
+  }
+
+  /**
+   * Finds the first pair of overlapping regions, stopping early once the given
+   * condition holds.
+   *
+   * @param regions the regions to check.
+   * @param cancelled indicates if the sweep should stop early, checked
+   * periodically.
+   * @return the indices (in the given list) of two overlapping regions, or
+   * {@code null} if no regions overlap.
+   * @throws CancellationException if the sweep stopped early, before a verdict
+   * was reached.
+   */
+  public int[] findOverlap(List<? extends Region> regions, BooleanSupplier cancelled) {
+    Sweep sweep = new Sweep(regions);
+
+    return sweep.findOverlap(0, sweep.size(), cancelled);
+  }
+
+  /**
+   * The bounding boxes of a list of regions, sorted by minimum longitude.
+   *
+   * <p>
+   * Only the sorted order is kept; the bounds are read from the regions as
+   * {@link RegionBounds}, straight from the columns of a {@link SectorStore}.
+   * Ranges of the sorted order can be swept independently (and concurrently),
+   * see {@link #findOverlap(int, int, BooleanSupplier)}.
+   */
+  static class Sweep {
+
+    /**
+     * How often (in sweep steps) the cancellation flag is checked.
+     */
+    private static final int CANCEL_CHECK_MASK = 0xFF;
+
+    /**
+     * The initial capacity of the active set, grown as needed.
+     */
+    private static final int INITIAL_ACTIVE_CAPACITY = 64;
+
+    private final List<? extends Region> regions;
+    private final RegionBounds bounds;
+
+    /**
+     * The indices of the regions packed with their minimum longitude, sorted
+     * west to east, see {@link SortKeys}.
+     */
+    private final long[] order;
+    private final int indexBits;
+
+    /**
+     * Creates a {@code Sweep} over the given regions.
+     *
+     * @param regions the regions to sweep.
+     */
+    Sweep(List<? extends Region> regions) {
+      this.regions = regions;
+      this.bounds = RegionBounds.of(regions);
+      this.order = new long[regions.size()];
+      this.indexBits = SortKeys.indexBits(order.length);
+
+      for (int i = 0; i < order.length; i++) {
+        order[i] = SortKeys.pack(bounds.getMinLongitude(i), i, indexBits);
+      }
+
+      Arrays.parallelSort(order);
+    }
+
+    /**
+     * Retrieve the number of regions in this sweep.
+     *
+     * @return the number of regions.
+     */
+    int size() {
+      return order.length;
+    }
+
+    /**
+     * Finds the first pair of overlapping regions where the westernmost region
+     * of the pair lies within the given range of sweep positions.
+     *
+     * <p>
+     * Regions in the range are added to the active set. Once the sweep passes
+     * the end of the range it continues only while regions from the range are
+     * still active, testing later regions against them without adding them.
+     * Sweeping consecutive ranges therefore checks every candidate pair exactly
+     * once, including pairs which straddle the ranges.
+     *
+     * <p>
+     * The active set keeps the bounds of its regions so they are read once,
+     * and the region of an active entry once it is first a candidate, so each
+     * region is retrieved at most once however many pairs it is checked in.
+     *
+     * @param from the first sweep position (inclusive).
+     * @param to the last sweep position (exclusive).
+     * @param cancelled indicates if the sweep should stop early.
+     * @return the indices (in the original list) of two overlapping regions, or
+     * {@code null} if none are found.
+     * @throws CancellationException if the sweep stopped early, before a
+     * verdict was reached.
+     */
+    int[] findOverlap(int from, int to, BooleanSupplier cancelled) {
+      // regions whose bounding boxes may still intersect the sweep position
+      int capacity = Math.max(Math.min(to - from, INITIAL_ACTIVE_CAPACITY), 1);
+      int[] active = new int[capacity];
+      double[] activeMaxLongitude = new double[capacity];
+      double[] activeMinLatitude = new double[capacity];
+      double[] activeMaxLatitude = new double[capacity];
+      Region[] activeRegion = new Region[capacity];
+      int activeCount = 0;
+
+      for (int k = from; k < order.length; k++) {
+        if ((k & CANCEL_CHECK_MASK) == 0 && cancelled.getAsBoolean()) {
+          throw new CancellationException();
+        }
+
+        int index = SortKeys.index(order[k], indexBits);
+
+        // sort keys only order minimum longitudes down to their precision, so
+        // prune against the lower bound they do order, which later regions
+        // never fall below
+        double sweepLongitude = SortKeys.key(order[k], indexBits);
+        double minLatitude = bounds.getMinLatitude(index);
+        double maxLatitude = bounds.getMaxLatitude(index);
+        Region region = null;
+
+        int retained = 0;
+
+        for (int a = 0; a < activeCount; a++) {
+          // boxes ending west of the sweep position can never intersect again
+          if (activeMaxLongitude[a] < sweepLongitude) {
+            continue;
+          }
+
+          if (retained != a) {
+            active[retained] = active[a];
+            activeMaxLongitude[retained] = activeMaxLongitude[a];
+            activeMinLatitude[retained] = activeMinLatitude[a];
+            activeMaxLatitude[retained] = activeMaxLatitude[a];
+            activeRegion[retained] = activeRegion[a];
+          }
+
+          // bounding boxes share longitude range, check latitude range before exact check
+          if (activeMaxLatitude[retained] >= minLatitude && activeMinLatitude[retained] <= maxLatitude) {
+            if (region == null) {
+              region = regions.get(index);
+            }
+
+            Region other = activeRegion[retained];
+
+            if (other == null) {
+              other = regions.get(active[retained]);
+              activeRegion[retained] = other;
+            }
+
+            if (other.overlaps(region)) {
+              return new int[]{Math.min(active[retained], index), Math.max(active[retained], index)};
+            }
+          }
+
+          retained++;
+        }
+
+        // release the regions which left the active set
+        Arrays.fill(activeRegion, retained, activeCount, null);
+
+        activeCount = retained;
+
+        if (k < to) {
+          if (activeCount == active.length) {
+            capacity = active.length * 2;
+            active = Arrays.copyOf(active, capacity);
+            activeMaxLongitude = Arrays.copyOf(activeMaxLongitude, capacity);
+            activeMinLatitude = Arrays.copyOf(activeMinLatitude, capacity);
+            activeMaxLatitude = Arrays.copyOf(activeMaxLatitude, capacity);
+            activeRegion = Arrays.copyOf(activeRegion, capacity);
+          }
+
+          active[activeCount] = index;
+          activeMaxLongitude[activeCount] = bounds.getMaxLongitude(index);
+          activeMinLatitude[activeCount] = minLatitude;
+          activeMaxLatitude[activeCount] = maxLatitude;
+          activeRegion[activeCount] = region;
+          activeCount++;
+        } else if (activeCount == 0) {
+          break;
+        }
+      }
+
+      return null;
+    }
+
+  }
+
+}
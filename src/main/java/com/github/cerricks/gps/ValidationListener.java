@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.io.File;
+
+/**
+ * Receives output and progress from a {@link GpsValidator}.
+ *
+ * <p>
+ * Methods are called from the thread running
+ * {@link GpsValidator#validate(File, ValidationListener)}.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+public interface ValidationListener {
+
+  /**
+   * Called before any other method when validation of a file starts.
+   *
+   * @param file the file being validated.
+   */
+  default void fileStarted(File file) {
+  }
+
+  /**
+   * Called with each message produced while validating a file. Messages
+   * include their own line separators.
+   *
+   * @param message the message.
+   */
+  void message(String message);
+
+  /**
+   * Called with the result of each area, in file order, as soon as the area
+   * has been validated.
+   *
+   * @param result the result of the area.
+   */
+  default void areaValidated(AreaResult result) {
+  }
+
+  /**
+   * Called as records are read from the file.
+   *
+   * @param bytesRead the number of bytes read from the file so far.
+   * @param totalBytes the total number of bytes in the file.
+   */
+  default void progress(long bytesRead, long totalBytes) {
+  }
+
+}
@@ -0,0 +1,426 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Counters and latency histograms of the stages of validation: parsing rows,
+ * constructing sectors, checking containment and checking overlap.
+ *
+ * <p>
+ * Each run of {@link GpsValidator#validate(java.io.File, ValidationListener)}
+ * records into its own {@code ValidationMetrics}, which forwards everything to
+ * the process wide metrics returned by {@link #global()}. The global metrics
+ * are registered as the MBean {@value #OBJECT_NAME}, so a long run can be
+ * watched with JConsole or any other JMX client.
+ *
+ * <p>
+ * All methods are safe to call from many threads.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+public class ValidationMetrics implements ValidationMetricsMBean {
+
+  private static final Logger logger = LogManager.getLogger(ValidationMetrics.class);
+
+  /**
+   * The JMX object name of the global metrics.
+   */
+  public static final String OBJECT_NAME = "com.github.cerricks.gps:type=ValidationMetrics";
+
+  /**
+   * The number of slowest areas kept.
+   */
+  static final int SLOWEST_AREAS = 10;
+
+  private static final double NANOS_PER_SECOND = 1e9;
+  private static final double NANOS_PER_MILLI = 1e6;
+
+  private static ValidationMetrics global;
+
+  private final ValidationMetrics parent;
+
+  private final LongAdder files = new LongAdder();
+  private final LongAdder rows = new LongAdder();
+  private final LongAdder bytes = new LongAdder();
+  private final LongAdder areas = new LongAdder();
+  private final LongAdder invalidAreas = new LongAdder();
+  private final LongAdder undeterminedAreas = new LongAdder();
+  private final LongAdder cachedAreas = new LongAdder();
+  private final LongAdder elapsedNanos = new LongAdder();
+  private final LongAdder parseNanos = new LongAdder();
+  private final LongAdder constructionNanos = new LongAdder();
+  private final LongAdder waitNanos = new LongAdder();
+  private final LongAdder containmentNanos = new LongAdder();
+  private final LongAdder overlapNanos = new LongAdder();
+  private final Histogram areaNanos = new Histogram();
+  private final Histogram sectorsPerArea = new Histogram();
+
+  /**
+   * The slowest areas, fastest first so it can be trimmed from the head.
+   */
+  private final PriorityQueue<SlowArea> slowestAreas = new PriorityQueue<>((a, b) -> Long.compare(a.nanos, b.nanos));
+
+  /**
+   * Creates metrics which are not forwarded anywhere.
+   */
+  public ValidationMetrics() {
+    this(null);
+  }
+
+  /**
+   * Creates metrics which forward everything recorded to a parent.
+   *
+   * @param parent the metrics to forward to, or {@code null}.
+   */
+  public ValidationMetrics(ValidationMetrics parent) {
+    this.parent = parent;
+  }
+
+  /**
+   * Retrieve the process wide metrics, registering them with the platform
+   * MBean server on first use.
+   *
+   * @return the process wide metrics.
+   */
+  public static synchronized ValidationMetrics global() {
+    if (global == null) {
+      global = new ValidationMetrics();
+
+      try {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(OBJECT_NAME);
+
+        if (!server.isRegistered(name)) {
+          server.registerMBean(global, name);
+        }
+      } catch (JMException | RuntimeException ex) {
+        logger.warn("Failed to register validation metrics MBean", ex);
+      }
+    }
+
+    return global;
+  }
+
+  /**
+   * Records a validated file.
+   *
+   * @param rowCount the number of rows read.
+   * @param byteCount the number of bytes read.
+   * @param nanos the elapsed time.
+   */
+  void fileValidated(long rowCount, long byteCount, long nanos) {
+    files.increment();
+    rows.add(rowCount);
+    bytes.add(byteCount);
+    elapsedNanos.add(nanos);
+
+    if (parent != null) {
+      parent.fileValidated(rowCount, byteCount, nanos);
+    }
+  }
+
+  /**
+   * Records time spent by the parsing thread.
+   *
+   * @param parse the time spent reading and parsing rows.
+   * @param construction the time spent constructing sectors.
+   * @param wait the time spent waiting for validators and writing output.
+   */
+  void parsed(long parse, long construction, long wait) {
+    parseNanos.add(parse);
+    constructionNanos.add(construction);
+    waitNanos.add(wait);
+
+    if (parent != null) {
+      parent.parsed(parse, construction, wait);
+    }
+  }
+
+  /**
+   * Records the result of an area.
+   *
+   * @param result the result of the area.
+   */
+  void areaCompleted(AreaResult result) {
+    areas.increment();
+
+    if (result.isUndetermined()) {
+      undeterminedAreas.increment();
+    } else if (!result.isValid()) {
+      invalidAreas.increment();
+    }
+
+    if (parent != null) {
+      parent.areaCompleted(result);
+    }
+  }
+
+  /**
+   * Records an area whose result was reused from the cache.
+   */
+  void areaCached() {
+    cachedAreas.increment();
+
+    if (parent != null) {
+      parent.areaCached();
+    }
+  }
+
+  /**
+   * Records the validation of the sectors of an area.
+   *
+   * @param file the name of the file.
+   * @param areaId the id of the area.
+   * @param sectors the number of sectors in the area.
+   * @param containment the time spent checking containment.
+   * @param overlap the time spent checking overlap.
+   */
+  void areaValidated(String file, String areaId, int sectors, long containment, long overlap) {
+    long nanos = containment + overlap;
+
+    containmentNanos.add(containment);
+    overlapNanos.add(overlap);
+    areaNanos.record(nanos);
+    sectorsPerArea.record(sectors);
+
+    synchronized (slowestAreas) {
+      if (slowestAreas.size() < SLOWEST_AREAS || nanos > slowestAreas.peek().nanos) {
+        slowestAreas.add(new SlowArea(file, areaId, sectors, nanos));
+
+        if (slowestAreas.size() > SLOWEST_AREAS) {
+          slowestAreas.poll();
+        }
+      }
+    }
+
+    if (parent != null) {
+      parent.areaValidated(file, areaId, sectors, containment, overlap);
+    }
+  }
+
+  @Override
+  public long getFiles() {
+    return files.sum();
+  }
+
+  @Override
+  public long getRows() {
+    return rows.sum();
+  }
+
+  @Override
+  public long getBytes() {
+    return bytes.sum();
+  }
+
+  @Override
+  public long getAreas() {
+    return areas.sum();
+  }
+
+  @Override
+  public long getInvalidAreas() {
+    return invalidAreas.sum();
+  }
+
+  @Override
+  public long getUndeterminedAreas() {
+    return undeterminedAreas.sum();
+  }
+
+  @Override
+  public long getCachedAreas() {
+    return cachedAreas.sum();
+  }
+
+  @Override
+  public double getElapsedSeconds() {
+    return elapsedNanos.sum() / NANOS_PER_SECOND;
+  }
+
+  @Override
+  public double getRowsPerSecond() {
+    double seconds = getElapsedSeconds();
+
+    return seconds == 0 ? 0 : getRows() / seconds;
+  }
+
+  @Override
+  public double getParseSeconds() {
+    return parseNanos.sum() / NANOS_PER_SECOND;
+  }
+
+  @Override
+  public double getSectorConstructionSeconds() {
+    return constructionNanos.sum() / NANOS_PER_SECOND;
+  }
+
+  @Override
+  public double getWaitSeconds() {
+    return waitNanos.sum() / NANOS_PER_SECOND;
+  }
+
+  @Override
+  public double getContainmentSeconds() {
+    return containmentNanos.sum() / NANOS_PER_SECOND;
+  }
+
+  @Override
+  public double getOverlapSeconds() {
+    return overlapNanos.sum() / NANOS_PER_SECOND;
+  }
+
+  @Override
+  public double getAreaMillisP50() {
+    return areaNanos.getPercentile(50) / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double getAreaMillisP90() {
+    return areaNanos.getPercentile(90) / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double getAreaMillisP99() {
+    return areaNanos.getPercentile(99) / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double getAreaMillisMax() {
+    return areaNanos.getMax() / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public long getSectorsPerAreaP50() {
+    return sectorsPerArea.getPercentile(50);
+  }
+
+  @Override
+  public long getSectorsPerAreaP90() {
+    return sectorsPerArea.getPercentile(90);
+  }
+
+  @Override
+  public long getSectorsPerAreaP99() {
+    return sectorsPerArea.getPercentile(99);
+  }
+
+  @Override
+  public long getSectorsPerAreaMax() {
+    return sectorsPerArea.getMax();
+  }
+
+  @Override
+  public String[] getSlowestAreas() {
+    List<SlowArea> slowest;
+
+    synchronized (slowestAreas) {
+      slowest = new ArrayList<>(slowestAreas);
+    }
+
+    slowest.sort((a, b) -> Long.compare(b.nanos, a.nanos));
+
+    String[] text = new String[slowest.size()];
+
+    for (int i = 0; i < text.length; i++) {
+      text[i] = slowest.get(i).toString();
+    }
+
+    return text;
+  }
+
+  @Override
+  public String getSummary() {
+    String separator = System.lineSeparator();
+
+    StringBuilder text = new StringBuilder();
+    text.append(String.format("Rows: %,d in %.2f s (%,.0f rows/s, %,.1f MB/s)", getRows(), getElapsedSeconds(), getRowsPerSecond(),
+            getElapsedSeconds() == 0 ? 0 : getBytes() / getElapsedSeconds() / (1 << 20))).append(separator);
+    text.append(String.format("Areas: %,d (%,d invalid, %,d undetermined, %,d from cache)",
+            getAreas(), getInvalidAreas(), getUndeterminedAreas(), getCachedAreas())).append(separator);
+    text.append(String.format("Parsing thread: parse %.2f s, sector construction %.2f s, waiting for validation and output %.2f s",
+            getParseSeconds(), getSectorConstructionSeconds(), getWaitSeconds())).append(separator);
+    text.append(String.format("Validator threads: containment %.2f s, overlap %.2f s", getContainmentSeconds(), getOverlapSeconds())).append(separator);
+    text.append(String.format("Area validation ms: p50 %.3f, p90 %.3f, p99 %.3f, max %.3f",
+            getAreaMillisP50(), getAreaMillisP90(), getAreaMillisP99(), getAreaMillisMax())).append(separator);
+    text.append(String.format("Sectors per area: p50 %,d, p90 %,d, p99 %,d, max %,d",
+            getSectorsPerAreaP50(), getSectorsPerAreaP90(), getSectorsPerAreaP99(), getSectorsPerAreaMax())).append(separator);
+
+    String[] slowest = getSlowestAreas();
+
+    if (slowest.length > 0) {
+      text.append("Slowest areas:").append(separator);
+
+      for (String area : slowest) {
+        text.append("  ").append(area).append(separator);
+      }
+    }
+
+    return text.toString();
+  }
+
+  @Override
+  public void reset() {
+    for (LongAdder adder : new LongAdder[]{files, rows, bytes, areas, invalidAreas, undeterminedAreas, cachedAreas,
+      elapsedNanos, parseNanos, constructionNanos, waitNanos, containmentNanos, overlapNanos}) {
+      adder.reset();
+    }
+
+    areaNanos.reset();
+    sectorsPerArea.reset();
+
+    synchronized (slowestAreas) {
+      slowestAreas.clear();
+    }
+  }
+
+  /**
+   * An area and the time it took to validate.
+   */
+  private static class SlowArea {
+
+    private final String file;
+    private final String areaId;
+    private final int sectors;
+    private final long nanos;
+
+    SlowArea(String file, String areaId, int sectors, long nanos) {
+      this.file = file;
+      this.areaId = areaId;
+      this.sectors = sectors;
+      this.nanos = nanos;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s in %s: %,.3f ms, %,d sectors", areaId, file, nanos / NANOS_PER_MILLI, sectors);
+    }
+
+  }
+
+}
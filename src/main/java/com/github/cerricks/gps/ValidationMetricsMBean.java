@@ -0,0 +1,112 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+/**
+ * The JMX management interface of {@link ValidationMetrics}.
+ *
+ * <p>
+ * Times spent on the validator threads (containment and overlap) are summed
+ * over all threads, so they may exceed the elapsed time.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+public interface ValidationMetricsMBean {
+
+  long getFiles();
+
+  long getRows();
+
+  long getBytes();
+
+  long getAreas();
+
+  long getInvalidAreas();
+
+  long getUndeterminedAreas();
+
+  long getCachedAreas();
+
+  double getElapsedSeconds();
+
+  double getRowsPerSecond();
+
+  /**
+   * Retrieve the time spent reading and parsing rows, excluding sector
+   * construction.
+   *
+   * @return the parse time in seconds.
+   */
+  double getParseSeconds();
+
+  /**
+   * Retrieve the time spent constructing sectors, estimated from a sample of
+   * rows.
+   *
+   * @return the sector construction time in seconds.
+   */
+  double getSectorConstructionSeconds();
+
+  /**
+   * Retrieve the time the parsing thread spent waiting for validator threads
+   * and writing output. High values mean validation, not parsing, is the
+   * bottleneck.
+   *
+   * @return the wait time in seconds.
+   */
+  double getWaitSeconds();
+
+  double getContainmentSeconds();
+
+  double getOverlapSeconds();
+
+  double getAreaMillisP50();
+
+  double getAreaMillisP90();
+
+  double getAreaMillisP99();
+
+  double getAreaMillisMax();
+
+  long getSectorsPerAreaP50();
+
+  long getSectorsPerAreaP90();
+
+  long getSectorsPerAreaP99();
+
+  long getSectorsPerAreaMax();
+
+  /**
+   * Retrieve the areas that took longest to validate, slowest first.
+   *
+   * @return the slowest areas as text.
+   */
+  String[] getSlowestAreas();
+
+  /**
+   * Retrieve a summary of all metrics as text.
+   *
+   * @return the summary.
+   */
+  String getSummary();
+
+  /**
+   * Clears all metrics.
+   */
+  void reset();
+
+}
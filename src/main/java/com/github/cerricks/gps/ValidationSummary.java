@@ -0,0 +1,133 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+/**
+ * The outcome of validating a file.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+public class ValidationSummary {
+
+  private final int areaCount;
+  private final int invalidAreaCount;
+  private final int undeterminedAreaCount;
+
+  /**
+   * Creates a {@code ValidationSummary}.
+   *
+   * @param areaCount the number of areas validated.
+   * @param invalidAreaCount the number of areas found invalid.
+   */
+  public ValidationSummary(int areaCount, int invalidAreaCount) {
+    this(areaCount, invalidAreaCount, 0);
+  }
+
+  /**
+   * Creates a {@code ValidationSummary}.
+   *
+   * @param areaCount the number of areas validated.
+   * @param invalidAreaCount the number of areas found invalid.
+   * @param undeterminedAreaCount the number of areas whose validation exceeded
+   * its time budget.
+   */
+  public ValidationSummary(int areaCount, int invalidAreaCount, int undeterminedAreaCount) {
+    this.areaCount = areaCount;
+    this.invalidAreaCount = invalidAreaCount;
+    this.undeterminedAreaCount = undeterminedAreaCount;
+  }
+
+  /**
+   * Retrieve the number of areas validated.
+   *
+   * @return the number of areas validated.
+   */
+  public int getAreaCount() {
+    return areaCount;
+  }
+
+  /**
+   * Retrieve the number of areas found invalid, either because of invalid area
+   * coordinates or invalid sectors.
+   *
+   * @return the number of areas found invalid.
+   */
+  public int getInvalidAreaCount() {
+    return invalidAreaCount;
+  }
+
+  /**
+   * Retrieve the number of areas whose validation exceeded its time budget.
+   * These are neither valid nor invalid.
+   *
+   * @return the number of undetermined areas.
+   */
+  public int getUndeterminedAreaCount() {
+    return undeterminedAreaCount;
+  }
+
+  /**
+   * Indicates if all areas are valid.
+   *
+   * @return {@code true} if all areas are valid, {@code false} otherwise.
+   */
+  public boolean isValid() {
+    return invalidAreaCount == 0 && undeterminedAreaCount == 0;
+  }
+
+  /**
+   * Builds a {@link ValidationSummary} from the results of areas.
+   */
+  static class Builder {
+
+    private int areaCount;
+    private int invalidAreaCount;
+    private int undeterminedAreaCount;
+
+    /**
+     * Adds the result of an area.
+     *
+     * @param result the result of an area.
+     */
+    void add(AreaResult result) {
+      areaCount++;
+
+      if (result.isUndetermined()) {
+        undeterminedAreaCount++;
+      } else if (!result.isValid()) {
+        invalidAreaCount++;
+      }
+    }
+
+    /**
+     * Builds the summary.
+     *
+     * @return the summary.
+     */
+    ValidationSummary build() {
+      return new ValidationSummary(areaCount, invalidAreaCount, undeterminedAreaCount);
+    }
+
+  }
+
+  @Override
+  public String toString() {
+    return new StringBuilder().append(areaCount).append(" areas, ").append(invalidAreaCount).append(" invalid, ")
+            .append(undeterminedAreaCount).append(" undetermined").toString();
+  }
+
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for {@link BinarySectorFile}, {@link BinarySectorFileWriter} and
+ * {@link BinarySectorRecordReader}.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+public class BinarySectorFileTest {
+
+  private static final String HEADER = "AreaID,ALat1,ALon1,ALat2,ALon2,SectorID,c1,d1,c2,d2,c3,d3,c4,d4\n";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * Writes a CSV file of random areas and sectors.
+   *
+   * @param areas the number of areas.
+   * @return the file.
+   * @throws IOException if the file cannot be written.
+   */
+  private File csv(int areas) throws IOException {
+    Random random = new Random(4);
+    StringBuilder csv = new StringBuilder(HEADER);
+
+    for (int a = 0; a < areas; a++) {
+      String areaId = a % 3 == 0 ? "Gebiet-\u00e4" + a : "A" + a;
+      int sectors = 1 + random.nextInt(a % 5 == 0 ? 200 : 5);
+
+      for (int s = 0; s < sectors; s++) {
+        csv.append(areaId).append(",0,0,").append(a).append(".5,10,S").append(a).append('-').append(s);
+
+        for (int i = 0; i < 8; i++) {
+          csv.append(',').append(random.nextDouble() * 10);
+        }
+
+        csv.append('\n');
+      }
+    }
+
+    File file = folder.newFile();
+
+    Files.write(file.toPath(), csv.toString().getBytes(StandardCharsets.UTF_8));
+
+    return file;
+  }
+
+  /**
+   * Test that records read back from a converted file match the CSV, across
+   * many remappings of a small window.
+   */
+  @Test
+  public void testConvert_roundTrip() throws IOException {
+    File csv = csv(100);
+    File binary = folder.newFile("input.gpsb");
+
+    long records = BinarySectorFileWriter.convert(csv, StandardCharsets.UTF_8, binary);
+
+    assertTrue(BinarySectorFile.isBinary(binary));
+    assertFalse(BinarySectorFile.isBinary(csv));
+
+    long read = 0;
+
+    try (SectorRecordReader expected = new CsvSectorRecordReader(csv, StandardCharsets.UTF_8);
+            SectorRecordReader actual = new BinarySectorRecordReader(new BinarySectorFile(binary, 64), null)) {
+      SectorRecord expectedRecord = new SectorRecord();
+      SectorRecord actualRecord = new SectorRecord();
+
+      long bytesRead = 0;
+
+      while (expected.read(expectedRecord)) {
+        assertTrue(actual.read(actualRecord));
+        assertEquals(expectedRecord.areaId, actualRecord.areaId);
+        assertArrayEquals(expectedRecord.area, actualRecord.area, 0);
+        assertEquals(expectedRecord.sectorId, actualRecord.sectorId);
+        assertArrayEquals(expectedRecord.sector, actualRecord.sector, 0);
+        assertTrue(actual.getBytesRead() >= bytesRead);
+
+        bytesRead = actual.getBytesRead();
+        read++;
+      }
+
+      assertFalse(actual.read(actualRecord));
+      assertEquals(binary.length(), actual.getBytesRead());
+    }
+
+    assertEquals(records, read);
+  }
+
+  /**
+   * Test that areas can be read in any order through the index.
+   */
+  @Test
+  public void testRead_anyOrder() throws IOException {
+    File binary = folder.newFile("input.gpsb");
+
+    BinarySectorFileWriter.convert(csv(10), StandardCharsets.UTF_8, binary);
+
+    BinarySectorFile file = new BinarySectorFile(binary);
+
+    assertEquals(10, file.getAreaCount());
+    assertEquals(-1, file.indexOf("missing"));
+
+    int[] order = {file.indexOf("A7"), file.indexOf("Gebiet-\u00e43")};
+
+    try (SectorRecordReader reader = new BinarySectorRecordReader(file, order)) {
+      SectorRecord record = new SectorRecord();
+
+      assertTrue(reader.read(record));
+      assertEquals("A7", record.areaId);
+      assertEquals("S7-0", record.sectorId);
+      assertEquals(7.5, record.area[2], 0);
+
+      while ("A7".equals(record.areaId)) {
+        assertTrue(reader.read(record));
+      }
+
+      assertEquals("Gebiet-\u00e43", record.areaId);
+      assertEquals("S3-0", record.sectorId);
+    }
+  }
+
+  /**
+   * Test that a failed conversion leaves an existing output as it was.
+   */
+  @Test
+  public void testConvert_failureKeepsOutput() throws IOException {
+    File binary = folder.newFile("input.gpsb");
+
+    BinarySectorFileWriter.convert(csv(3), StandardCharsets.UTF_8, binary);
+
+    byte[] converted = Files.readAllBytes(binary.toPath());
+
+    File malformed = folder.newFile();
+
+    Files.write(malformed.toPath(), (HEADER + "A1,0,0,10,10,S1,1,1,1,2,2,2,2,1\nA1,0,0,10,10,S2,bad,1,1,2,2,2,2,1\n")
+            .getBytes(StandardCharsets.UTF_8));
+
+    try {
+      BinarySectorFileWriter.convert(malformed, StandardCharsets.UTF_8, binary);
+      fail("Malformed input converted");
+    } catch (RuntimeException ex) {
+      // expected
+    }
+
+    assertArrayEquals(converted, Files.readAllBytes(binary.toPath()));
+    assertEquals(3, folder.getRoot().list().length);
+  }
+
+  /**
+   * Test that an aborted writer leaves a file which is not taken for a binary
+   * file.
+   */
+  @Test
+  public void testAbort_notBinary() throws IOException {
+    File binary = folder.newFile("input.gpsb");
+
+    SectorRecord record = new SectorRecord();
+    record.areaId = "A1";
+    record.sectorId = "S1";
+
+    BinarySectorFileWriter writer = new BinarySectorFileWriter(binary);
+    writer.write(record);
+    writer.abort();
+    writer.close();
+
+    assertFalse(BinarySectorFile.isBinary(binary));
+  }
+
+  @Test(expected = IOException.class)
+  public void testOpen_notBinary() throws IOException {
+    new BinarySectorFile(csv(1)).close();
+  }
+
+}
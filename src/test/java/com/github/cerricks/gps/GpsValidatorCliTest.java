@@ -0,0 +1,364 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for {@link GpsValidatorCli}.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+public class GpsValidatorCliTest {
+
+  private static final String HEADER = "AreaID,ALat1,ALon1,ALat2,ALon2,SectorID,c1,d1,c2,d2,c3,d3,c4,d4";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * Writes a CSV file with the given rows.
+   *
+   * @param rows the data rows.
+   * @return the file.
+   * @throws IOException if the file cannot be written.
+   */
+  private File csv(String... rows) throws IOException {
+    File file = folder.newFile();
+
+    Files.write(file.toPath(), Arrays.asList(concat(HEADER, rows)), StandardCharsets.UTF_8);
+
+    return file;
+  }
+
+  private static String[] concat(String first, String... rest) {
+    String[] all = new String[rest.length + 1];
+    all[0] = first;
+    System.arraycopy(rest, 0, all, 1, rest.length);
+
+    return all;
+  }
+
+  @Test
+  public void testRun_valid() throws IOException {
+    File file = csv(
+            "A1,0,0,10,10,S1,1,1,1,2,2,2,2,1",
+            "A1,0,0,10,10,S2,3,3,3,4,4,4,4,3",
+            "A2,20,20,30,30,S3,21,21,21,22,22,22,22,21"
+    );
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    int exitCode = GpsValidatorCli.run(new String[]{file.getPath()}, new PrintStream(out), new PrintStream(new ByteArrayOutputStream()));
+
+    assertEquals(GpsValidatorCli.EXIT_VALID, exitCode);
+    assertTrue(out.toString().contains("Area ID = A2"));
+  }
+
+  @Test
+  public void testRun_overlapping() throws IOException {
+    File file = csv(
+            "A1,0,0,10,10,S1,1,1,1,3,3,3,3,1",
+            "A1,0,0,10,10,S2,2,2,2,4,4,4,4,2"
+    );
+
+    int exitCode = GpsValidatorCli.run(new String[]{file.getPath()}, new PrintStream(new ByteArrayOutputStream()), new PrintStream(new ByteArrayOutputStream()));
+
+    assertEquals(GpsValidatorCli.EXIT_INVALID, exitCode);
+  }
+
+  @Test
+  public void testRun_invalidAreaCoordinates() throws IOException {
+    File file = csv("A1,0,0,0,10,S1,1,1,1,2,2,2,2,1");
+
+    int exitCode = GpsValidatorCli.run(new String[]{file.getPath()}, new PrintStream(new ByteArrayOutputStream()), new PrintStream(new ByteArrayOutputStream()));
+
+    assertEquals(GpsValidatorCli.EXIT_INVALID, exitCode);
+  }
+
+  @Test
+  public void testRun_missingFile() {
+    File file = new File(folder.getRoot(), "missing.csv");
+
+    int exitCode = GpsValidatorCli.run(new String[]{file.getPath()}, new PrintStream(new ByteArrayOutputStream()), new PrintStream(new ByteArrayOutputStream()));
+
+    assertEquals(GpsValidatorCli.EXIT_ERROR, exitCode);
+  }
+
+  @Test
+  public void testRun_unknownOption() throws IOException {
+    File file = csv("A1,0,0,10,10,S1,1,1,1,2,2,2,2,1");
+
+    for (String option : new String[]{"--bogus", "-x"}) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+      int exitCode = GpsValidatorCli.run(new String[]{option, file.getPath()}, new PrintStream(out), new PrintStream(err));
+
+      assertEquals(GpsValidatorCli.EXIT_ERROR, exitCode);
+      assertEquals("", out.toString());
+      assertTrue(err.toString().startsWith("Unknown option: " + option));
+    }
+  }
+
+  @Test
+  public void testRun_outputFile() throws IOException {
+    File file = csv("A1,0,0,10,10,S1,1,1,1,2,2,2,2,1");
+    File output = new File(folder.getRoot(), "results.txt");
+
+    int exitCode = GpsValidatorCli.run(new String[]{"-o", output.getPath(), file.getPath()}, new PrintStream(new ByteArrayOutputStream()), new PrintStream(new ByteArrayOutputStream()));
+
+    assertEquals(GpsValidatorCli.EXIT_VALID, exitCode);
+    assertTrue(new String(Files.readAllBytes(output.toPath()), StandardCharsets.UTF_8).contains("Success: All sectors within area and clear of overlap"));
+  }
+
+  @Test
+  public void testRun_csvReport() throws IOException {
+    File file = csv(
+            "A1,0,0,10,10,S1,1,1,1,3,3,3,3,1",
+            "A1,0,0,10,10,S2,2,2,2,4,4,4,4,2",
+            "A2,20,20,20,30,S3,21,21,21,22,22,22,22,21",
+            "A3,20,20,30,30,S4,21,21,21,22,22,22,22,21"
+    );
+    File report = new File(folder.getRoot(), "report.csv");
+
+    int exitCode = GpsValidatorCli.run(new String[]{"-r", report.getPath(), file.getPath()}, new PrintStream(new ByteArrayOutputStream()), new PrintStream(new ByteArrayOutputStream()));
+
+    assertEquals(GpsValidatorCli.EXIT_INVALID, exitCode);
+    assertEquals(Arrays.asList(
+            "File,AreaID,AreaCoordinatesValid,Verdict,OffendingSectorIDs",
+            file.getPath() + ",A1,true,SECTORS_OVERLAP,S1;S2",
+            file.getPath() + ",A2,false,INVALID_AREA_COORDINATES,",
+            file.getPath() + ",A3,true,VALID,"
+    ), Files.readAllLines(report.toPath(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testRun_jsonReport() throws IOException {
+    File file = csv(
+            "\"A\"\"1\"\"\",0,0,10,10,S1,1,1,1,2,2,2,2,1",
+            "A2,0,0,10,10,S2,1,1,1,2,2,2,2,20"
+    );
+    File report = new File(folder.getRoot(), "report.json");
+
+    int exitCode = GpsValidatorCli.run(new String[]{"--report", report.getPath(), file.getPath()}, new PrintStream(new ByteArrayOutputStream()), new PrintStream(new ByteArrayOutputStream()));
+
+    String path = file.getPath().replace("\\", "\\\\");
+
+    assertEquals(GpsValidatorCli.EXIT_INVALID, exitCode);
+    assertEquals(Arrays.asList(
+            "[",
+            "  {\"file\": \"" + path + "\", \"areaId\": \"A\\\"1\\\"\", \"areaCoordinatesValid\": true, \"verdict\": \"VALID\", \"offendingSectorIds\": [], \"violations\": []},",
+            "  {\"file\": \"" + path + "\", \"areaId\": \"A2\", \"areaCoordinatesValid\": true, \"verdict\": \"SECTOR_OUTSIDE_AREA\", \"offendingSectorIds\": [\"S2\"], \"violations\": [{\"verdict\": \"SECTOR_OUTSIDE_AREA\", \"sectorIds\": [\"S2\"]}]}",
+            "]"
+    ), Files.readAllLines(report.toPath(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testRun_allViolations() throws IOException {
+    File file = csv(
+            "A1,0,0,10,10,S1,1,1,1,3,3,3,3,1",
+            "A1,0,0,10,10,S2,2,2,2,4,4,4,4,2",
+            "A1,0,0,10,10,S3,2.5,2.5,2.5,5,5,5,5,2.5",
+            "A1,0,0,10,10,S4,9,9,9,11,11,11,11,9",
+            "A1,0,0,10,10,S5,6,6,6,7,7,7,7,6"
+    );
+    File report = new File(folder.getRoot(), "report.csv");
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    int exitCode = GpsValidatorCli.run(new String[]{"-a", "-r", report.getPath(), file.getPath()}, new PrintStream(out), new PrintStream(new ByteArrayOutputStream()));
+
+    assertEquals(GpsValidatorCli.EXIT_INVALID, exitCode);
+    assertTrue(out.toString().contains("Error: Sector [S4] is outside the area"));
+    assertTrue(out.toString().contains("Error: Sector [S2] overlaps Sector [S3]"));
+    assertEquals(Arrays.asList(
+            "File,AreaID,AreaCoordinatesValid,Verdict,OffendingSectorIDs",
+            file.getPath() + ",A1,true,SECTOR_OUTSIDE_AREA,S4",
+            file.getPath() + ",A1,true,SECTORS_OVERLAP,S1;S2",
+            file.getPath() + ",A1,true,SECTORS_OVERLAP,S1;S3",
+            file.getPath() + ",A1,true,SECTORS_OVERLAP,S2;S3"
+    ), Files.readAllLines(report.toPath(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testRun_unsorted() throws IOException {
+    File file = csv(
+            "A2,20,20,30,30,S3,21,21,21,22,22,22,22,21",
+            "A1,0,0,10,10,S1,1,1,1,3,3,3,3,1",
+            "A2,20,20,30,30,S4,23,23,23,24,24,24,24,23",
+            "A1,0,0,10,10,S2,2,2,2,4,4,4,4,2"
+    );
+    File report = new File(folder.getRoot(), "report.csv");
+
+    int exitCode = GpsValidatorCli.run(new String[]{"-u", "-r", report.getPath(), file.getPath()}, new PrintStream(new ByteArrayOutputStream()), new PrintStream(new ByteArrayOutputStream()));
+
+    assertEquals(GpsValidatorCli.EXIT_INVALID, exitCode);
+    assertEquals(Arrays.asList(
+            "File,AreaID,AreaCoordinatesValid,Verdict,OffendingSectorIDs",
+            file.getPath() + ",A1,true,SECTORS_OVERLAP,S1;S2",
+            file.getPath() + ",A2,true,VALID,"
+    ), Files.readAllLines(report.toPath(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testRun_areaTimeout() throws IOException {
+    List<String> rows = new ArrayList<>();
+
+    // 100,000 sectors clear of one another take far longer than 1 ms to sweep
+    for (int i = 0; i < 100000; i++) {
+      int lat = i / 1000 * 2;
+      int lon = i % 1000 * 2;
+
+      rows.add("A1,0,0,1000,3000,S" + i + "," + lat + "," + lon + "," + lat + "," + (lon + 1) + ","
+              + (lat + 1) + "," + (lon + 1) + "," + (lat + 1) + "," + lon);
+    }
+
+    rows.add("A2,20,20,30,30,S0,21,21,21,22,22,22,22,21");
+
+    File file = csv(rows.toArray(new String[0]));
+    File report = new File(folder.getRoot(), "report.csv");
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    int exitCode = GpsValidatorCli.run(new String[]{"--area-timeout", "0.001", "-r", report.getPath(), file.getPath()}, new PrintStream(out), new PrintStream(new ByteArrayOutputStream()));
+
+    assertEquals(GpsValidatorCli.EXIT_UNDETERMINED, exitCode);
+    assertTrue(out.toString().contains("Warning: Area undetermined (timeout)"));
+    assertEquals(Arrays.asList(
+            "File,AreaID,AreaCoordinatesValid,Verdict,OffendingSectorIDs",
+            file.getPath() + ",A1,true,UNDETERMINED,",
+            file.getPath() + ",A2,true,VALID,"
+    ), Files.readAllLines(report.toPath(), StandardCharsets.UTF_8));
+
+    // without a time budget the same area is valid
+    assertEquals(GpsValidatorCli.EXIT_VALID, GpsValidatorCli.run(new String[]{file.getPath()}, new PrintStream(new ByteArrayOutputStream()), new PrintStream(new ByteArrayOutputStream())));
+    assertEquals(GpsValidatorCli.EXIT_ERROR, GpsValidatorCli.run(new String[]{"--area-timeout", "soon", file.getPath()}, new PrintStream(new ByteArrayOutputStream()), new PrintStream(new ByteArrayOutputStream())));
+  }
+
+  @Test
+  public void testRun_spillThreshold() throws IOException {
+    File file = csv(
+            "A1,0,0,10,10,S1,1,1,1,2,2,2,2,1",
+            "A1,0,0,10,10,S2,3,3,3,4,4,4,4,3",
+            "A1,0,0,10,10,S3,5,5,5,6,6,6,6,5",
+            "A2,0,0,10,10,S4,1,1,1,3,3,3,3,1",
+            "A2,0,0,10,10,S5,7,7,7,8,8,8,8,7",
+            "A2,0,0,10,10,S6,2,2,2,4,4,4,4,2"
+    );
+    File report = new File(folder.getRoot(), "report.csv");
+
+    int exitCode = GpsValidatorCli.run(new String[]{"--spill-threshold", "1", "-r", report.getPath(), file.getPath()}, new PrintStream(new ByteArrayOutputStream()), new PrintStream(new ByteArrayOutputStream()));
+
+    assertEquals(GpsValidatorCli.EXIT_INVALID, exitCode);
+    assertEquals(Arrays.asList(
+            "File,AreaID,AreaCoordinatesValid,Verdict,OffendingSectorIDs",
+            file.getPath() + ",A1,true,VALID,",
+            file.getPath() + ",A2,true,SECTORS_OVERLAP,S4;S6"
+    ), Files.readAllLines(report.toPath(), StandardCharsets.UTF_8));
+
+    assertEquals(GpsValidatorCli.EXIT_ERROR, GpsValidatorCli.run(new String[]{"--spill-threshold", "-1", file.getPath()}, new PrintStream(new ByteArrayOutputStream()), new PrintStream(new ByteArrayOutputStream())));
+  }
+
+  @Test
+  public void testRun_convert() throws IOException {
+    File file = csv(
+            "A1,0,0,10,10,S1,1,1,1,2,2,2,2,1",
+            "A1,0,0,10,10,S2,3,3,3,4,4,4,4,3",
+            "A2,0,0,10,10,S3,1,1,1,3,3,3,3,1",
+            "A2,0,0,10,10,S4,2,2,2,4,4,4,4,2"
+    );
+    File binary = new File(folder.getRoot(), "input.gpsb");
+    File report = new File(folder.getRoot(), "report.csv");
+
+    assertEquals(GpsValidatorCli.EXIT_VALID, GpsValidatorCli.run(new String[]{"--convert", binary.getPath(), file.getPath()}, new PrintStream(new ByteArrayOutputStream()), new PrintStream(new ByteArrayOutputStream())));
+
+    int exitCode = GpsValidatorCli.run(new String[]{"-r", report.getPath(), binary.getPath()}, new PrintStream(new ByteArrayOutputStream()), new PrintStream(new ByteArrayOutputStream()));
+
+    assertEquals(GpsValidatorCli.EXIT_INVALID, exitCode);
+    assertEquals(Arrays.asList(
+            "File,AreaID,AreaCoordinatesValid,Verdict,OffendingSectorIDs",
+            binary.getPath() + ",A1,true,VALID,",
+            binary.getPath() + ",A2,true,SECTORS_OVERLAP,S3;S4"
+    ), Files.readAllLines(report.toPath(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testRun_convertMalformed() throws IOException {
+    File file = csv(
+            "A1,0,0,10,10,S1,1,1,1,2,2,2,2,1",
+            "A1,0,0,10,10,S2,3,3,3,4,4,4,4,3",
+            "A2,0,0,10,10,S3,bad,1,1,3,3,3,3,1"
+    );
+    File binary = new File(folder.getRoot(), "input.gpsb");
+
+    assertEquals(GpsValidatorCli.EXIT_ERROR, GpsValidatorCli.run(new String[]{"--convert", binary.getPath(), file.getPath()}, new PrintStream(new ByteArrayOutputStream()), new PrintStream(new ByteArrayOutputStream())));
+
+    // no partial file that could be validated later, nor a temporary file left behind
+    assertFalse(binary.exists());
+    assertEquals(Arrays.asList(file.getName()), Arrays.asList(folder.getRoot().list()));
+  }
+
+  @Test
+  public void testRun_cache() throws IOException {
+    File file = csv(
+            "A1,0,0,10,10,S1,1,1,1,3,3,3,3,1",
+            "A1,0,0,10,10,S2,2,2,2,4,4,4,4,2",
+            "A2,20,20,30,30,S3,21,21,21,22,22,22,22,21"
+    );
+    File cache = folder.newFolder();
+    String[] args = {"--cache-dir", cache.getPath(), file.getPath()};
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    assertEquals(GpsValidatorCli.EXIT_INVALID, GpsValidatorCli.run(args, new PrintStream(out), new PrintStream(new ByteArrayOutputStream())));
+    assertTrue(out.toString().contains("Reused cached results for 0 of 2 areas."));
+
+    out.reset();
+
+    assertEquals(GpsValidatorCli.EXIT_INVALID, GpsValidatorCli.run(args, new PrintStream(out), new PrintStream(new ByteArrayOutputStream())));
+    assertTrue(out.toString().contains("Reused cached results for 2 of 2 areas."));
+
+    // fix the overlap in A1, A2 is unchanged
+    Files.write(file.toPath(), Arrays.asList(
+            HEADER,
+            "A1,0,0,10,10,S1,1,1,1,2,2,2,2,1",
+            "A1,0,0,10,10,S2,3,3,3,4,4,4,4,3",
+            "A2,20,20,30,30,S3,21,21,21,22,22,22,22,21"
+    ), StandardCharsets.UTF_8);
+
+    out.reset();
+
+    assertEquals(GpsValidatorCli.EXIT_VALID, GpsValidatorCli.run(args, new PrintStream(out), new PrintStream(new ByteArrayOutputStream())));
+    assertTrue(out.toString().contains("Reused cached results for 1 of 2 areas."));
+  }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for {@link GpsValidator}.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+public class GpsValidatorTest {
+
+  private static final String HEADER = "AreaID,ALat1,ALon1,ALat2,ALon2,SectorID,c1,d1,c2,d2,c3,d3,c4,d4";
+
+  /**
+   * Many more areas than are validated ahead of the oldest pending area.
+   */
+  private static final int AREAS = GpsValidator.MAX_PENDING_AREAS * 8;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * Writes a CSV file of areas of uneven size: every tenth area has thousands
+   * of sectors, so it finishes well after the small areas following it, and
+   * some areas have an overlapping pair.
+   *
+   * @return the file.
+   * @throws IOException if the file cannot be written.
+   */
+  private File csv() throws IOException {
+    List<String> rows = new ArrayList<>();
+    rows.add(HEADER);
+
+    for (int a = 0; a < AREAS; a++) {
+      int sectors = a % 10 == 0 ? 2500 : 1 + a % 3;
+
+      for (int s = 0; s < sectors; s++) {
+        rows.add(row(a, s, 1 + s / 50, 1 + s % 50));
+      }
+
+      if (overlaps(a)) {
+        rows.add(row(a, sectors, 1.25, 1.25));
+      }
+    }
+
+    File file = folder.newFile();
+
+    Files.write(file.toPath(), rows, StandardCharsets.UTF_8);
+
+    return file;
+  }
+
+  /**
+   * Formats a row of a square sector of an area.
+   *
+   * @param area the index of the area.
+   * @param sector the index of the sector.
+   * @param lat the latitude of the south-west corner.
+   * @param lon the longitude of the south-west corner.
+   * @return the row.
+   */
+  private static String row(int area, int sector, double lat, double lon) {
+    return "A" + area + ",0,0,100,100,S" + sector + ","
+            + lat + "," + lon + "," + lat + "," + (lon + 0.5) + ","
+            + (lat + 0.5) + "," + (lon + 0.5) + "," + (lat + 0.5) + "," + lon;
+  }
+
+  private static boolean overlaps(int area) {
+    return area % 7 == 3;
+  }
+
+  /**
+   * Test that results come out in file order although areas finish out of
+   * order.
+   */
+  @Test
+  public void testValidate_fileOrder() throws Exception {
+    List<AreaResult> results = new ArrayList<>();
+
+    ValidationSummary summary = new GpsValidator().validate(csv(), new ValidationListener() {
+      @Override
+      public void message(String message) {
+      }
+
+      @Override
+      public void areaValidated(AreaResult result) {
+        results.add(result);
+      }
+    });
+
+    assertEquals(AREAS, results.size());
+    assertEquals(AREAS, summary.getAreaCount());
+
+    for (int a = 0; a < AREAS; a++) {
+      assertEquals("A" + a, results.get(a).getAreaId());
+      assertEquals(overlaps(a) ? AreaResult.Verdict.SECTORS_OVERLAP : AreaResult.Verdict.VALID, results.get(a).getVerdict());
+    }
+  }
+
+  /**
+   * Test that an exception thrown while validating an area reaches the caller,
+   * after the results of the areas before it.
+   */
+  @Test
+  public void testValidate_workerFailure() throws Exception {
+    String failing = "A" + (AREAS / 2);
+
+    ExecutorService executor = new ThreadPoolExecutor(4, 4, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>()) {
+      @Override
+      public <T> Future<T> submit(Callable<T> task) {
+        return super.submit(() -> {
+          T result = task.call();
+
+          if (((AreaResult) result).getAreaId().equals(failing)) {
+            throw new IllegalStateException("Failed to validate " + failing);
+          }
+
+          return result;
+        });
+      }
+    };
+
+    GpsValidator validator = new GpsValidator();
+    validator.setExecutor(executor);
+
+    List<String> areaIds = new ArrayList<>();
+
+    try {
+      validator.validate(csv(), new ValidationListener() {
+        @Override
+        public void message(String message) {
+        }
+
+        @Override
+        public void areaValidated(AreaResult result) {
+          areaIds.add(result.getAreaId());
+        }
+      });
+
+      fail("Worker failure not reported");
+    } catch (ExecutionException ex) {
+      assertTrue(ex.getCause() instanceof IllegalStateException);
+      assertEquals("Failed to validate " + failing, ex.getCause().getMessage());
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(AREAS / 2, areaIds.size());
+
+    for (int a = 0; a < areaIds.size(); a++) {
+      assertEquals("A" + a, areaIds.get(a));
+    }
+  }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for {@link GzipPipeInputStream}.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+public class GzipPipeInputStreamTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * Writes a gzip file with the given content.
+   *
+   * @param content the content.
+   * @return the file.
+   * @throws IOException if the file cannot be written.
+   */
+  private File gzip(byte[] content) throws IOException {
+    File file = folder.newFile("input.csv.gz");
+
+    try (OutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+      out.write(content);
+    }
+
+    return file;
+  }
+
+  /**
+   * Test that content spanning several chunks is decompressed intact and that
+   * progress reaches the size of the compressed file.
+   */
+  @Test
+  public void testRead_severalChunks() throws IOException {
+    byte[] content = new byte[5 * 1000 * 1000];
+
+    new Random(2).nextBytes(content);
+
+    File file = gzip(content);
+
+    ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+
+    try (GzipPipeInputStream in = new GzipPipeInputStream(file)) {
+      byte[] buffer = new byte[10007];
+      int n;
+
+      while ((n = in.read(buffer, 0, buffer.length)) >= 0) {
+        decompressed.write(buffer, 0, n);
+      }
+
+      assertEquals(file.length(), in.getCompressedBytesRead());
+    }
+
+    assertArrayEquals(content, decompressed.toByteArray());
+  }
+
+  @Test(expected = IOException.class)
+  public void testRead_notGzip() throws IOException {
+    File file = folder.newFile("input.csv.gz");
+
+    Files.write(file.toPath(), "AreaID,ALat1".getBytes(StandardCharsets.UTF_8));
+
+    try (GzipPipeInputStream in = new GzipPipeInputStream(file)) {
+      in.read();
+    }
+  }
+
+  /**
+   * Test that gzip files are opened through the decompressing stream.
+   */
+  @Test
+  public void testOpen_gzip() throws IOException {
+    String csv = "AreaID,ALat1,ALon1,ALat2,ALon2,SectorID,c1,d1,c2,d2,c3,d3,c4,d4\n"
+            + "A1,0,0,10,10,S1,1,1,1,2,2,2,2,1\n";
+
+    File file = gzip(csv.getBytes(StandardCharsets.UTF_8));
+
+    assertTrue(SectorRecordReader.isGzip(file));
+
+    try (SectorRecordReader reader = SectorRecordReader.open(file, StandardCharsets.UTF_8)) {
+      SectorRecord record = new SectorRecord();
+
+      assertTrue(reader.read(record));
+      assertEquals("A1", record.areaId);
+      assertEquals("S1", record.sectorId);
+      assertFalse(reader.read(record));
+      assertEquals(file.length(), reader.getBytesRead());
+    }
+  }
+
+}
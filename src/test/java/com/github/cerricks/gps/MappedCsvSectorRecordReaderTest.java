@@ -0,0 +1,150 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for {@link MappedCsvSectorRecordReader}.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+public class MappedCsvSectorRecordReaderTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * Writes a file with the given content.
+   *
+   * @param content the content.
+   * @return the file.
+   * @throws IOException if the file cannot be written.
+   */
+  private File file(String content) throws IOException {
+    File file = folder.newFile();
+
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+
+    return file;
+  }
+
+  /**
+   * Asserts that the mapped reader reads the same records as Commons CSV.
+   *
+   * @param file the file to read.
+   * @param windowSize the mapping window size.
+   * @throws IOException if the file cannot be read.
+   */
+  private void assertSameAsCommonsCsv(File file, int windowSize) throws IOException {
+    try (SectorRecordReader expected = new CsvSectorRecordReader(file, StandardCharsets.UTF_8);
+            SectorRecordReader actual = new MappedCsvSectorRecordReader(file, StandardCharsets.UTF_8, windowSize)) {
+      SectorRecord expectedRecord = new SectorRecord();
+      SectorRecord actualRecord = new SectorRecord();
+
+      while (expected.read(expectedRecord)) {
+        assertTrue(actual.read(actualRecord));
+        assertEquals(expectedRecord.areaId, actualRecord.areaId);
+        assertArrayEquals(expectedRecord.area, actualRecord.area, 0);
+        assertEquals(expectedRecord.sectorId, actualRecord.sectorId);
+        assertArrayEquals(expectedRecord.sector, actualRecord.sector, 0);
+      }
+
+      assertFalse(actual.read(actualRecord));
+    }
+  }
+
+  @Test
+  public void testRead_reusesAreaId() throws IOException {
+    File file = file("AreaID,ALat1,ALon1,ALat2,ALon2,SectorID,c1,d1,c2,d2,c3,d3,c4,d4\n"
+            + "A1,0,0,10,10,S1,1,1,1,2,2,2,2,1\n"
+            + "A1,0,0,10,10,S2,3,3,3,4,4,4,4,3\n");
+
+    try (SectorRecordReader reader = new MappedCsvSectorRecordReader(file, StandardCharsets.UTF_8)) {
+      SectorRecord record = new SectorRecord();
+
+      assertTrue(reader.read(record));
+
+      String areaId = record.areaId;
+
+      assertTrue(reader.read(record));
+      assertSame(areaId, record.areaId);
+      assertEquals("S2", record.sectorId);
+      assertEquals(file.length(), reader.getBytesRead());
+    }
+  }
+
+  /**
+   * Test quoting, line endings, column order and number formats.
+   */
+  @Test
+  public void testRead_formats() throws IOException {
+    File file = file("SectorID,AreaID,ALat1,ALon1,ALat2,ALon2,c1,d1,c2,d2,c3,d3,c4,d4,Extra\r\n"
+            + "\"S,1\",\"A \"\"1\"\"\",-0,+1.5,1e2,10.,.5,1,1,2,2,2,2,1,x\r\n"
+            + "\r\n"
+            + "S2,\"A \"\"1\"\"\",0,0,10,10, 3.25 ,3,3,4,4,4,4,3,\"multi\nline\"\n"
+            + "S3,A2,38.866694,-77.128092,38.866600,-77.128099,0.1234567890123456789,-77.126662,1,1,1,1,1,1,\n"
+            + "S4,A2,0,0,0,0,1,1,1,1,1,1,1,1");
+
+    assertSameAsCommonsCsv(file, MappedCsvSectorRecordReader.DEFAULT_WINDOW_SIZE);
+    assertSameAsCommonsCsv(file, 100);
+  }
+
+  /**
+   * Test random coordinates across many small mapping windows.
+   */
+  @Test
+  public void testRead_windows() throws IOException {
+    Random random = new Random(7);
+
+    StringBuilder content = new StringBuilder("AreaID,ALat1,ALon1,ALat2,ALon2,SectorID,c1,d1,c2,d2,c3,d3,c4,d4\n");
+
+    for (int i = 0; i < 500; i++) {
+      content.append("Area").append(i / 10);
+
+      for (int j = 0; j < 4; j++) {
+        content.append(',').append((i / 10) + 0.25 * j);
+      }
+
+      content.append(",Sector").append(i);
+
+      for (int j = 0; j < 8; j++) {
+        content.append(',').append((random.nextDouble() - 0.5) * 360);
+      }
+
+      content.append('\n');
+    }
+
+    File file = file(content.toString());
+
+    assertSameAsCommonsCsv(file, 200);
+    assertSameAsCommonsCsv(file, 4096);
+  }
+
+}
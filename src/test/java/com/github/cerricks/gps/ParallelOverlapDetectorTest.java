@@ -0,0 +1,121 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link ParallelOverlapDetector}.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+public class ParallelOverlapDetectorTest {
+
+  /**
+   * Creates a grid of touching-free unit squares.
+   *
+   * @param columns the number of columns.
+   * @param rows the number of rows.
+   * @return the sectors.
+   */
+  private static List<Sector> grid(int columns, int rows) {
+    List<Sector> sectors = new ArrayList<>();
+
+    for (int x = 0; x < columns; x++) {
+      for (int y = 0; y < rows; y++) {
+        sectors.add(new Sector(x + "-" + y,
+                new Coordinates(y * 2, x * 2),
+                new Coordinates(y * 2 + 1, x * 2),
+                new Coordinates(y * 2 + 1, x * 2 + 1),
+                new Coordinates(y * 2, x * 2 + 1)));
+      }
+    }
+
+    return sectors;
+  }
+
+  @Test
+  public void testFindOverlap_none() {
+    ParallelOverlapDetector detector = new ParallelOverlapDetector(ForkJoinPool.commonPool(), 16);
+
+    assertNull(detector.findOverlap(grid(50, 20)));
+  }
+
+  /**
+   * Test that stopped strips are reported as cancelled rather than as finding
+   * no overlap.
+   */
+  @Test(expected = CancellationException.class)
+  public void testFindOverlap_cancelled() {
+    ParallelOverlapDetector detector = new ParallelOverlapDetector(ForkJoinPool.commonPool(), 16);
+
+    detector.findOverlap(grid(50, 20), () -> true);
+  }
+
+  /**
+   * Test that an overlap between sectors in different strips is found.
+   */
+  @Test
+  public void testFindOverlap_straddlingStrips() {
+    List<Sector> sectors = grid(50, 20);
+
+    // a long sector spanning many strips, overlapping only the last column
+    sectors.add(0, new Sector("long",
+            new Coordinates(0.25, -10),
+            new Coordinates(0.75, -10),
+            new Coordinates(0.75, 98.5),
+            new Coordinates(0.25, 98.5)));
+
+    // clear the columns in between so only the far end overlaps
+    sectors.removeIf(sector -> sector.getMinLatitude() == 0 && sector.getMinLongitude() < 98);
+
+    ParallelOverlapDetector detector = new ParallelOverlapDetector(ForkJoinPool.commonPool(), 16);
+
+    int[] overlap = detector.findOverlap(sectors);
+
+    assertNotNull(overlap);
+    assertEquals(0, overlap[0]);
+    assertEquals("49-0", sectors.get(overlap[1]).getId());
+  }
+
+  /**
+   * Test that the detector agrees with the single-threaded sweep.
+   */
+  @Test
+  public void testFindOverlap_matchesSweep() {
+    List<Sector> sectors = grid(40, 40);
+
+    sectors.add(new Sector("extra", new Coordinates(40.5, 40.5), new Coordinates(41.5, 40.5), new Coordinates(41.5, 41.5), new Coordinates(40.5, 41.5)));
+
+    ParallelOverlapDetector detector = new ParallelOverlapDetector(ForkJoinPool.commonPool(), 32);
+
+    int[] overlap = detector.findOverlap(sectors);
+
+    assertNotNull(new SweepOverlapDetector().findOverlap(sectors));
+    assertNotNull(overlap);
+    assertTrue(sectors.get(overlap[0]).overlaps(sectors.get(overlap[1])));
+  }
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.awt.geom.Line2D;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link Predicates}.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+public class PredicatesTest {
+
+  /**
+   * Test points so close to collinear that the floating point determinant
+   * cannot be trusted, against exact arithmetic.
+   */
+  @Test
+  public void testOrientation_nearlyCollinear() {
+    Random random = new Random(11);
+
+    for (int i = 0; i < 100000; i++) {
+      double ax = 38 + random.nextDouble();
+      double ay = -77 + random.nextDouble();
+      double bx = 38 + random.nextDouble();
+      double by = -77 + random.nextDouble();
+      double t = random.nextDouble();
+
+      // a point on the line through a and b, perturbed by a few ulps
+      double cx = ax + t * (bx - ax) + (random.nextInt(5) - 2) * Math.ulp(ax);
+      double cy = ay + t * (by - ay) + (random.nextInt(5) - 2) * Math.ulp(ay);
+
+      assertEquals(Predicates.orientationExact(ax, ay, bx, by, cx, cy), Predicates.orientation(ax, ay, bx, by, cx, cy));
+    }
+  }
+
+  /**
+   * Test that the filter-only side test never contradicts the exact
+   * orientation, near collinear or not.
+   */
+  @Test
+  public void testIsOnSide_agreesWithOrientation() {
+    Random random = new Random(12);
+
+    for (int i = 0; i < 100000; i++) {
+      double ax = 38 + random.nextDouble();
+      double ay = -77 + random.nextDouble();
+      double bx = 38 + random.nextDouble();
+      double by = -77 + random.nextDouble();
+      double t = random.nextDouble();
+
+      // near the line through a and b half of the time, anywhere otherwise
+      double cx = i % 2 == 0 ? ax + t * (bx - ax) + (random.nextInt(5) - 2) * Math.ulp(ax) : 38 + random.nextDouble();
+      double cy = i % 2 == 0 ? ay + t * (by - ay) + (random.nextInt(5) - 2) * Math.ulp(ay) : -77 + random.nextDouble();
+
+      int orientation = Predicates.orientationExact(ax, ay, bx, by, cx, cy);
+
+      for (int side = -1; side <= 1; side += 2) {
+        if (Predicates.isOnSide(ax, ay, bx, by, cx, cy, side)) {
+          assertEquals(side, orientation);
+        }
+      }
+    }
+
+    assertTrue(Predicates.isOnSide(0, 0, 1, 0, 0, 1, 1));
+    assertFalse(Predicates.isOnSide(0, 0, 1, 0, 0, 1, -1));
+    assertFalse(Predicates.isOnSide(0.1, 0.1, 0.2, 0.2, 0.3, 0.3, 1));
+    assertFalse(Predicates.isOnSide(0.1, 0.1, 0.2, 0.2, 0.3, 0.3, -1));
+  }
+
+  @Test
+  public void testOrientation() {
+    assertEquals(1, Predicates.orientation(0, 0, 1, 0, 0, 1));
+    assertEquals(-1, Predicates.orientation(0, 0, 0, 1, 1, 0));
+    assertEquals(0, Predicates.orientation(0, 0, 1, 1, 2, 2));
+
+    // collinear only in exact arithmetic: 0.1 * 3 != 0.3 in floating point
+    assertEquals(0, Predicates.orientation(0.1, 0.1, 0.2, 0.2, 0.3, 0.3));
+    assertEquals(0, Predicates.orientation(38.866694, -77.128092, 38.866694, -77.128092, 1, 1));
+  }
+
+  /**
+   * Test segments touching at end points and overlapping along a line, which
+   * always intersect.
+   */
+  @Test
+  public void testSegmentsIntersect_degenerate() {
+    // shared end point
+    assertTrue(Predicates.segmentsIntersect(0, 0, 1, 1, 1, 1, 2, 0));
+    // end point on the other segment
+    assertTrue(Predicates.segmentsIntersect(0, 0, 2, 0, 1, 0, 1, 5));
+    // collinear, overlapping
+    assertTrue(Predicates.segmentsIntersect(0, 0, 2, 2, 1, 1, 3, 3));
+    // collinear, disjoint
+    assertFalse(Predicates.segmentsIntersect(0, 0, 1, 1, 2, 2, 3, 3));
+    // parallel
+    assertFalse(Predicates.segmentsIntersect(0, 0, 1, 1, 0, 1, 1, 2));
+    // zero length
+    assertTrue(Predicates.segmentsIntersect(1, 1, 1, 1, 0, 0, 2, 2));
+    assertFalse(Predicates.segmentsIntersect(1, 1, 1, 1, 0, 1, 2, 2));
+
+    // a shared edge with coordinates not exactly representable
+    assertTrue(Predicates.segmentsIntersect(38.866694, -77.128092, 38.8666, -77.128099, 38.8666, -77.128099, 38.866694, -77.128092));
+  }
+
+  /**
+   * Test against {@link Line2D#linesIntersect} on small integer coordinates,
+   * where floating point arithmetic is exact. Pairs of single points are
+   * skipped, as {@code Line2D} reports any two points as intersecting.
+   */
+  @Test
+  public void testSegmentsIntersect_matchesLine2D() {
+    Random random = new Random(5);
+
+    for (int i = 0; i < 100000; i++) {
+      double[] c = new double[8];
+
+      for (int j = 0; j < c.length; j++) {
+        c[j] = random.nextInt(5);
+      }
+
+      if (c[0] == c[2] && c[1] == c[3] && c[4] == c[6] && c[5] == c[7]) {
+        assertEquals(c[0] == c[4] && c[1] == c[5], Predicates.segmentsIntersect(c[0], c[1], c[2], c[3], c[4], c[5], c[6], c[7]));
+
+        continue;
+      }
+
+      assertEquals(Line2D.linesIntersect(c[0], c[1], c[2], c[3], c[4], c[5], c[6], c[7]),
+              Predicates.segmentsIntersect(c[0], c[1], c[2], c[3], c[4], c[5], c[6], c[7]));
+    }
+  }
+
+}
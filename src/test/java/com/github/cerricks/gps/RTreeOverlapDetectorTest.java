@@ -0,0 +1,138 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link RTreeOverlapDetector} and {@link StrTree}.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+public class RTreeOverlapDetectorTest {
+
+  /**
+   * Creates random, mostly rectangular sectors.
+   *
+   * @param random the source of randomness.
+   * @param count the number of sectors.
+   * @param extent the extent of the coordinates.
+   * @return the sectors.
+   */
+  private static List<Sector> randomSectors(Random random, int count, double extent) {
+    List<Sector> sectors = new ArrayList<>();
+
+    for (int i = 0; i < count; i++) {
+      double lat = random.nextDouble() * extent;
+      double lon = random.nextDouble() * extent;
+      double size = 1 + random.nextDouble() * 4;
+
+      sectors.add(new Sector(String.valueOf(i),
+              new Coordinates(lat, lon),
+              new Coordinates(lat + size, lon + random.nextDouble()),
+              new Coordinates(lat + size + random.nextDouble(), lon + size),
+              new Coordinates(lat + random.nextDouble(), lon + size + random.nextDouble())));
+    }
+
+    return sectors;
+  }
+
+  /**
+   * Test that a search finds exactly the regions with intersecting bounding
+   * boxes.
+   */
+  @Test
+  public void testSearch_matchesBounds() {
+    Random random = new Random(11);
+
+    for (int count : new int[]{0, 1, 15, 16, 17, 300, 5000}) {
+      List<Sector> sectors = randomSectors(random, count, 200);
+      StrTree tree = new StrTree(sectors);
+
+      for (Sector query : randomSectors(random, 50, 200)) {
+        Set<Integer> expected = new HashSet<>();
+
+        for (int i = 0; i < sectors.size(); i++) {
+          if (query.boundsIntersect(sectors.get(i))) {
+            expected.add(i);
+          }
+        }
+
+        List<Integer> found = new ArrayList<>();
+
+        tree.search(query, found::add);
+
+        assertEquals(expected.size(), found.size());
+        assertEquals(expected, new HashSet<>(found));
+      }
+    }
+  }
+
+  /**
+   * Test that all overlapping pairs are found, in order.
+   */
+  @Test
+  public void testFindAllOverlaps_matchesPairwise() {
+    Random random = new Random(42);
+
+    for (int run = 0; run < 50; run++) {
+      List<Sector> sectors = randomSectors(random, 200, 60);
+
+      List<String> expected = new ArrayList<>();
+
+      for (int i = 0; i < sectors.size(); i++) {
+        for (int j = i + 1; j < sectors.size(); j++) {
+          if (sectors.get(i).overlaps(sectors.get(j))) {
+            expected.add(i + "/" + j);
+          }
+        }
+      }
+
+      List<String> actual = new ArrayList<>();
+
+      for (int[] overlap : new RTreeOverlapDetector().findAllOverlaps(sectors)) {
+        actual.add(overlap[0] + "/" + overlap[1]);
+      }
+
+      assertEquals(expected, actual);
+    }
+  }
+
+  /**
+   * Test a large area of identical sectors, where every pair overlaps.
+   */
+  @Test
+  public void testFindAllOverlaps_identical() {
+    Sector sector = new Sector("1", new Coordinates(0, 0), new Coordinates(1, 0), new Coordinates(1, 1), new Coordinates(0, 1));
+
+    List<Sector> sectors = Collections.nCopies(300, sector);
+
+    List<int[]> overlaps = new RTreeOverlapDetector().findAllOverlaps(sectors);
+
+    assertEquals(300 * 299 / 2, overlaps.size());
+    assertTrue(overlaps.get(0)[0] == 0 && overlaps.get(0)[1] == 1);
+  }
+
+}
@@ -16,6 +16,7 @@
 package com.github.cerricks.gps;
 
 import java.util.List;
+import java.util.Random;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -89,6 +90,37 @@ public class RegionTest {
     assertEquals(new Coordinates(1, 1), coordinates.get(3));
   }
 
+  /**
+   * Test that the bounding box is computed from the given coordinates.
+   */
+  @Test
+  public void testBounds() {
+    Region rectangle = new Region(new Coordinates(2, 0), new Coordinates(1, 1), new Coordinates(4, 2), new Coordinates(3, 3));
+
+    assertEquals(1, rectangle.getMinLatitude(), 0);
+    assertEquals(4, rectangle.getMaxLatitude(), 0);
+    assertEquals(0, rectangle.getMinLongitude(), 0);
+    assertEquals(3, rectangle.getMaxLongitude(), 0);
+  }
+
+  @Test
+  public void testBoundsIntersect_disjoint() {
+    Region r1 = new Region(new Coordinates(0, 0), new Coordinates(1, 0), new Coordinates(1, 1), new Coordinates(0, 1));
+    Region r2 = new Region(new Coordinates(0, 2), new Coordinates(1, 2), new Coordinates(1, 3), new Coordinates(0, 3));
+
+    assertFalse(r1.boundsIntersect(r2) || r2.boundsIntersect(r1));
+    assertFalse(r1.overlaps(r2) || r2.overlaps(r1));
+    assertFalse(r1.contains(r2) || r2.contains(r1));
+  }
+
+  @Test
+  public void testBoundsIntersect_touching() {
+    Region r1 = new Region(new Coordinates(0, 0), new Coordinates(1, 0), new Coordinates(1, 1), new Coordinates(0, 1));
+    Region r2 = new Region(new Coordinates(0, 1), new Coordinates(1, 1), new Coordinates(1, 2), new Coordinates(0, 2));
+
+    assertTrue(r1.boundsIntersect(r2) && r2.boundsIntersect(r1));
+  }
+
   @Test
   public void testIntersects_none() {
     Region r1 = new Region(new Coordinates(38.73733, -77.18872), new Coordinates(38.73739, -77.18843), new Coordinates(38.7364, -77.18851), new Coordinates(38.73633, -77.18879));
@@ -137,4 +169,116 @@ public class RegionTest {
     assertTrue(r1.overlaps(r2) && r2.overlaps(r1));
   }
 
+  /**
+   * Creates an axis-aligned rectangle.
+   *
+   * @param lat1 the latitude of a corner.
+   * @param lon1 the longitude of a corner.
+   * @param lat2 the latitude of the opposite corner.
+   * @param lon2 the longitude of the opposite corner.
+   * @return the rectangle.
+   */
+  private static Region rectangle(double lat1, double lon1, double lat2, double lon2) {
+    return new Region(lat1, lon1, lat2, lon2, lat1, lon2, lat2, lon1);
+  }
+
+  @Test
+  public void testIsAxisAligned() {
+    assertTrue(rectangle(1, 1, 5, 4).isAxisAligned());
+    assertTrue(new Area("A", new Coordinates(5, -1), new Coordinates(-1, 4)).isAxisAligned());
+    assertFalse(new Region(0, 1, 1, 2, 2, 1, 1, 0).isAxisAligned());
+  }
+
+  /**
+   * Test that the axis-aligned paths agree with the general paths on small
+   * integer rectangles, where sides and corners often touch.
+   */
+  @Test
+  public void testAxisAligned_matchesPolygon() {
+    Random random = new Random(3);
+
+    for (int i = 0; i < 20000; i++) {
+      Region r1 = rectangle(random.nextInt(6), random.nextInt(6), random.nextInt(6), random.nextInt(6));
+      Region r2 = rectangle(random.nextInt(6), random.nextInt(6), random.nextInt(6), random.nextInt(6));
+
+      assertEquals(r1.overlapsPolygon(r2), r1.overlaps(r2));
+
+      double latitude = random.nextInt(13) / 2.0;
+      double longitude = random.nextInt(13) / 2.0;
+
+      assertEquals(r1.containsPolygon(latitude, longitude), r1.contains(latitude, longitude));
+
+      // a quadrilateral with vertices on the half grid
+      Region quad = new Region(random.nextInt(13) / 2.0, random.nextInt(13) / 2.0, random.nextInt(13) / 2.0, random.nextInt(13) / 2.0,
+              random.nextInt(13) / 2.0, random.nextInt(13) / 2.0, random.nextInt(13) / 2.0, random.nextInt(13) / 2.0);
+
+      boolean contained = true;
+
+      for (Coordinates c : quad.getCoordinates()) {
+        contained &= r1.containsPolygon(c.getLatitude(), c.getLongitude());
+      }
+
+      assertEquals(contained, r1.contains(quad));
+    }
+  }
+
+  @Test
+  public void testIsConvex() {
+    assertTrue(rectangle(1, 1, 5, 4).isConvex());
+    assertTrue(new Region(0, 1, 1, 2, 2, 1, 1, 0).isConvex());
+    // dart: one vertex inside the triangle of the others
+    assertFalse(new Region(0, 0, 4, 1, 0, 2, 1, 1).isConvex());
+    // degenerate: three collinear vertices
+    assertFalse(new Region(0, 0, 1, 1, 2, 2, 0, 2).isConvex());
+  }
+
+  /**
+   * Test that the separating axis test agrees with the general path on
+   * quadrilaterals with vertices on a coarse grid, where sides and vertices
+   * often touch, and on random rotated quadrilaterals.
+   */
+  @Test
+  public void testOverlaps_convexMatchesPolygon() {
+    Random random = new Random(9);
+
+    int convexPairs = 0;
+
+    for (int i = 0; i < 50000; i++) {
+      Region r1 = randomQuad(random, i % 2 == 0);
+      Region r2 = randomQuad(random, i % 2 == 0);
+
+      if (r1.isConvex() && r2.isConvex()) {
+        convexPairs++;
+      }
+
+      assertEquals(r1.overlapsPolygon(r2), r1.overlaps(r2));
+      assertEquals(r2.overlapsPolygon(r1), r2.overlaps(r1));
+    }
+
+    assertTrue(convexPairs > 10000);
+  }
+
+  /**
+   * Creates a random quadrilateral.
+   *
+   * @param random the source of randomness.
+   * @param grid {@code true} for vertices on a coarse grid, {@code false} for
+   * a rotated rectangle at an arbitrary position.
+   * @return the quadrilateral.
+   */
+  private static Region randomQuad(Random random, boolean grid) {
+    if (grid) {
+      return new Region(random.nextInt(5), random.nextInt(5), random.nextInt(5), random.nextInt(5),
+              random.nextInt(5), random.nextInt(5), random.nextInt(5), random.nextInt(5));
+    }
+
+    double lat = 38 + random.nextDouble() * 0.01;
+    double lon = -77 + random.nextDouble() * 0.01;
+    double angle = random.nextDouble() * Math.PI;
+    double cos = Math.cos(angle) * 0.002;
+    double sin = Math.sin(angle) * 0.002;
+
+    return new Region(lat + cos, lon + sin, lat - sin, lon + cos, lat - cos, lon - sin, lat + sin, lon - cos);
+  }
+
 }
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link SectorStore}.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+public class SectorStoreTest {
+
+  /**
+   * Test that views of stored sectors match sectors created directly, across
+   * growth of the columns.
+   */
+  @Test
+  public void testGet_matchesSector() {
+    Random random = new Random(3);
+
+    SectorStore store = new SectorStore(1);
+    List<Sector> expected = new ArrayList<>();
+
+    for (int i = 0; i < 1000; i++) {
+      double[] c = new double[8];
+
+      for (int j = 0; j < c.length; j++) {
+        // a coarse grid for axis-aligned, touching and degenerate sectors
+        c[j] = i % 2 == 0 ? random.nextInt(4) : 38 + random.nextDouble();
+      }
+
+      String id = i % 3 == 0 ? "" : i % 3 == 1 ? "Sector-" + i : "Sektor-\u00e4\u20ac\ud83d\ude00-" + i;
+
+      store.add(id, c[0], c[1], c[2], c[3], c[4], c[5], c[6], c[7]);
+      expected.add(new Sector(id, c[0], c[1], c[2], c[3], c[4], c[5], c[6], c[7]));
+    }
+
+    assertEquals(expected.size(), store.size());
+
+    for (int i = 0; i < store.size(); i++) {
+      Sector sector = store.get(i);
+
+      assertEquals(expected.get(i).getId(), sector.getId());
+      assertEquals(expected.get(i).getId(), store.getId(i));
+      assertEquals(expected.get(i).getCoordinates(), sector.getCoordinates());
+      assertEquals(expected.get(i).getMinLatitude(), store.getMinLatitude(i), 0);
+      assertEquals(expected.get(i).getMaxLatitude(), store.getMaxLatitude(i), 0);
+      assertEquals(expected.get(i).getMinLongitude(), store.getMinLongitude(i), 0);
+      assertEquals(expected.get(i).getMaxLongitude(), store.getMaxLongitude(i), 0);
+      assertEquals(expected.get(i).isAxisAligned(), sector.isAxisAligned());
+      assertEquals(expected.get(i).isConvex(), sector.isConvex());
+    }
+
+    for (int i = 0; i + 1 < store.size(); i++) {
+      assertEquals(expected.get(i).overlaps(expected.get(i + 1)), store.get(i).overlaps(store.get(i + 1)));
+      assertEquals(expected.get(i).contains(expected.get(i + 1)), store.get(i).contains(store.get(i + 1)));
+    }
+  }
+
+  /**
+   * Test that the overlap detectors find the same overlaps in a store as in a
+   * list of sectors.
+   */
+  @Test
+  public void testDetectors_matchList() {
+    Random random = new Random(8);
+
+    SectorStore store = new SectorStore();
+    List<Sector> expected = new ArrayList<>();
+
+    for (int i = 0; i < 2000; i++) {
+      double lat = random.nextDouble() * 10;
+      double lon = random.nextDouble() * 10;
+
+      store.add(String.valueOf(i), lat, lon, lat + 0.1, lon, lat + 0.1, lon + 0.1, lat, lon + 0.1);
+      expected.add(new Sector(String.valueOf(i), lat, lon, lat + 0.1, lon, lat + 0.1, lon + 0.1, lat, lon + 0.1));
+    }
+
+    List<int[]> overlaps = new RTreeOverlapDetector().findAllOverlaps(store);
+
+    assertTrue(overlaps.size() > 0);
+    assertEquals(toString(new RTreeOverlapDetector().findAllOverlaps(expected)), toString(overlaps));
+    assertEquals(toString(new SweepOverlapDetector().findOverlap(expected)), toString(new SweepOverlapDetector().findOverlap(store)));
+  }
+
+  /**
+   * Test that the overlap indexes read the bounds of a store from its columns
+   * rather than through views.
+   */
+  @Test
+  public void testBounds_withoutViews() {
+    AtomicInteger views = new AtomicInteger();
+
+    SectorStore store = new SectorStore() {
+      @Override
+      public Sector get(int index) {
+        views.incrementAndGet();
+
+        return super.get(index);
+      }
+    };
+
+    for (int i = 0; i < 100; i++) {
+      store.add(String.valueOf(i), i, 0, i + 0.5, 0, i + 0.5, 1, i, 1);
+    }
+
+    assertSame(store, RegionBounds.of(store));
+
+    new SweepOverlapDetector.Sweep(store);
+    new StrTree(store);
+
+    assertEquals(0, views.get());
+  }
+
+  /**
+   * Test that a store spilled off the heap holds the same sectors and finds
+   * the same overlaps as a list of sectors.
+   */
+  @Test
+  public void testSpill_matchesList() {
+    Random random = new Random(5);
+
+    List<Sector> expected = new ArrayList<>();
+
+    try (SectorStore store = new SectorStore(4, 100)) {
+      for (int i = 0; i < 1000; i++) {
+        double lat = random.nextDouble() * 10;
+        double lon = random.nextDouble() * 10;
+        String id = i % 2 == 0 ? "S" + i : "Sektor-\u00e4\u20ac-" + i;
+
+        store.add(id, lat, lon, lat + 0.1, lon, lat + 0.1, lon + 0.2, lat, lon + 0.1);
+        expected.add(new Sector(id, lat, lon, lat + 0.1, lon, lat + 0.1, lon + 0.2, lat, lon + 0.1));
+
+        assertEquals(i >= 100, store.isSpilled());
+      }
+
+      for (int i = 0; i < store.size(); i++) {
+        Sector sector = store.get(i);
+
+        assertEquals(expected.get(i).getId(), sector.getId());
+        assertEquals(expected.get(i).getCoordinates(), sector.getCoordinates());
+        assertEquals(expected.get(i).getMinLatitude(), store.getMinLatitude(i), 0);
+        assertEquals(expected.get(i).getMaxLongitude(), store.getMaxLongitude(i), 0);
+        assertEquals(expected.get(i).isConvex(), sector.isConvex());
+      }
+
+      assertEquals(toString(new RTreeOverlapDetector().findAllOverlaps(expected)), toString(new RTreeOverlapDetector().findAllOverlaps(store)));
+      assertEquals(toString(new SweepOverlapDetector().findOverlap(expected)), toString(new SweepOverlapDetector().findOverlap(store)));
+    }
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testGet_outOfBounds() {
+    SectorStore store = new SectorStore();
+
+    store.add("1", 0, 0, 0, 1, 1, 1, 1, 0);
+
+    store.get(1);
+  }
+
+  /**
+   * Formats pairs of indices for comparison.
+   *
+   * @param pairs the pairs.
+   * @return the pairs as text.
+   */
+  private static String toString(List<int[]> pairs) {
+    StringBuilder text = new StringBuilder();
+
+    for (int[] pair : pairs) {
+      text.append(toString(pair)).append(' ');
+    }
+
+    return text.toString();
+  }
+
+  /**
+   * Formats a pair of indices for comparison.
+   *
+   * @param pair the pair, or {@code null}.
+   * @return the pair as text.
+   */
+  private static String toString(int[] pair) {
+    return pair == null ? "null" : pair[0] + "-" + pair[1];
+  }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.util.Arrays;
+import java.util.Random;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link SortKeys}.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+public class SortKeysTest {
+
+  /**
+   * Test that sorted keys give back their indices, and lower bounds of their
+   * keys which are ordered and close to the keys.
+   */
+  @Test
+  public void testPack_lowerBounds() {
+    Random random = new Random(8);
+
+    for (int size : new int[]{1, 2, 1000, 1 << 20}) {
+      int indexBits = SortKeys.indexBits(size);
+      double[] keys = new double[size];
+      long[] packed = new long[size];
+
+      for (int i = 0; i < size; i++) {
+        // coordinates of both signs, with ties
+        keys[i] = i % 7 == 0 ? keys[i / 2] : random.nextDouble() * 360 - 180;
+        packed[i] = SortKeys.pack(keys[i], i, indexBits);
+      }
+
+      Arrays.sort(packed);
+
+      boolean[] seen = new boolean[size];
+      double previous = Double.NEGATIVE_INFINITY;
+
+      for (long p : packed) {
+        int index = SortKeys.index(p, indexBits);
+        double bound = SortKeys.key(p, indexBits);
+
+        assertTrue(!seen[index]);
+        assertTrue(bound >= previous);
+        assertTrue(bound <= keys[index]);
+        assertEquals(keys[index], bound, Math.abs(keys[index]) * 0x1p-30);
+
+        seen[index] = true;
+        previous = bound;
+      }
+    }
+  }
+
+  /**
+   * Test that zero, negative zero and infinities order as doubles.
+   */
+  @Test
+  public void testPack_specialValues() {
+    double[] keys = {Double.POSITIVE_INFINITY, 0.0, -0.0, -1, 1, Double.NEGATIVE_INFINITY};
+    int indexBits = SortKeys.indexBits(keys.length);
+    long[] packed = new long[keys.length];
+
+    for (int i = 0; i < keys.length; i++) {
+      packed[i] = SortKeys.pack(keys[i], i, indexBits);
+    }
+
+    Arrays.sort(packed);
+
+    int[] order = new int[keys.length];
+
+    for (int i = 0; i < keys.length; i++) {
+      order[i] = SortKeys.index(packed[i], indexBits);
+    }
+
+    assertArrayEquals(new int[]{5, 3, 2, 1, 4, 0}, order);
+  }
+
+  /**
+   * Test that only the given range of indices is ordered.
+   */
+  @Test
+  public void testSort_range() {
+    double[] keys = {5, 4, 3, 2, 1, 0};
+    int[] indices = {0, 1, 2, 3, 4, 5};
+
+    SortKeys.sort(indices, 1, 5, i -> keys[i]);
+
+    assertArrayEquals(new int[]{0, 4, 3, 2, 1, 5}, indices);
+  }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for {@link SortedSectorRecordReader}.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+public class SortedSectorRecordReaderTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * Writes a file of rows for random areas in random order.
+   *
+   * @param random the source of randomness.
+   * @param rows the number of rows.
+   * @return the file.
+   * @throws IOException if the file cannot be written.
+   */
+  private File unsortedFile(Random random, int rows) throws IOException {
+    StringBuilder content = new StringBuilder("AreaID,ALat1,ALon1,ALat2,ALon2,SectorID,c1,d1,c2,d2,c3,d3,c4,d4\n");
+
+    for (int i = 0; i < rows; i++) {
+      int area = random.nextInt(50);
+
+      content.append("Area").append(area).append(',').append(area).append(",0,").append(area + 1).append(",1");
+      content.append(",Sector").append(i);
+
+      for (int j = 0; j < 8; j++) {
+        content.append(',').append(i + j);
+      }
+
+      content.append('\n');
+    }
+
+    File file = folder.newFile();
+
+    Files.write(file.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+
+    return file;
+  }
+
+  /**
+   * Reads the rows of a file in sorted order, as area id, sector id and first
+   * sector coordinate.
+   *
+   * @param file the file to read.
+   * @param maxRecordsInMemory the number of records sorted in memory.
+   * @return the rows read.
+   * @throws IOException if the file cannot be read.
+   */
+  private List<String> readSorted(File file, int maxRecordsInMemory) throws IOException {
+    List<String> rows = new ArrayList<>();
+
+    try (SectorRecordReader source = new CsvSectorRecordReader(file, StandardCharsets.UTF_8);
+            SectorRecordReader reader = new SortedSectorRecordReader(source, maxRecordsInMemory, bytesRead -> {
+            })) {
+      SectorRecord record = new SectorRecord();
+      String previousAreaId = null;
+
+      while (reader.read(record)) {
+        if (record.areaId.equals(previousAreaId)) {
+          assertSame(previousAreaId, record.areaId);
+        }
+
+        previousAreaId = record.areaId;
+
+        rows.add(record.areaId + "," + record.area[0] + "," + record.sectorId + "," + record.sector[0]);
+      }
+
+      assertEquals(file.length(), reader.getBytesRead());
+    }
+
+    return rows;
+  }
+
+  /**
+   * Test that rows are grouped by area id in file order, whether sorted in
+   * memory, merged from runs or merged over several passes.
+   */
+  @Test
+  public void testRead_groupsByArea() throws IOException {
+    File file = unsortedFile(new Random(3), 5000);
+
+    List<String> expected = new ArrayList<>();
+
+    try (SectorRecordReader reader = new CsvSectorRecordReader(file, StandardCharsets.UTF_8)) {
+      SectorRecord record = new SectorRecord();
+
+      while (reader.read(record)) {
+        expected.add(record.areaId + "," + record.area[0] + "," + record.sectorId + "," + record.sector[0]);
+      }
+    }
+
+    // stable sort by area id
+    expected.sort((a, b) -> a.substring(0, a.indexOf(',')).compareTo(b.substring(0, b.indexOf(','))));
+
+    assertEquals(expected, readSorted(file, 10000));
+    assertEquals(expected, readSorted(file, 500));
+    assertEquals(expected, readSorted(file, 7));
+  }
+
+}
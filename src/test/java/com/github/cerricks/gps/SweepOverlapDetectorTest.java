@@ -0,0 +1,155 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link SweepOverlapDetector}.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+public class SweepOverlapDetectorTest {
+
+  /**
+   * Test that no overlap is found for sectors clear of one another.
+   */
+  @Test
+  public void testFindOverlap_none() {
+    List<Sector> sectors = Arrays.asList(
+            new Sector("1", new Coordinates(0, 0), new Coordinates(1, 0), new Coordinates(1, 1), new Coordinates(0, 1)),
+            new Sector("2", new Coordinates(0, 2), new Coordinates(1, 2), new Coordinates(1, 3), new Coordinates(0, 3)),
+            new Sector("3", new Coordinates(2, 0), new Coordinates(3, 0), new Coordinates(3, 1), new Coordinates(2, 1))
+    );
+
+    assertNull(new SweepOverlapDetector().findOverlap(sectors));
+  }
+
+  /**
+   * Test that an overlapping pair is found regardless of its position in the
+   * list.
+   */
+  @Test
+  public void testFindOverlap_partiallyContained() {
+    List<Sector> sectors = Arrays.asList(
+            new Sector("1", new Coordinates(38.73733, -77.18872), new Coordinates(38.73739, -77.18843), new Coordinates(38.7364, -77.18851), new Coordinates(38.73633, -77.18879)),
+            new Sector("2", new Coordinates(0, 2), new Coordinates(1, 2), new Coordinates(1, 3), new Coordinates(0, 3)),
+            new Sector("3", new Coordinates(38.73706, -77.18855), new Coordinates(38.73737, -77.18671), new Coordinates(38.73712, -77.18656), new Coordinates(38.7368, -77.18833))
+    );
+
+    int[] overlap = new SweepOverlapDetector().findOverlap(sectors);
+
+    assertNotNull(overlap);
+    assertEquals(0, overlap[0]);
+    assertEquals(2, overlap[1]);
+  }
+
+  /**
+   * Test that a cancelled sweep stops without a verdict.
+   */
+  @Test(expected = CancellationException.class)
+  public void testFindOverlap_cancelled() {
+    List<Sector> sectors = new ArrayList<>();
+
+    for (int i = 0; i < 1000; i++) {
+      sectors.add(new Sector(String.valueOf(i), new Coordinates(0, i), new Coordinates(1, i), new Coordinates(1, i + 2), new Coordinates(0, i + 2)));
+    }
+
+    assertNotNull(new SweepOverlapDetector().findOverlap(sectors, () -> false));
+
+    new SweepOverlapDetector().findOverlap(sectors, () -> true);
+  }
+
+  /**
+   * Test that an overlap is found when minimum longitudes are closer than the
+   * sort keys order them, so a region sorted after another starts west of it.
+   */
+  @Test
+  public void testFindOverlap_keysBelowPrecision() {
+    List<Sector> sectors = new ArrayList<>();
+
+    // sorted first among keys equal to their precision, but starts east
+    sectors.add(new Sector("east", new Coordinates(5, 100 + 1e-10), new Coordinates(5, 101), new Coordinates(6, 101), new Coordinates(6, 100 + 1e-10)));
+    sectors.add(new Sector("west", new Coordinates(0, 100), new Coordinates(0, 101), new Coordinates(1, 101), new Coordinates(1, 100)));
+    sectors.add(new Sector("before", new Coordinates(0, 99), new Coordinates(0, 100 + 5e-11), new Coordinates(1, 100 + 5e-11), new Coordinates(1, 99)));
+
+    // enough regions that the keys lose the precision to tell the first two apart
+    for (int i = sectors.size(); i < 40000; i++) {
+      double lon = -170 + (i % 200);
+      double lat = 10 + i / 200;
+
+      sectors.add(new Sector(String.valueOf(i), new Coordinates(lat, lon), new Coordinates(lat, lon + 0.5),
+              new Coordinates(lat + 0.5, lon + 0.5), new Coordinates(lat + 0.5, lon)));
+    }
+
+    int[] overlap = new SweepOverlapDetector().findOverlap(sectors);
+
+    assertNotNull(overlap);
+    assertEquals(1, overlap[0]);
+    assertEquals(2, overlap[1]);
+  }
+
+  /**
+   * Test that the detector gives the same verdict as checking every pair.
+   */
+  @Test
+  public void testFindOverlap_matchesPairwise() {
+    Random random = new Random(42);
+
+    for (int run = 0; run < 200; run++) {
+      List<Sector> sectors = new ArrayList<>();
+
+      for (int i = 0; i < 20; i++) {
+        double lat = random.nextDouble() * 100;
+        double lon = random.nextDouble() * 100;
+        double size = 1 + random.nextDouble() * 4;
+
+        sectors.add(new Sector(String.valueOf(i),
+                new Coordinates(lat, lon),
+                new Coordinates(lat + size, lon + random.nextDouble()),
+                new Coordinates(lat + size + random.nextDouble(), lon + size),
+                new Coordinates(lat + random.nextDouble(), lon + size + random.nextDouble())));
+      }
+
+      boolean expected = false;
+
+      for (int i = 0; i < sectors.size() && !expected; i++) {
+        for (int j = i + 1; j < sectors.size() && !expected; j++) {
+          expected = sectors.get(i).overlaps(sectors.get(j));
+        }
+      }
+
+      int[] overlap = new SweepOverlapDetector().findOverlap(sectors);
+
+      assertEquals(expected, overlap != null);
+
+      if (overlap != null) {
+        assertTrue(sectors.get(overlap[0]).overlaps(sectors.get(overlap[1])));
+      }
+    }
+  }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018 Clifford Errickson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cerricks.gps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link ValidationMetrics}.
+ *
+ * @author Clifford Errickson
+ * @since 1.1
+ */
+public class ValidationMetricsTest {
+
+  @Test
+  public void testHistogram_percentiles() {
+    Histogram histogram = new Histogram();
+
+    for (long i = 1; i <= 1000; i++) {
+      histogram.record(i);
+    }
+
+    assertEquals(1000, histogram.getCount());
+    assertEquals(500500, histogram.getSum());
+    assertEquals(1000, histogram.getMax());
+
+    // accurate to within a factor of two
+    long p50 = histogram.getPercentile(50);
+    long p99 = histogram.getPercentile(99);
+
+    assertTrue(String.valueOf(p50), p50 >= 250 && p50 <= 1000);
+    assertTrue(String.valueOf(p99), p99 >= 495 && p99 <= 1000);
+    assertEquals(1000, histogram.getPercentile(100));
+
+    histogram.reset();
+
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getPercentile(50));
+  }
+
+  @Test
+  public void testRecord_forwardsToParent() {
+    ValidationMetrics parent = new ValidationMetrics();
+    ValidationMetrics metrics = new ValidationMetrics(parent);
+
+    metrics.areaValidated("f.csv", "A1", 10, 1000000, 2000000);
+    metrics.areaValidated("f.csv", "A2", 20, 5000000, 5000000);
+    metrics.areaCompleted(new AreaResult("A1", AreaResult.Verdict.VALID));
+    metrics.areaCompleted(new AreaResult("A2", AreaResult.Verdict.SECTORS_OVERLAP, "S1", "S2"));
+    metrics.areaCached();
+    metrics.fileValidated(30, 1024, 1000000000);
+
+    for (ValidationMetrics m : new ValidationMetrics[]{metrics, parent}) {
+      assertEquals(1, m.getFiles());
+      assertEquals(30, m.getRows());
+      assertEquals(2, m.getAreas());
+      assertEquals(1, m.getInvalidAreas());
+      assertEquals(1, m.getCachedAreas());
+      assertEquals(30, m.getRowsPerSecond(), 1e-9);
+      assertEquals(0.006, m.getContainmentSeconds(), 1e-9);
+      assertEquals(0.007, m.getOverlapSeconds(), 1e-9);
+      assertEquals(10, m.getAreaMillisMax(), 1e-9);
+      assertEquals(20, m.getSectorsPerAreaMax());
+      assertEquals(2, m.getSlowestAreas().length);
+      assertTrue(m.getSlowestAreas()[0], m.getSlowestAreas()[0].contains("A2"));
+    }
+
+    metrics.reset();
+
+    assertEquals(0, metrics.getAreas());
+    assertEquals(0, metrics.getSlowestAreas().length);
+    assertEquals(2, parent.getAreas());
+  }
+
+}